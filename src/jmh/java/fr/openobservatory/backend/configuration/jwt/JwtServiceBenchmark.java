@@ -0,0 +1,61 @@
+package fr.openobservatory.backend.configuration.jwt;
+
+import fr.openobservatory.backend.configuration.RsaKeyProperties;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+/** Benchmarks the RSA signature and verification of the tokens issued by {@link JwtService}. */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class JwtServiceBenchmark {
+
+  @Param({"2048", "4096"})
+  public int keySize;
+
+  private Authentication authentication;
+  private JwtDecoder jwtDecoder;
+  private JwtService jwtService;
+  private String token;
+
+  @Setup
+  public void setup() throws Exception {
+    var generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(keySize);
+    var keyPair = generator.generateKeyPair();
+    var configuration =
+        new NimbusJwtConfiguration(
+            new RsaKeyProperties(
+                (RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+    authentication =
+        new UsernamePasswordAuthenticationToken(
+            "user", null, List.of(new SimpleGrantedAuthority("USER")));
+    jwtDecoder = configuration.jwtDecoder();
+    jwtService = new JwtService(configuration.jwtEncoder());
+    token = jwtService.generateToken(authentication);
+  }
+
+  // ---
+
+  @Benchmark
+  public String encode() {
+    return jwtService.generateToken(authentication);
+  }
+
+  @Benchmark
+  public Jwt decode() {
+    return jwtDecoder.decode(token);
+  }
+}
@@ -0,0 +1,99 @@
+package fr.openobservatory.backend.mappers;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.dto.output.ObservationWithDetailsDto;
+import fr.openobservatory.backend.dto.output.UserWithProfileDto;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.UserAchievementEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+/** Compares the hand-written mappers with ModelMapper on the DTOs returned by the hot paths. */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class MapperBenchmark {
+
+  private final ModelMapper modelMapper = new ModelMapper();
+  private final BlobProperties blobProperties =
+      new BlobProperties("/blobs/", DataSize.ofMegabytes(2));
+  private final UserMapper userMapper = new UserMapper(blobProperties);
+  private final ObservationMapper observationMapper =
+      new ObservationMapper(blobProperties, new CelestialBodyMapper(blobProperties), userMapper);
+  private ObservationEntity observation;
+  private UserEntity user;
+
+  @Setup
+  public void setup() {
+    user =
+        UserEntity.builder()
+            .id(1L)
+            .username("user")
+            .avatar("avatar")
+            .biography("Stargazer")
+            .karma(12)
+            .build();
+    user.setAchievements(
+        Set.of(
+            UserAchievementEntity.builder()
+                .achievement(Achievement.OBSERVER)
+                .level(Level.BEGINNER)
+                .user(user)
+                .build()));
+    observation =
+        ObservationEntity.builder()
+            .id(2L)
+            .author(user)
+            .celestialBody(
+                CelestialBodyEntity.builder()
+                    .id(3L)
+                    .name("Moon")
+                    .image("moon")
+                    .validityTime(3)
+                    .build())
+            .description("Full moon")
+            .latitude(12.5)
+            .longitude(-4.25)
+            .orientation(90)
+            .visibility(ObservationEntity.Visibility.VISIBLE)
+            .timestamp(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(3600))
+            .build();
+    // Let ModelMapper build and cache its type maps before measuring.
+    modelMapper.map(observation, ObservationWithDetailsDto.class);
+    modelMapper.map(user, UserWithProfileDto.class);
+  }
+
+  // ---
+
+  @Benchmark
+  public ObservationWithDetailsDto observationWithModelMapper() {
+    return modelMapper.map(observation, ObservationWithDetailsDto.class);
+  }
+
+  @Benchmark
+  public ObservationWithDetailsDto observationWithMapper() {
+    return observationMapper.toDetailedDto(observation);
+  }
+
+  @Benchmark
+  public UserWithProfileDto profileWithModelMapper() {
+    return modelMapper.map(user, UserWithProfileDto.class);
+  }
+
+  @Benchmark
+  public UserWithProfileDto profileWithMapper() {
+    return userMapper.toProfileDto(user);
+  }
+}
@@ -0,0 +1,41 @@
+package fr.openobservatory.backend.orbit;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Benchmarks the local propagation of the ISS orbit, from the elements to geodetic coordinates. */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class Sgp4PropagatorBenchmark {
+
+  private Sgp4Propagator propagator;
+  private Instant at;
+
+  @Setup
+  public void setup() {
+    var elements =
+        TwoLineElements.parse(
+            "ISS (ZARYA)",
+            "1 25544U 98067A   19343.69339541  .00001764  00000-0  38792-4 0  9991",
+            "2 25544  51.6439 211.2001 0007417  17.6667  85.6398 15.50103472202482");
+    propagator = new Sgp4Propagator(elements);
+    at = elements.epoch().plusSeconds(3600);
+  }
+
+  // ---
+
+  @Benchmark
+  public StateVector propagate() {
+    return propagator.propagate(at);
+  }
+
+  @Benchmark
+  public GeodeticPosition locate() {
+    return Geodesy.toGeodetic(Geodesy.toEarthFixed(propagator.propagate(at), at));
+  }
+}
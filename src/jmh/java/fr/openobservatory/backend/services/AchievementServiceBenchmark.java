@@ -0,0 +1,95 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationCreatedEvent;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
+import fr.openobservatory.backend.repositories.ObservationRepository;
+import fr.openobservatory.backend.repositories.UserAchievementRepository;
+import fr.openobservatory.backend.repositories.UserRepository;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the event handlers of {@link AchievementService} for users owning {@code observations}
+ * observations and votes. Repositories are replaced by in-memory stubs so that only the achievement
+ * evaluation is measured, which should not depend on the size of the history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class AchievementServiceBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int observations;
+
+  private AchievementService achievementService;
+  private ObservationCreatedEvent observationCreated;
+  private ObservationVoteChangedEvent voteChanged;
+
+  @Setup
+  public void setup() {
+    var author =
+        UserEntity.builder()
+            .id(1L)
+            .username("author")
+            .karma(observations)
+            .observationCount(observations)
+            .voteCount(observations)
+            .build();
+    var observation = ObservationEntity.builder().id(1L).author(author).karma(1).build();
+    achievementService =
+        new AchievementService(
+            stub(
+                ObservationRepository.class,
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "existsById" -> true;
+                      case "getReferenceById" -> observation;
+                      default -> throw new UnsupportedOperationException(method.getName());
+                    }),
+            stub(
+                UserAchievementRepository.class,
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "raiseLevel" -> null;
+                      default -> throw new UnsupportedOperationException(method.getName());
+                    }),
+            stub(
+                UserRepository.class,
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "existsById" -> true;
+                      case "getReferenceById" -> author;
+                      case "evictProfile" -> null;
+                      default -> throw new UnsupportedOperationException(method.getName());
+                    }));
+    observationCreated = new ObservationCreatedEvent(observation.getId(), author.getId());
+    voteChanged =
+        new ObservationVoteChangedEvent(observation.getId(), author.getId(), null, VoteType.UPVOTE);
+  }
+
+  // ---
+
+  @Benchmark
+  public void checkObservationAchievements() {
+    achievementService.onObservationCreated(observationCreated);
+  }
+
+  @Benchmark
+  public void checkVoteAchievements() {
+    achievementService.onObservationVoteChanged(voteChanged);
+  }
+
+  // ---
+
+  private static <T> T stub(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+}
@@ -0,0 +1,146 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.mappers.CelestialBodyMapper;
+import fr.openobservatory.backend.mappers.ObservationMapper;
+import fr.openobservatory.backend.mappers.UserMapper;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Benchmarks the in-memory work done by {@link ObservationService}: the bounding box computation,
+ * the fan-out to nearby users when an observation is created, and the mapping of a feed page. Data
+ * sets are synthetic and sized by the {@code users} and {@code pageSize} parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+public class ObservationServiceBenchmark {
+
+  private static final Instant NOW = Instant.now();
+
+  @State(Scope.Thread)
+  public static class Points {
+
+    private final double[][] points = new double[1024][];
+    private int next;
+
+    @Setup
+    public void setup() {
+      var random = new SplittableRandom(7);
+      for (int i = 0; i < points.length; i++)
+        points[i] = new double[] {random.nextDouble(42, 51), random.nextDouble(-5, 8)};
+    }
+
+    double[] next() {
+      return points[next++ & (points.length - 1)];
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Index {
+
+    @Param({"1000", "10000", "100000"})
+    public int users;
+
+    private NotifiableUserIndexService notifiableUserIndexService;
+
+    @Setup
+    public void setup() {
+      var random = new SplittableRandom(42);
+      notifiableUserIndexService = new NotifiableUserIndexService(null);
+      for (long i = 0; i < users; i++)
+        notifiableUserIndexService.update(
+            UserEntity.builder()
+                .id(i)
+                .username("user" + i)
+                .latitude(random.nextDouble(42, 51))
+                .longitude(random.nextDouble(-5, 8))
+                .positionAt(NOW.minus(random.nextInt(0, 48), ChronoUnit.HOURS))
+                .notificationEnabled(true)
+                .notificationRadius(random.nextInt(1, 50))
+                .build());
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Feed {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final BlobProperties blobProperties =
+        new BlobProperties("/blobs/", DataSize.ofMegabytes(2));
+    private final ObservationMapper observationMapper =
+        new ObservationMapper(
+            blobProperties,
+            new CelestialBodyMapper(blobProperties),
+            new UserMapper(blobProperties));
+    private List<DetailedObservation> page;
+
+    @Setup
+    public void setup() {
+      var random = new SplittableRandom(42);
+      page = new ArrayList<>(pageSize);
+      for (long i = 0; i < pageSize; i++)
+        page.add(
+            new DetailedObservation(
+                i,
+                "Observation " + i,
+                random.nextDouble(42, 51),
+                random.nextDouble(-5, 8),
+                random.nextInt(0, 360),
+                ObservationEntity.Visibility.VISIBLE,
+                NOW.minus(random.nextInt(0, 72), ChronoUnit.HOURS),
+                NOW.plus(random.nextInt(-48, 24), ChronoUnit.HOURS),
+                random.nextInt(-10, 100),
+                "user" + i,
+                null,
+                true,
+                UserEntity.Type.USER,
+                1L,
+                "Moon",
+                "moon",
+                24,
+                random.nextBoolean() ? VoteType.UPVOTE : null));
+    }
+  }
+
+  // ---
+
+  @Benchmark
+  public void getPointCorner(Points points, Blackhole blackhole) {
+    var point = points.next();
+    blackhole.consume(ObservationService.getPointCorner(point[0], point[1], -25));
+    blackhole.consume(ObservationService.getPointCorner(point[0], point[1], 25));
+  }
+
+  /** Same lookup and filtering as {@link ObservationService#create} before sending the pushes. */
+  @Benchmark
+  public List<Long> nearbyFanOut(Index index, Points points) {
+    var point = points.next();
+    return index.notifiableUserIndexService.findUsersCovering(point[0], point[1]).stream()
+        .filter(user -> !user.username().equalsIgnoreCase("user0"))
+        .map(NotifiableUserIndexService.Entry::id)
+        .toList();
+  }
+
+  @Benchmark
+  public void buildDetailedPage(Feed feed, Blackhole blackhole) {
+    for (var observation : feed.page)
+      blackhole.consume(feed.observationMapper.toDetailedDto(observation));
+  }
+}
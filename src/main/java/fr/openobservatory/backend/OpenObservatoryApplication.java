@@ -1,12 +1,25 @@
 package fr.openobservatory.backend;
 
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.configuration.ISSProperties;
+import fr.openobservatory.backend.configuration.JwtCacheProperties;
+import fr.openobservatory.backend.configuration.OrbitProperties;
 import fr.openobservatory.backend.configuration.PushServiceProperties;
+import fr.openobservatory.backend.configuration.ReferenceCacheProperties;
 import fr.openobservatory.backend.configuration.RsaKeyProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
-@EnableConfigurationProperties({PushServiceProperties.class, RsaKeyProperties.class})
+@EnableConfigurationProperties({
+  BlobProperties.class,
+  ISSProperties.class,
+  JwtCacheProperties.class,
+  OrbitProperties.class,
+  PushServiceProperties.class,
+  ReferenceCacheProperties.class,
+  RsaKeyProperties.class
+})
 @SpringBootApplication
 public class OpenObservatoryApplication {
 
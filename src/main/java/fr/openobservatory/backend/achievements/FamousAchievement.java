@@ -1,6 +1,8 @@
 package fr.openobservatory.backend.achievements;
 
-import fr.openobservatory.backend.entities.ObservationVoteEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
 import fr.openobservatory.backend.repositories.Achievements;
 
 public class FamousAchievement implements Achievements {
@@ -8,15 +10,20 @@ public class FamousAchievement implements Achievements {
   private static final Achievement actual = Achievement.FAMOUS;
 
   @Override
-  public Request onVoteSubmit(ObservationVoteEntity vote) {
-    var author = vote.getUser();
-    var observations = author.getObservations();
-    var karma =
-        observations.stream()
-            .map(
-                o ->
-                    o.getVotes().stream().map(v -> v.getVote().getWeight()).reduce(0, Integer::sum))
-            .reduce(0, Integer::sum);
-    return new Request(actual, Level.getLevel(karma), author);
+  public Request onObservationVoteChanged(
+      ObservationVoteChangedEvent event, ObservationEntity observation, UserEntity voter) {
+    if (event.karmaDelta() <= 0) return null;
+    var author = observation.getAuthor();
+    return new Request(actual, Level.getLevel(author.getKarma()), author);
+  }
+
+  @Override
+  public Level evaluate(Activity activity) {
+    return Level.getLevel(activity.karma());
+  }
+
+  @Override
+  public Achievement getAchievement() {
+    return actual;
   }
 }
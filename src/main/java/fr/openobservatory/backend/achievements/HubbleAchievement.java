@@ -1,21 +1,32 @@
 package fr.openobservatory.backend.achievements;
 
-import fr.openobservatory.backend.entities.ObservationVoteEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
 import fr.openobservatory.backend.repositories.Achievements;
 
 public class HubbleAchievement implements Achievements {
 
   private static final Achievement actual = Achievement.HUBBLE;
+  private static final int KARMA = 10;
 
   @Override
-  public Request onVoteSubmit(ObservationVoteEntity vote) {
-    var karma =
-        vote.getObservation().getVotes().stream()
-            .map(v -> v.getVote().getWeight())
-            .reduce(0, Integer::sum);
-    if (karma >= 10) {
-      return new Request(actual, Level.NONE, vote.getObservation().getAuthor());
+  public Request onObservationVoteChanged(
+      ObservationVoteChangedEvent event, ObservationEntity observation, UserEntity voter) {
+    if (event.karmaDelta() <= 0) return null;
+    if (observation.getKarma() >= KARMA) {
+      return new Request(actual, Level.NONE, observation.getAuthor());
     }
-    return new Request(actual, null, vote.getObservation().getAuthor());
+    return new Request(actual, null, observation.getAuthor());
+  }
+
+  @Override
+  public Level evaluate(Activity activity) {
+    return activity.bestObservationKarma() >= KARMA ? Level.NONE : null;
+  }
+
+  @Override
+  public Achievement getAchievement() {
+    return actual;
   }
 }
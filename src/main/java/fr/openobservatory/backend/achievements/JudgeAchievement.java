@@ -1,6 +1,8 @@
 package fr.openobservatory.backend.achievements;
 
-import fr.openobservatory.backend.entities.ObservationVoteEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
 import fr.openobservatory.backend.repositories.Achievements;
 
 public class JudgeAchievement implements Achievements {
@@ -8,9 +10,20 @@ public class JudgeAchievement implements Achievements {
   private static final Achievement actual = Achievement.JUDGE;
 
   @Override
-  public Request onVoteSubmit(ObservationVoteEntity vote) {
-    var author = vote.getUser();
-    var level = Level.getLevel(author.getVotes().size());
-    return new Request(actual, level, author);
+  public Request onObservationVoteChanged(
+      ObservationVoteChangedEvent event, ObservationEntity observation, UserEntity voter) {
+    if (!event.isNewVote()) return null;
+    var level = Level.getLevel(voter.getVoteCount());
+    return new Request(actual, level, voter);
+  }
+
+  @Override
+  public Level evaluate(Activity activity) {
+    return Level.getLevel(activity.voteCount());
+  }
+
+  @Override
+  public Achievement getAchievement() {
+    return actual;
   }
 }
@@ -1,6 +1,6 @@
 package fr.openobservatory.backend.achievements;
 
-import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.UserEntity;
 import fr.openobservatory.backend.repositories.Achievements;
 
 public class ObserverAchievement implements Achievements {
@@ -8,9 +8,18 @@ public class ObserverAchievement implements Achievements {
   private static final Achievement actual = Achievement.OBSERVER;
 
   @Override
-  public Request onObservationUpdate(ObservationEntity observation) {
-    var author = observation.getAuthor();
-    var level = Level.getLevel(author.getObservations().size());
+  public Request onObservationCreated(UserEntity author) {
+    var level = Level.getLevel(author.getObservationCount());
     return new Request(actual, level, author);
   }
+
+  @Override
+  public Level evaluate(Activity activity) {
+    return Level.getLevel(activity.observationCount());
+  }
+
+  @Override
+  public Achievement getAchievement() {
+    return actual;
+  }
 }
@@ -0,0 +1,66 @@
+package fr.openobservatory.backend.configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfiguration {
+
+  public static final String ACHIEVEMENT_EXECUTOR = "achievementExecutor";
+  public static final String BACKFILL_EXECUTOR = "backfillExecutor";
+
+  private static final int ACHIEVEMENT_WORKERS = 4;
+  private static final int BACKFILL_WORKERS = 4;
+  private static final int REQUEST_WORKERS = 16;
+
+  // ---
+
+  /**
+   * Pool evaluating achievements once the changes triggering them are committed. Levels are only
+   * ever raised, so that workers may handle the events of a user concurrently. Once its queue is
+   * full, the committing thread evaluates them itself.
+   */
+  @Bean(ACHIEVEMENT_EXECUTOR)
+  public ThreadPoolTaskExecutor achievementExecutor() {
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(ACHIEVEMENT_WORKERS);
+    executor.setMaxPoolSize(ACHIEVEMENT_WORKERS);
+    executor.setQueueCapacity(10000);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setThreadNamePrefix("achievement-");
+    return executor;
+  }
+
+  /**
+   * Pool backfilling the achievements, each worker handling one range of users at a time. Ranges
+   * are queued until a worker is available.
+   */
+  @Bean(BACKFILL_EXECUTOR)
+  public ThreadPoolTaskExecutor backfillExecutor() {
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(BACKFILL_WORKERS);
+    executor.setMaxPoolSize(BACKFILL_WORKERS);
+    executor.setThreadNamePrefix("backfill-");
+    return executor;
+  }
+
+  /**
+   * Pool running the asynchronous requests, such as streamed responses. Spring Boot only defines
+   * its own when the application has no other executor, and Spring MVC would otherwise start a new
+   * thread per request. Requests are rejected once its queue is full.
+   */
+  @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public ThreadPoolTaskExecutor applicationTaskExecutor() {
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(REQUEST_WORKERS);
+    executor.setMaxPoolSize(REQUEST_WORKERS);
+    executor.setQueueCapacity(100);
+    executor.setThreadNamePrefix("request-");
+    return executor;
+  }
+}
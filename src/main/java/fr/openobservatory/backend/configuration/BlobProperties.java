@@ -0,0 +1,30 @@
+package fr.openobservatory.backend.configuration;
+
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "blob")
+public record BlobProperties(String urlPrefix, DataSize maxSize) {
+
+  /**
+   * Builds the URL serving a blob.
+   *
+   * @param hash Hash of the blob, or null.
+   * @return The URL of the blob, or null when no hash is given.
+   */
+  public String urlOf(String hash) {
+    return hash == null ? null : urlPrefix + hash;
+  }
+
+  /**
+   * Builds the URL serving a thumbnail of an image blob.
+   *
+   * @param hash Hash of the blob, or null.
+   * @param size Size of the thumbnail.
+   * @return The URL of the thumbnail, or null when no hash is given.
+   */
+  public String urlOf(String hash, ThumbnailEntity.Size size) {
+    return hash == null ? null : urlPrefix + hash + "?size=" + size;
+  }
+}
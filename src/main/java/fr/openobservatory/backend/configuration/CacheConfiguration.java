@@ -1,17 +1,42 @@
 package fr.openobservatory.backend.configuration;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.List;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Caches of the reference data read on most requests. Entries are bounded in number and age, so
+ * that a missed eviction can only serve stale data for a limited time.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
+  /** Celestial bodies by identifier. */
+  public static final String CELESTIAL_BODIES = "celestialBodies";
+
+  /** Profiles of the users by identifier, see {@code CachedUserProfileRepository}. */
+  public static final String PROFILES = "profiles";
+
+  /** User identifiers by lower-cased username. */
+  public static final String USER_IDS = "userIds";
+
+  // ---
+
   @Bean
-  public CacheManager cacheManager() {
-    return new ConcurrentMapCacheManager();
+  public CacheManager cacheManager(ReferenceCacheProperties properties) {
+    var cacheManager = new CaffeineCacheManager();
+    cacheManager.setCaffeine(
+        Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfterWrite(properties.expireAfterWrite())
+            .recordStats());
+    cacheManager.setAllowNullValues(false);
+    cacheManager.setCacheNames(List.of(CELESTIAL_BODIES, PROFILES, USER_IDS));
+    return cacheManager;
   }
 }
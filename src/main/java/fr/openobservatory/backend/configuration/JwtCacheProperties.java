@@ -0,0 +1,6 @@
+package fr.openobservatory.backend.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "jwt.cache")
+public record JwtCacheProperties(long maximumSize) {}
@@ -0,0 +1,45 @@
+package fr.openobservatory.backend.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Metrics scraped by Prometheus on the management port. Services annotated with {@code @Timed}
+ * record a timer per public method, and requests record how many SQL statements they prepared. HTTP
+ * requests, Hikari pools and caches are instrumented by Spring Boot itself.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+
+  @Bean
+  public StatementCounter statementCounter(MeterRegistry meterRegistry) {
+    return new StatementCounter(meterRegistry);
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer statementCounterCustomizer(
+      StatementCounter statementCounter) {
+    return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+  }
+
+  @Bean
+  public WebMvcConfigurer statementCounterConfigurer(StatementCounter statementCounter) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementCounter);
+      }
+    };
+  }
+}
@@ -0,0 +1,8 @@
+package fr.openobservatory.backend.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+@ConfigurationProperties(prefix = "orbit")
+public record OrbitProperties(Resource elementsFile, Duration maxElementsAge) {}
@@ -1,26 +1,59 @@
 package fr.openobservatory.backend.configuration;
 
+import fr.openobservatory.backend.providers.WebPushRequestFactory;
+import java.net.http.HttpClient;
 import java.security.GeneralSecurityException;
 import java.security.Security;
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
 import lombok.AllArgsConstructor;
-import nl.martijndwars.webpush.PushService;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @AllArgsConstructor
 @Configuration
 public class PushServiceConfiguration {
 
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
   private final PushServiceProperties configuration;
 
   // ---
 
   @Bean
-  public PushService pushService() throws GeneralSecurityException {
+  public WebPushRequestFactory webPushRequestFactory() throws GeneralSecurityException {
     if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null)
       Security.addProvider(new BouncyCastleProvider());
-    return new PushService(
+    return new WebPushRequestFactory(
         configuration.publicKey(), configuration.privateKey(), configuration.subject());
   }
+
+  /**
+   * HTTP client delivering push messages. It keeps its connections open per push service origin and
+   * multiplexes concurrent messages over them when the push service supports HTTP/2.
+   */
+  @Bean
+  public HttpClient pushHttpClient() {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(CONNECT_TIMEOUT)
+        .build();
+  }
+
+  /**
+   * Bounded pool sending push notifications out of request threads. Once its queue is full, the
+   * caller sends the notifications itself rather than dropping them.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor pushExecutor() {
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(configuration.dispatch().workers());
+    executor.setMaxPoolSize(configuration.dispatch().workers());
+    executor.setQueueCapacity(configuration.dispatch().queueCapacity());
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setThreadNamePrefix("push-");
+    return executor;
+  }
 }
@@ -1,6 +1,13 @@
 package fr.openobservatory.backend.configuration;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "push")
-public record PushServiceProperties(String privateKey, String publicKey, String subject) {}
+public record PushServiceProperties(
+    String privateKey, String publicKey, String subject, Dispatch dispatch, Retry retry) {
+
+  public record Dispatch(int workers, int queueCapacity, int maxConcurrentRequests) {}
+
+  public record Retry(int maxAttempts, Duration initialDelay, Duration maxDelay) {}
+}
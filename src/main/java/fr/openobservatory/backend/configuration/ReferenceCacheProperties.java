@@ -0,0 +1,7 @@
+package fr.openobservatory.backend.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "reference-cache")
+public record ReferenceCacheProperties(long maximumSize, Duration expireAfterWrite) {}
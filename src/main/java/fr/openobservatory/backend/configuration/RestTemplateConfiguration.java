@@ -1,14 +1,22 @@
 package fr.openobservatory.backend.configuration;
 
+import java.time.Duration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfiguration {
 
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration READ_TIMEOUT = Duration.ofSeconds(10);
+
   @Bean
   public RestTemplate restTemplate() {
-    return new RestTemplate();
+    var requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout((int) CONNECT_TIMEOUT.toMillis());
+    requestFactory.setReadTimeout((int) READ_TIMEOUT.toMillis());
+    return new RestTemplate(requestFactory);
   }
 }
@@ -4,6 +4,7 @@ import static org.springframework.security.config.Customizer.withDefaults;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.openobservatory.backend.configuration.jwt.CookieJwtFilter;
+import fr.openobservatory.backend.configuration.jwt.JwtAuthenticationCache;
 import fr.openobservatory.backend.configuration.jwt.JwtConfigurer;
 import fr.openobservatory.backend.configuration.jwt.JwtService;
 import fr.openobservatory.backend.repositories.UserRepository;
@@ -35,6 +36,7 @@ import org.springframework.security.web.authentication.logout.LogoutSuccessHandl
 @EnableMethodSecurity
 public class SecurityConfiguration {
 
+  private final JwtAuthenticationCache jwtAuthenticationCache;
   private final JwtService jwtService;
   private final ObjectMapper objectMapper;
   private final UserRepository userRepository;
@@ -43,7 +45,7 @@ public class SecurityConfiguration {
 
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-    return http.apply(new JwtConfigurer())
+    return http.apply(new JwtConfigurer(jwtAuthenticationCache))
         .and()
         .authorizeHttpRequests(requests -> requests.anyRequest().permitAll())
         .cors(withDefaults())
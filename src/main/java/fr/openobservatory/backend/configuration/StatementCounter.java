@@ -0,0 +1,68 @@
+package fr.openobservatory.backend.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements Hibernate prepares while handling a request, and records the count per
+ * route once the request completes. Statements prepared outside of requests, by scheduled tasks for
+ * instance, are not counted. Asynchronous requests release their thread until they are dispatched
+ * again, so the count is carried over by the request, without the statements of the asynchronous
+ * task itself.
+ */
+public class StatementCounter implements StatementInspector, AsyncHandlerInterceptor {
+
+  private static final String COUNT_ATTRIBUTE = StatementCounter.class.getName() + ".count";
+
+  private final ThreadLocal<int[]> counts = new ThreadLocal<>();
+  private final MeterRegistry meterRegistry;
+
+  public StatementCounter(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  // ---
+
+  @Override
+  public String inspect(String sql) {
+    var count = counts.get();
+    if (count != null) count[0]++;
+    return sql;
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    var count = (int[]) request.getAttribute(COUNT_ATTRIBUTE);
+    counts.set(count == null ? new int[1] : count);
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    request.setAttribute(COUNT_ATTRIBUTE, counts.get());
+    counts.remove();
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    var count = counts.get();
+    counts.remove();
+    if (count == null) return;
+    var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    DistributionSummary.builder("hibernate.request.statements")
+        .description("SQL statements prepared per request")
+        .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+        .tag("method", request.getMethod())
+        .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+        .register(meterRegistry)
+        .record(count[0]);
+  }
+}
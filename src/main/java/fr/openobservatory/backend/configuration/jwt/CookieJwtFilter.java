@@ -2,10 +2,10 @@ package fr.openobservatory.backend.configuration.jwt;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Arrays;
 import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,6 +17,7 @@ public class CookieJwtFilter extends OncePerRequestFilter {
 
   public static final String COOKIE_NAME = "AUTH_TOKEN";
   private final AuthenticationManager authenticationManager;
+  private final JwtAuthenticationCache jwtAuthenticationCache;
 
   // ---
 
@@ -26,14 +27,13 @@ public class CookieJwtFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     var cookies = request.getCookies();
     if (cookies != null && !"/login".equals(request.getServletPath())) {
-      var cookie =
-          Arrays.stream(cookies)
-              .filter(f -> f.getName().equals(CookieJwtFilter.COOKIE_NAME))
-              .findFirst();
-      if (cookie.isPresent()) {
-        var token = new BearerTokenAuthenticationToken(cookie.get().getValue());
+      var cookie = findCookie(cookies);
+      if (cookie != null) {
         try {
-          var auth = authenticationManager.authenticate(token);
+          var auth =
+              jwtAuthenticationCache.get(
+                  cookie.getValue(),
+                  t -> authenticationManager.authenticate(new BearerTokenAuthenticationToken(t)));
           if (auth != null) {
             var context = SecurityContextHolder.createEmptyContext();
             context.setAuthentication(auth);
@@ -45,4 +45,11 @@ public class CookieJwtFilter extends OncePerRequestFilter {
     }
     filterChain.doFilter(request, response);
   }
+
+  // ---
+
+  private static Cookie findCookie(Cookie[] cookies) {
+    for (var cookie : cookies) if (COOKIE_NAME.equals(cookie.getName())) return cookie;
+    return null;
+  }
 }
@@ -0,0 +1,97 @@
+package fr.openobservatory.backend.configuration.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import fr.openobservatory.backend.configuration.JwtCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of the authentications built from verified tokens. Entries are keyed by the SHA-256
+ * hash of the token, so that raw tokens are never kept in memory, and expire along with the token
+ * they were built from.
+ */
+@Component
+public class JwtAuthenticationCache implements MeterBinder {
+
+  private final Cache<String, Authentication> cache;
+
+  public JwtAuthenticationCache(JwtCacheProperties properties) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfter(new TokenExpiry())
+            .recordStats()
+            .build();
+  }
+
+  // ---
+
+  /**
+   * Returns the cached authentication of a token, verifying it with the given authenticator on a
+   * miss. Failed verifications and tokens without expiration are not cached.
+   *
+   * @param token Raw token sent by the client.
+   * @param authenticator Function verifying the token and building its authentication.
+   * @return The authentication of the token, or null if the authenticator returned none.
+   */
+  public Authentication get(String token, Function<String, Authentication> authenticator) {
+    return cache.get(hash(token), k -> authenticator.apply(token));
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, "jwt");
+  }
+
+  // ---
+
+  private static String hash(String token) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class TokenExpiry implements Expiry<String, Authentication> {
+
+    @Override
+    public long expireAfterCreate(String key, Authentication value, long currentTime) {
+      if (!(value instanceof JwtAuthenticationToken authentication)) return 0;
+      var expiresAt = authentication.getToken().getExpiresAt();
+      if (expiresAt == null) return 0;
+      return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, Authentication value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, Authentication value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -1,13 +1,19 @@
 package fr.openobservatory.backend.configuration.jwt;
 
+import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+@AllArgsConstructor
 public class JwtConfigurer extends AbstractHttpConfigurer<JwtConfigurer, HttpSecurity> {
 
+  private final JwtAuthenticationCache jwtAuthenticationCache;
+
+  // ---
+
   @Override
   public void init(HttpSecurity http) throws Exception {
     http.oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt);
@@ -17,6 +23,7 @@ public class JwtConfigurer extends AbstractHttpConfigurer<JwtConfigurer, HttpSec
   public void configure(HttpSecurity http) {
     var authenticationManager = http.getSharedObject(AuthenticationManager.class);
     http.addFilterBefore(
-        new CookieJwtFilter(authenticationManager), UsernamePasswordAuthenticationFilter.class);
+        new CookieJwtFilter(authenticationManager, jwtAuthenticationCache),
+        UsernamePasswordAuthenticationFilter.class);
   }
 }
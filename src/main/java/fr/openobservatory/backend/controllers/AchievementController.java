@@ -0,0 +1,34 @@
+package fr.openobservatory.backend.controllers;
+
+import fr.openobservatory.backend.dto.output.AchievementBackfillDto;
+import fr.openobservatory.backend.services.AchievementBackfillService;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@AllArgsConstructor
+@RequestMapping("/achievements")
+@RestController
+@Hidden
+public class AchievementController {
+
+  private final AchievementBackfillService achievementBackfillService;
+
+  // ---
+
+  @GetMapping("/backfill")
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<AchievementBackfillDto> getBackfill() {
+    var dto = achievementBackfillService.getProgress();
+    return ResponseEntity.ok(dto);
+  }
+
+  @PostMapping("/backfill")
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<AchievementBackfillDto> startBackfill() {
+    var dto = achievementBackfillService.start();
+    return ResponseEntity.accepted().body(dto);
+  }
+}
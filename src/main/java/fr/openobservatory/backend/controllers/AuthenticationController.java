@@ -0,0 +1,27 @@
+package fr.openobservatory.backend.controllers;
+
+import fr.openobservatory.backend.configuration.jwt.JwtAuthenticationCache;
+import fr.openobservatory.backend.dto.output.CacheStatsDto;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@AllArgsConstructor
+@RequestMapping("/authentication")
+@RestController
+@Hidden
+public class AuthenticationController {
+
+  private final JwtAuthenticationCache jwtAuthenticationCache;
+
+  // ---
+
+  @GetMapping("/cache")
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<CacheStatsDto> getCacheStats() {
+    var dto = CacheStatsDto.from(jwtAuthenticationCache.stats());
+    return ResponseEntity.ok(dto);
+  }
+}
@@ -0,0 +1,110 @@
+package fr.openobservatory.backend.controllers;
+
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import fr.openobservatory.backend.services.BlobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+@AllArgsConstructor
+@RequestMapping("/blobs")
+@RestController
+@Tag(name = "Blob routes", description = "All stored image related routes")
+public class BlobController {
+
+  private static final CacheControl CACHE_CONTROL =
+      CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+  private final BlobService blobService;
+
+  // ---
+  @Operation(summary = "Get a stored image or one of its thumbnails from its hash")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Return the thumbnail of the given size, or the image itself when it has no thumbnail in a format accepted by the client"),
+        @ApiResponse(responseCode = "304", description = "Image is already cached by the client"),
+        @ApiResponse(responseCode = "404", description = "No image has the given hash")
+      })
+  @GetMapping("/{hash}")
+  public ResponseEntity<Resource> findByHash(
+      @PathVariable String hash,
+      @RequestParam(required = false) ThumbnailEntity.Size size,
+      WebRequest request) {
+    // Blobs never change, so the client copy is fresh whenever it has the same hash
+    if (size != null) {
+      var etag = "\"" + hash + "-" + size + "\"";
+      if (isCached(request, etag)) return notModified(etag, true);
+      var thumbnail = blobService.findThumbnail(hash, size);
+      if (thumbnail.isPresent() && isAccepted(request, thumbnail.get().getMediaType()))
+        return ok(etag, true, thumbnail.get().getMediaType(), thumbnail.get().getContent());
+    }
+    var etag = "\"" + hash + "\"";
+    if (isCached(request, etag)) return notModified(etag, size != null);
+    var blob = blobService.findByHash(hash);
+    return ok(etag, size != null, blob.getMediaType(), blob.getContent());
+  }
+
+  // ---
+
+  private static boolean isCached(WebRequest request, String etag) {
+    var ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    return ifNoneMatch != null
+        && StringUtils.commaDelimitedListToSet(ifNoneMatch).stream()
+            .map(String::trim)
+            .anyMatch(e -> e.equals(etag) || e.equals("W/" + etag) || e.equals("*"));
+  }
+
+  private static boolean isAccepted(WebRequest request, String mediaType) {
+    var accept = request.getHeader(HttpHeaders.ACCEPT);
+    if (accept == null || accept.isBlank()) return true;
+    List<MediaType> accepted;
+    try {
+      accepted = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      return true;
+    }
+    var type = MediaType.parseMediaType(mediaType);
+    return accepted.stream().anyMatch(a -> a.includes(type) && a.getQualityValue() > 0);
+  }
+
+  private static ResponseEntity<Resource> notModified(String etag, boolean isNegotiated) {
+    var builder =
+        ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL);
+    if (isNegotiated) builder.varyBy(HttpHeaders.ACCEPT);
+    return builder.build();
+  }
+
+  private static ResponseEntity<Resource> ok(
+      String etag, boolean isNegotiated, String mediaType, byte[] content) {
+    // Blobs are served from the origin of the application, so they must never be run as documents
+    var builder =
+        ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CACHE_CONTROL)
+            .contentType(MediaType.parseMediaType(mediaType))
+            .header("X-Content-Type-Options", "nosniff")
+            .header("Content-Security-Policy", "sandbox");
+    if (isNegotiated) builder.varyBy(HttpHeaders.ACCEPT);
+    // The PostgreSQL driver reads bytea values whole, so blobs are bounded by blob.max-size rather
+    // than streamed from the database
+    return builder.body(new ByteArrayResource(content));
+  }
+}
@@ -0,0 +1,35 @@
+package fr.openobservatory.backend.controllers;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import fr.openobservatory.backend.dto.output.CacheStatsDto;
+import io.swagger.v3.oas.annotations.Hidden;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.AllArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@AllArgsConstructor
+@RequestMapping("/caches")
+@RestController
+@Hidden
+public class CacheController {
+
+  private final CacheManager cacheManager;
+
+  // ---
+
+  @GetMapping
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<Map<String, CacheStatsDto>> getCacheStats() {
+    var dto = new TreeMap<String, CacheStatsDto>();
+    for (var name : cacheManager.getCacheNames()) {
+      var cache = cacheManager.getCache(name);
+      if (cache != null && cache.getNativeCache() instanceof Cache<?, ?> nativeCache)
+        dto.put(name, CacheStatsDto.from(nativeCache.stats()));
+    }
+    return ResponseEntity.ok(dto);
+  }
+}
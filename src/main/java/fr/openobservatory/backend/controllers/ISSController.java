@@ -7,10 +7,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @AllArgsConstructor
 @RequestMapping("/iss")
@@ -28,4 +30,13 @@ public class ISSController {
     var positions = issService.findISSPositions();
     return ResponseEntity.ok(positions);
   }
+
+  @Operation(summary = "Stream ISS positions as server-sent events")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Stream the ISS trajectory, then its current position every few seconds")
+  @GetMapping(path = "/positions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamISSPositions() {
+    return issService.subscribe();
+  }
 }
@@ -1,6 +1,7 @@
 package fr.openobservatory.backend.controllers;
 
 import fr.openobservatory.backend.dto.input.*;
+import fr.openobservatory.backend.dto.output.CursorResultsDto;
 import fr.openobservatory.backend.dto.output.ObservationDto;
 import fr.openobservatory.backend.dto.output.ObservationWithDetailsDto;
 import fr.openobservatory.backend.dto.output.SearchResultsDto;
@@ -47,6 +48,25 @@ public class ObservationController {
     return ResponseEntity.ok(observations);
   }
 
+  @Operation(summary = "Return observations following a cursor, without page numbering")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Return observations following the cursor and the next cursor, if any"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Observation's number per page invalid or cursor invalid")
+      })
+  @GetMapping(params = "cursor")
+  @PreAuthorize("isAuthenticated()")
+  public ResponseEntity<CursorResultsDto<ObservationWithDetailsDto>> scroll(
+      Authentication authentication, ScrollDto dto) {
+    if (dto.getItemsPerPage() == null) dto.setItemsPerPage(10);
+    var observations = observationService.scroll(dto, authentication.getName());
+    return ResponseEntity.ok(observations);
+  }
+
   @Operation(summary = "Create an observation")
   @ApiResponses(
       value = {
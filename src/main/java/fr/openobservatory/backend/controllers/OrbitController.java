@@ -0,0 +1,80 @@
+package fr.openobservatory.backend.controllers;
+
+import fr.openobservatory.backend.dto.input.FindSatellitePassDto;
+import fr.openobservatory.backend.dto.input.FindSatellitePositionsDto;
+import fr.openobservatory.backend.dto.output.SatellitePassDto;
+import fr.openobservatory.backend.dto.output.SatellitePositionDto;
+import fr.openobservatory.backend.services.OrbitService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@AllArgsConstructor
+@RequestMapping("/orbits")
+@RestController
+@Tag(name = "Orbit routes", description = "All satellite orbit related routes")
+public class OrbitController {
+
+  private final OrbitService orbitService;
+
+  // ---
+  @Operation(summary = "Upload two-line element sets")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Return the NORAD identifiers of the registered satellites"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Element sets are malformed or only describe deep-space orbits"),
+        @ApiResponse(responseCode = "403", description = "Current user is not administrator")
+      })
+  @PutMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<List<Integer>> upload(@RequestBody String elements) {
+    var satellites = orbitService.upload(elements);
+    return ResponseEntity.ok(satellites);
+  }
+
+  @Operation(summary = "Get the positions of a satellite at given instants")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Return the positions of the satellite"),
+        @ApiResponse(responseCode = "400", description = "Timestamps are missing or too many"),
+        @ApiResponse(responseCode = "404", description = "Satellite has no known elements"),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Instants are too far from the epoch of the elements")
+      })
+  @GetMapping("/{noradId}/positions")
+  public ResponseEntity<List<SatellitePositionDto>> findPositions(
+      @PathVariable int noradId, FindSatellitePositionsDto dto) {
+    var positions = orbitService.findPositions(noradId, dto);
+    return ResponseEntity.ok(positions);
+  }
+
+  @Operation(summary = "Get the next pass of a satellite over a location")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Return the next pass of the satellite"),
+        @ApiResponse(responseCode = "400", description = "Coordinates are not valid"),
+        @ApiResponse(
+            responseCode = "404",
+            description =
+                "Satellite has no known elements OR does not pass over the location within two days"),
+        @ApiResponse(responseCode = "422", description = "Elements of the satellite are outdated")
+      })
+  @GetMapping("/{noradId}/next-pass")
+  public ResponseEntity<SatellitePassDto> findNextPass(
+      @PathVariable int noradId, FindSatellitePassDto dto) {
+    var pass = orbitService.findNextPass(noradId, dto);
+    return ResponseEntity.of(pass);
+  }
+}
@@ -2,7 +2,9 @@ package fr.openobservatory.backend.controllers;
 
 import fr.openobservatory.backend.dto.input.SubscribeNotificationsDto;
 import fr.openobservatory.backend.services.PushSubscriptionService;
+import fr.openobservatory.backend.services.PushSubscriptionService.PushOutcome;
 import io.swagger.v3.oas.annotations.Hidden;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,6 +27,13 @@ public class PushSubscriptionController {
     return ResponseEntity.ok(dto);
   }
 
+  @GetMapping("/outcomes")
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<Map<PushOutcome, Long>> getOutcomes() {
+    var dto = pushSubscriptionService.getOutcomes();
+    return ResponseEntity.ok(dto);
+  }
+
   @PostMapping("/subscribe")
   @PreAuthorize("isAuthenticated()")
   public ResponseEntity<Void> subscribe(
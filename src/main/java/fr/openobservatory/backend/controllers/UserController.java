@@ -9,12 +9,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.net.URI;
-import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @AllArgsConstructor
 @RestController
@@ -22,6 +23,8 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/users")
 public class UserController {
 
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   private final UserService userService;
 
   // ---
@@ -42,6 +45,24 @@ public class UserController {
     return ResponseEntity.ok(users);
   }
 
+  @Operation(summary = "Get users following a cursor, without page numbering")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Get users following the cursor and the next cursor, if any"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Incorrect user's number per page OR incorrect cursor")
+      })
+  @GetMapping(params = "cursor")
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<CursorResultsDto<UserWithProfileDto>> scroll(ScrollDto dto) {
+    if (dto.getItemsPerPage() == null) dto.setItemsPerPage(10);
+    var users = userService.scroll(dto);
+    return ResponseEntity.ok(users);
+  }
+
   @Operation(summary = "Register as a new user")
   @ApiResponses(
       value = {
@@ -98,10 +119,11 @@ public class UserController {
       value = {
         @ApiResponse(
             responseCode = "200",
-            description = "Get a certain page of user's observations history"),
+            description =
+                "Get a page of user's observations history, the cursor of the next page being given by the X-Next-Cursor header"),
         @ApiResponse(
             responseCode = "400",
-            description = "Incorrect observation's number per page OR incorrect page number"),
+            description = "Incorrect observation's number per page OR incorrect cursor"),
         @ApiResponse(
             responseCode = "403",
             description =
@@ -109,11 +131,15 @@ public class UserController {
         @ApiResponse(responseCode = "404", description = "User with given username can't be find")
       })
   @GetMapping("/{username}/observations")
-  public ResponseEntity<List<ObservationWithDetailsDto>> findObservationsByUsername(
-      Authentication authentication, @PathVariable String username) {
+  public ResponseEntity<StreamingResponseBody> findObservationsByUsername(
+      Authentication authentication, @PathVariable String username, ScrollDto dto) {
+    if (dto.getItemsPerPage() == null) dto.setItemsPerPage(100);
     var issuerUsername = authentication == null ? null : authentication.getName();
-    var observations = userService.findObservationsByUsername(username, issuerUsername);
-    return ResponseEntity.ok(observations);
+    var observations = userService.findObservationsByUsername(username, dto, issuerUsername);
+    var response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+    if (observations.getNextCursor() != null)
+      response.header(NEXT_CURSOR_HEADER, observations.getNextCursor());
+    return response.body(observations.getBody());
   }
 
   @Operation(summary = "Modify user profile")
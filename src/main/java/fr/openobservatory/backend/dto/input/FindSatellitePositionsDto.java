@@ -0,0 +1,17 @@
+package fr.openobservatory.backend.dto.input;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class FindSatellitePositionsDto {
+
+  @NotEmpty(message = "timestamps.required")
+  @Size(message = "timestamps.size", max = 100)
+  private List<Instant> timestamps;
+}
@@ -0,0 +1,15 @@
+package fr.openobservatory.backend.dto.input;
+
+import lombok.Builder;
+import lombok.Data;
+import org.hibernate.validator.constraints.Range;
+
+@Builder
+@Data
+public class ScrollDto {
+
+  @Range(message = "itemsPerPage.range", min = 1, max = 100)
+  private Integer itemsPerPage;
+
+  private String cursor;
+}
@@ -0,0 +1,14 @@
+package fr.openobservatory.backend.dto.output;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class AchievementBackfillDto {
+
+  private boolean running;
+  private int totalRanges;
+  private int completedRanges;
+  private int failedRanges;
+}
@@ -12,8 +12,10 @@ public class AchievementDto {
   private Achievements.Achievement achievement;
   private LevelDto level;
 
+  @AllArgsConstructor
   @Data
-  private static class LevelDto {
+  @NoArgsConstructor
+  public static class LevelDto {
     private String name;
     private int count;
   }
@@ -0,0 +1,24 @@
+package fr.openobservatory.backend.dto.output;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class CacheStatsDto {
+
+  private long hitCount;
+  private long missCount;
+  private double hitRate;
+  private long evictionCount;
+
+  public static CacheStatsDto from(CacheStats stats) {
+    return CacheStatsDto.builder()
+        .hitCount(stats.hitCount())
+        .missCount(stats.missCount())
+        .hitRate(stats.hitRate())
+        .evictionCount(stats.evictionCount())
+        .build();
+  }
+}
@@ -0,0 +1,33 @@
+package fr.openobservatory.backend.dto.output;
+
+import java.util.List;
+import java.util.function.Function;
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class CursorResultsDto<T> {
+
+  private List<T> data;
+  private String nextCursor;
+
+  /**
+   * Builds a result page from rows fetched with one extra row, which only tells whether another
+   * page follows.
+   *
+   * @param rows Fetched rows, up to {@code itemsPerPage + 1}.
+   * @param itemsPerPage Number of rows to return.
+   * @param mapper Mapper turning a row into its returned representation.
+   * @param cursor Function computing the cursor that follows a row.
+   */
+  public static <E, T> CursorResultsDto<T> from(
+      List<E> rows, int itemsPerPage, Function<E, T> mapper, Function<E, String> cursor) {
+    var hasNext = rows.size() > itemsPerPage;
+    var page = hasNext ? rows.subList(0, itemsPerPage) : rows;
+    return CursorResultsDto.<T>builder()
+        .data(page.stream().map(mapper).toList())
+        .nextCursor(hasNext ? cursor.apply(page.get(page.size() - 1)) : null)
+        .build();
+  }
+}
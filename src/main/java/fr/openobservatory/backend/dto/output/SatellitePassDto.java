@@ -0,0 +1,14 @@
+package fr.openobservatory.backend.dto.output;
+
+import java.time.Instant;
+import lombok.Data;
+
+@Data
+public class SatellitePassDto {
+
+  private Instant riseAt;
+  private Instant culminationAt;
+  private Instant setAt;
+  private double maxElevation;
+  private boolean isVisible;
+}
@@ -0,0 +1,13 @@
+package fr.openobservatory.backend.dto.output;
+
+import java.time.Instant;
+import lombok.Data;
+
+@Data
+public class SatellitePositionDto {
+
+  private double latitude;
+  private double longitude;
+  private double altitude;
+  private Instant timestamp;
+}
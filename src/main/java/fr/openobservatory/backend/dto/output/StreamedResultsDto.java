@@ -0,0 +1,17 @@
+package fr.openobservatory.backend.dto.output;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Page of results written to the response as a JSON array while they are read, rather than
+ * collected in a list, along with the cursor of the following page.
+ */
+@Builder
+@Data
+public class StreamedResultsDto {
+
+  private StreamingResponseBody body;
+  private String nextCursor;
+}
@@ -11,4 +11,5 @@ public class UserWithProfileDto extends UserDto {
   private List<AchievementDto> achievements;
   private String biography;
   private Integer karma;
+  private Integer observationCount;
 }
@@ -0,0 +1,30 @@
+package fr.openobservatory.backend.entities;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+/** Range of users whose achievements were backfilled by the current run. */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "achievement_backfill_checkpoint")
+public class AchievementBackfillCheckpointEntity {
+
+  /** First identifier of the range, inclusive. */
+  @Id private Long rangeStart;
+
+  /** Last identifier of the range, exclusive. */
+  @Column(nullable = false, updatable = false)
+  private Long rangeEnd;
+
+  @Column(nullable = false, updatable = false)
+  @CreationTimestamp
+  private Instant completedAt;
+}
@@ -0,0 +1,38 @@
+package fr.openobservatory.backend.entities;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+/** Immutable binary content, identified by the SHA-256 hash of its bytes. */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "\"blob\"")
+public class BlobEntity {
+
+  @Id
+  @Column(length = 64)
+  private String hash;
+
+  @Column(length = 127, nullable = false)
+  private String mediaType;
+
+  @Column(length = 10 * 1024 * 1024, nullable = false)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private byte[] content;
+
+  @Column(nullable = false, updatable = false)
+  @CreationTimestamp
+  private Instant createdAt;
+
+  /**
+   * Whether the content could not be decoded as an image, in which case it has no thumbnails. Null
+   * for the blobs stored before decoding failures were recorded.
+   */
+  private Boolean undecodable;
+}
@@ -5,13 +5,24 @@ import java.time.Instant;
 import java.util.Set;
 import lombok.*;
 import lombok.Builder.Default;
+import org.hibernate.annotations.ColumnDefault;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Data
 @Entity
-@Table(name = "observation")
+@Table(
+    name = "observation",
+    indexes = {
+      @Index(name = "observation_timestamp_id_idx", columnList = "timestamp DESC, id DESC"),
+      @Index(
+          name = "observation_author_id_timestamp_id_idx",
+          columnList = "author_id, timestamp DESC, id DESC"),
+      @Index(
+          name = "observation_expires_at_location_idx",
+          columnList = "expires_at, latitude, longitude")
+    })
 public class ObservationEntity {
 
   @Id
@@ -33,6 +44,8 @@ public class ObservationEntity {
   @ManyToOne(optional = false)
   private CelestialBodyEntity celestialBody;
 
+  // Named explicitly, since the name derived from the quoted user table would be quoted as well
+  @JoinColumn(name = "author_id")
   @ManyToOne(optional = false)
   private UserEntity author;
 
@@ -43,6 +56,19 @@ public class ObservationEntity {
   @Column(nullable = false, updatable = false)
   private Instant timestamp;
 
+  /**
+   * Instant from which the observation is no longer active, derived from its timestamp and the
+   * validity time of its celestial body.
+   */
+  @Column(name = "expires_at")
+  private Instant expiresAt;
+
+  /** Sum of the vote weights, maintained by the repository rather than by entity updates. */
+  @Column(nullable = false, updatable = false)
+  @ColumnDefault("0")
+  @Default
+  private Integer karma = 0;
+
   // ---
 
   @OneToMany(cascade = CascadeType.REMOVE, mappedBy = "observation")
@@ -15,6 +15,8 @@ public class ObservationVoteEntity {
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
+  // Named explicitly, since the name derived from the quoted user table would be quoted as well
+  @JoinColumn(name = "user_id")
   @ManyToOne(optional = false)
   private UserEntity user;
 
@@ -0,0 +1,38 @@
+package fr.openobservatory.backend.entities;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "push_dead_letter")
+public class PushDeadLetterEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(length = 240, nullable = false, updatable = false)
+  private String endpoint;
+
+  @Column(length = 256, nullable = false, updatable = false)
+  private String code;
+
+  @Column(updatable = false)
+  private String link;
+
+  @Column(updatable = false)
+  private Integer status;
+
+  @Column(nullable = false, updatable = false)
+  private Integer attempts;
+
+  @Column(nullable = false, updatable = false)
+  @CreationTimestamp
+  private Instant createdAt;
+}
@@ -0,0 +1,47 @@
+package fr.openobservatory.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/** Downscaled copy of an image blob, generated once when the image is stored. */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(
+    name = "thumbnail",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"blobHash", "size"}))
+public class ThumbnailEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(length = 64, nullable = false)
+  private String blobHash;
+
+  @Column(nullable = false)
+  private Size size;
+
+  @Column(length = 127, nullable = false)
+  private String mediaType;
+
+  @Column(length = 1024 * 1024, nullable = false)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private byte[] content;
+
+  // ---
+
+  /** Sizes of the thumbnails, from the largest to the smallest, bounding their larger side. */
+  @Getter
+  @RequiredArgsConstructor
+  public enum Size {
+    PROFILE(512),
+    FEED(256),
+    MARKER(64);
+
+    private final int dimension;
+  }
+}
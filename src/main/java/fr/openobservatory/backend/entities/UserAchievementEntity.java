@@ -13,7 +13,12 @@ import lombok.NoArgsConstructor;
 @Builder
 @Data
 @Entity
-@Table(name = "user_achievement")
+@Table(
+    name = "user_achievement",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "user_achievement_user_id_achievement_key",
+            columnNames = {"user_id", "achievement"}))
 public class UserAchievementEntity {
 
   @Id
@@ -26,6 +31,8 @@ public class UserAchievementEntity {
   @Column(nullable = false)
   private Level level;
 
+  // Named explicitly, since the name derived from the quoted user table would be quoted as well
+  @JoinColumn(name = "user_id")
   @ManyToOne(optional = false)
   private UserEntity user;
 }
@@ -5,12 +5,15 @@ import java.time.Instant;
 import java.util.Set;
 import lombok.*;
 import lombok.Builder.Default;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Data
+@DynamicUpdate
 @Entity
 @Table(name = "\"user\"")
 public class UserEntity {
@@ -51,6 +54,24 @@ public class UserEntity {
   @Default
   private boolean isPublic = true;
 
+  /** Sum of the karma of the user observations, maintained by the repository. */
+  @Column(nullable = false, updatable = false)
+  @ColumnDefault("0")
+  @Default
+  private Integer karma = 0;
+
+  /** Number of observations of the user, maintained by the repository. */
+  @Column(nullable = false, updatable = false)
+  @ColumnDefault("0")
+  @Default
+  private Integer observationCount = 0;
+
+  /** Number of votes of the user, maintained by the repository. */
+  @Column(nullable = false, updatable = false)
+  @ColumnDefault("0")
+  @Default
+  private Integer voteCount = 0;
+
   // --- Last position
 
   @Column private Double latitude;
@@ -0,0 +1,9 @@
+package fr.openobservatory.backend.events;
+
+/**
+ * Published when an observation is created.
+ *
+ * @param observationId Identifier of the observation.
+ * @param authorId Identifier of the author of the observation.
+ */
+public record ObservationCreatedEvent(Long observationId, Long authorId) {}
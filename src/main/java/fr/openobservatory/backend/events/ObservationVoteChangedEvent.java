@@ -0,0 +1,26 @@
+package fr.openobservatory.backend.events;
+
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+
+/**
+ * Published when a user submits, changes or removes their vote on an observation.
+ *
+ * @param observationId Identifier of the observation.
+ * @param voterId Identifier of the user who voted.
+ * @param previousVote Vote of the user before the change, if any.
+ * @param vote Vote of the user after the change, if any.
+ */
+public record ObservationVoteChangedEvent(
+    Long observationId, Long voterId, VoteType previousVote, VoteType vote) {
+
+  /** Whether the user voted on the observation for the first time. */
+  public boolean isNewVote() {
+    return previousVote == null && vote != null;
+  }
+
+  /** Change of the karma of the observation caused by the vote. */
+  public int karmaDelta() {
+    return (vote == null ? 0 : vote.getWeight())
+        - (previousVote == null ? 0 : previousVote.getWeight());
+  }
+}
@@ -0,0 +1,7 @@
+package fr.openobservatory.backend.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.CONFLICT, reason = "BACKFILL_IN_PROGRESS")
+public class BackfillInProgressException extends RuntimeException {}
@@ -0,0 +1,7 @@
+package fr.openobservatory.backend.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = "INVALID_TWO_LINE_ELEMENTS")
+public class InvalidTwoLineElementsException extends RuntimeException {}
@@ -0,0 +1,7 @@
+package fr.openobservatory.backend.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.UNPROCESSABLE_ENTITY, reason = "UNAVAILABLE_SATELLITE_POSITION")
+public class UnavailableSatellitePositionException extends RuntimeException {}
@@ -0,0 +1,123 @@
+package fr.openobservatory.backend.images;
+
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+
+/**
+ * Draws thumbnails with the codecs bundled with the JDK. Thumbnails are encoded as JPEG, unless the
+ * image is transparent, in which case PNG keeps its transparency.
+ */
+public final class Thumbnails {
+
+  private static final long MAX_PIXELS = 40_000_000;
+  private static final float JPEG_QUALITY = 0.85f;
+
+  private Thumbnails() {}
+
+  // ---
+
+  /**
+   * Decodes an image, checking its dimensions first so that small files describing huge images are
+   * not decoded.
+   *
+   * @return The decoded image, or nothing when its format is not supported, it is corrupted or it
+   *     is too large.
+   */
+  public static Optional<BufferedImage> decode(byte[] content) {
+    try (var input = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+      var readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) return Optional.empty();
+      var reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) return Optional.empty();
+        return Optional.of(reader.read(0));
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Scales an image down so that its larger side fits a dimension, halving it repeatedly to avoid
+   * the aliasing of a single bilinear pass. Smaller images are copied at their own size.
+   *
+   * @param image Image to scale.
+   * @param dimension Maximum width and height of the scaled image.
+   * @return The scaled image, in an RGB or ARGB buffer depending on the transparency of the image.
+   */
+  public static BufferedImage scaleDown(BufferedImage image, int dimension) {
+    var scale = Math.min(1, (double) dimension / Math.max(image.getWidth(), image.getHeight()));
+    var targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+    var targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+    var type =
+        image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+    var scaled = image;
+    do {
+      var width = Math.max(targetWidth, scaled.getWidth() / 2);
+      var height = Math.max(targetHeight, scaled.getHeight() / 2);
+      scaled = draw(scaled, width, height, type);
+    } while (scaled.getWidth() != targetWidth || scaled.getHeight() != targetHeight);
+    return scaled;
+  }
+
+  /**
+   * Encodes a thumbnail drawn by {@link #scaleDown(BufferedImage, int)}.
+   *
+   * @return The media type and the bytes of the encoded image.
+   */
+  public static Encoded encode(BufferedImage image) {
+    var output = new ByteArrayOutputStream();
+    try (var stream = ImageIO.createImageOutputStream(output)) {
+      if (image.getColorModel().hasAlpha()) {
+        ImageIO.write(image, "png", stream);
+        stream.flush();
+        return new Encoded("image/png", output.toByteArray());
+      }
+      var writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+      try {
+        var parameters = writer.getDefaultWriteParam();
+        parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parameters.setCompressionQuality(JPEG_QUALITY);
+        writer.setOutput(stream);
+        writer.write(null, new IIOImage(image, null, null), parameters);
+      } finally {
+        writer.dispose();
+      }
+      stream.flush();
+      return new Encoded("image/jpeg", output.toByteArray());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // ---
+
+  private static BufferedImage draw(BufferedImage image, int width, int height, int type) {
+    var result = new BufferedImage(width, height, type);
+    var graphics = result.createGraphics();
+    try {
+      graphics.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return result;
+  }
+
+  // ---
+
+  public record Encoded(String mediaType, byte[] content) {}
+}
@@ -0,0 +1,27 @@
+package fr.openobservatory.backend.mappers;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.dto.output.CelestialBodyDto;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@AllArgsConstructor
+@Component
+public class CelestialBodyMapper {
+
+  private final BlobProperties blobProperties;
+
+  // ---
+
+  public CelestialBodyDto toDto(CelestialBodyEntity celestialBody) {
+    if (celestialBody == null) return null;
+    var dto = new CelestialBodyDto();
+    dto.setId(celestialBody.getId());
+    dto.setName(celestialBody.getName());
+    dto.setImage(blobProperties.urlOf(celestialBody.getImage(), ThumbnailEntity.Size.FEED));
+    dto.setValidityTime(celestialBody.getValidityTime());
+    return dto;
+  }
+}
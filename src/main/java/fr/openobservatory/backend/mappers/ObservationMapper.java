@@ -0,0 +1,90 @@
+package fr.openobservatory.backend.mappers;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.dto.output.CelestialBodyDto;
+import fr.openobservatory.backend.dto.output.ObservationDto;
+import fr.openobservatory.backend.dto.output.ObservationWithDetailsDto;
+import fr.openobservatory.backend.dto.output.UserDto;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@AllArgsConstructor
+@Component
+public class ObservationMapper {
+
+  private final BlobProperties blobProperties;
+  private final CelestialBodyMapper celestialBodyMapper;
+  private final UserMapper userMapper;
+
+  // ---
+
+  public ObservationDto toDto(ObservationEntity observation) {
+    if (observation == null) return null;
+    var dto = new ObservationDto();
+    fill(dto, observation);
+    return dto;
+  }
+
+  /**
+   * Maps an observation along with its details. The vote of the issuer is left unset, as it depends
+   * on who is asking.
+   */
+  public ObservationWithDetailsDto toDetailedDto(ObservationEntity observation) {
+    if (observation == null) return null;
+    var dto = new ObservationWithDetailsDto();
+    fill(dto, observation);
+    dto.setExpired(isExpired(observation.getExpiresAt()));
+    dto.setKarma(observation.getKarma());
+    return dto;
+  }
+
+  public ObservationWithDetailsDto toDetailedDto(DetailedObservation observation) {
+    var author = new UserDto();
+    author.setUsername(observation.authorUsername());
+    author.setAvatar(blobProperties.urlOf(observation.authorAvatar(), ThumbnailEntity.Size.FEED));
+    author.setPublic(observation.authorIsPublic());
+    author.setType(observation.authorType());
+    var celestialBody = new CelestialBodyDto();
+    celestialBody.setId(observation.celestialBodyId());
+    celestialBody.setName(observation.celestialBodyName());
+    celestialBody.setImage(
+        blobProperties.urlOf(observation.celestialBodyImage(), ThumbnailEntity.Size.FEED));
+    celestialBody.setValidityTime(observation.celestialBodyValidityTime());
+    var dto = new ObservationWithDetailsDto();
+    dto.setId(observation.id());
+    dto.setAuthor(author);
+    dto.setCelestialBody(celestialBody);
+    dto.setDescription(observation.description());
+    dto.setLatitude(observation.latitude());
+    dto.setLongitude(observation.longitude());
+    dto.setOrientation(observation.orientation());
+    dto.setVisibility(observation.visibility());
+    dto.setTimestamp(observation.timestamp());
+    dto.setCurrentVote(observation.currentVote());
+    dto.setExpired(isExpired(observation.expiresAt()));
+    dto.setKarma(observation.karma());
+    return dto;
+  }
+
+  // ---
+
+  private void fill(ObservationDto dto, ObservationEntity observation) {
+    dto.setId(observation.getId());
+    dto.setAuthor(userMapper.toDto(observation.getAuthor()));
+    dto.setCelestialBody(celestialBodyMapper.toDto(observation.getCelestialBody()));
+    dto.setDescription(observation.getDescription());
+    if (observation.getLatitude() != null) dto.setLatitude(observation.getLatitude());
+    if (observation.getLongitude() != null) dto.setLongitude(observation.getLongitude());
+    if (observation.getOrientation() != null) dto.setOrientation(observation.getOrientation());
+    dto.setVisibility(observation.getVisibility());
+    dto.setTimestamp(observation.getTimestamp());
+  }
+
+  private static boolean isExpired(Instant expiresAt) {
+    return expiresAt != null && expiresAt.isBefore(Instant.now());
+  }
+}
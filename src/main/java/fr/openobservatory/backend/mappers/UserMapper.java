@@ -0,0 +1,110 @@
+package fr.openobservatory.backend.mappers;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.dto.output.AchievementDto;
+import fr.openobservatory.backend.dto.output.SelfUserDto;
+import fr.openobservatory.backend.dto.output.UserDto;
+import fr.openobservatory.backend.dto.output.UserWithProfileDto;
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import fr.openobservatory.backend.entities.UserAchievementEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.AchievementLevel;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@AllArgsConstructor
+@Component
+public class UserMapper {
+
+  private final BlobProperties blobProperties;
+
+  // ---
+
+  public UserDto toDto(UserEntity user) {
+    if (user == null) return null;
+    var dto = new UserDto();
+    fill(dto, user);
+    return dto;
+  }
+
+  public UserWithProfileDto toProfileDto(UserEntity user) {
+    if (user == null) return null;
+    var dto = new UserWithProfileDto();
+    fillProfile(dto, user);
+    return dto;
+  }
+
+  public SelfUserDto toSelfDto(UserEntity user) {
+    if (user == null) return null;
+    var dto = new SelfUserDto();
+    fillProfile(dto, user);
+    dto.setNotificationEnabled(user.isNotificationEnabled());
+    dto.setNotificationRadius(user.getNotificationRadius());
+    return dto;
+  }
+
+  public UserWithProfileDto toProfileDto(UserProfile profile) {
+    if (profile == null) return null;
+    var dto = new UserWithProfileDto();
+    fillProfile(dto, profile);
+    return dto;
+  }
+
+  public SelfUserDto toSelfDto(UserProfile profile) {
+    if (profile == null) return null;
+    var dto = new SelfUserDto();
+    fillProfile(dto, profile);
+    dto.setNotificationEnabled(profile.notificationEnabled());
+    dto.setNotificationRadius(profile.notificationRadius());
+    return dto;
+  }
+
+  public AchievementDto toDto(UserAchievementEntity achievement) {
+    return toDto(achievement.getAchievement(), achievement.getLevel());
+  }
+
+  public AchievementDto toDto(AchievementLevel achievement) {
+    return toDto(achievement.achievement(), achievement.level());
+  }
+
+  // ---
+
+  private void fill(UserDto dto, UserEntity user) {
+    dto.setUsername(user.getUsername());
+    dto.setAvatar(blobProperties.urlOf(user.getAvatar(), ThumbnailEntity.Size.FEED));
+    dto.setPublic(user.isPublic());
+    dto.setType(user.getType());
+  }
+
+  private void fillProfile(UserWithProfileDto dto, UserEntity user) {
+    fill(dto, user);
+    dto.setAvatar(blobProperties.urlOf(user.getAvatar(), ThumbnailEntity.Size.PROFILE));
+    dto.setAchievements(
+        user.getAchievements() == null
+            ? null
+            : user.getAchievements().stream().map(this::toDto).toList());
+    dto.setBiography(user.getBiography());
+    dto.setKarma(user.getKarma());
+    dto.setObservationCount(user.getObservationCount());
+  }
+
+  private void fillProfile(UserWithProfileDto dto, UserProfile profile) {
+    dto.setUsername(profile.username());
+    dto.setAvatar(blobProperties.urlOf(profile.avatar(), ThumbnailEntity.Size.PROFILE));
+    dto.setPublic(profile.isPublic());
+    dto.setType(profile.type());
+    dto.setAchievements(profile.achievements().stream().map(this::toDto).toList());
+    dto.setBiography(profile.biography());
+    dto.setKarma(profile.karma());
+    dto.setObservationCount(profile.observationCount());
+  }
+
+  private AchievementDto toDto(Achievement achievement, Level level) {
+    return new AchievementDto(
+        achievement,
+        level == null ? null : new AchievementDto.LevelDto(level.getName(), level.getCount()));
+  }
+}
@@ -0,0 +1,120 @@
+package fr.openobservatory.backend.orbit;
+
+import java.time.Instant;
+
+/**
+ * Conversions between the inertial frame of SGP4, the Earth-fixed frame and geodetic coordinates.
+ * UT1 is approximated by UTC and polar motion is neglected, which keeps the error well below the
+ * accuracy of the propagated elements.
+ */
+public final class Geodesy {
+
+  private static final double WGS84_RADIUS = 6378.137;
+  private static final double WGS84_FLATTENING = 1 / 298.257223563;
+  private static final double WGS84_E2 = WGS84_FLATTENING * (2 - WGS84_FLATTENING);
+  private static final long J2000_EPOCH_SECOND = 946_728_000;
+  private static final double SECONDS_PER_CENTURY = 36525 * 86400.0;
+
+  private Geodesy() {}
+
+  // ---
+
+  /**
+   * Computes the Greenwich mean sidereal time with the IAU-82 model.
+   *
+   * @return The sidereal angle in radians, between 0 and 2 pi.
+   */
+  public static double siderealTime(Instant at) {
+    var tut1 =
+        (at.getEpochSecond() - J2000_EPOCH_SECOND + at.getNano() / 1e9) / SECONDS_PER_CENTURY;
+    var seconds =
+        -6.2e-6 * tut1 * tut1 * tut1
+            + 0.093104 * tut1 * tut1
+            + (876600.0 * 3600 + 8640184.812866) * tut1
+            + 67310.54841;
+    var angle = Math.toRadians(seconds / 240) % (2 * Math.PI);
+    return angle < 0 ? angle + 2 * Math.PI : angle;
+  }
+
+  /**
+   * Rotates a TEME position into the Earth-fixed frame.
+   *
+   * @return The Earth-fixed coordinates in kilometers.
+   */
+  public static double[] toEarthFixed(StateVector state, Instant at) {
+    return toEarthFixed(new double[] {state.x(), state.y(), state.z()}, at);
+  }
+
+  /**
+   * Rotates inertial coordinates into the Earth-fixed frame.
+   *
+   * @param position Inertial coordinates in kilometers.
+   * @return The Earth-fixed coordinates in kilometers.
+   */
+  public static double[] toEarthFixed(double[] position, Instant at) {
+    var gmst = siderealTime(at);
+    var cos = Math.cos(gmst);
+    var sin = Math.sin(gmst);
+    return new double[] {
+      cos * position[0] + sin * position[1], -sin * position[0] + cos * position[1], position[2]
+    };
+  }
+
+  /**
+   * Converts Earth-fixed coordinates to geodetic coordinates.
+   *
+   * @param position Earth-fixed coordinates in kilometers.
+   */
+  public static GeodeticPosition toGeodetic(double[] position) {
+    var p = Math.hypot(position[0], position[1]);
+    var latitude = Math.atan2(position[2], p * (1 - WGS84_E2));
+    var altitude = 0.0;
+    for (int i = 0; i < 5; i++) {
+      var sin = Math.sin(latitude);
+      var n = WGS84_RADIUS / Math.sqrt(1 - WGS84_E2 * sin * sin);
+      altitude = p / Math.cos(latitude) - n;
+      latitude = Math.atan2(position[2], p * (1 - WGS84_E2 * n / (n + altitude)));
+    }
+    return new GeodeticPosition(
+        Math.toDegrees(latitude), Math.toDegrees(Math.atan2(position[1], position[0])), altitude);
+  }
+
+  /**
+   * Converts geodetic coordinates to Earth-fixed coordinates.
+   *
+   * @return The Earth-fixed coordinates in kilometers.
+   */
+  public static double[] toEarthFixed(GeodeticPosition position) {
+    var lat = Math.toRadians(position.latitude());
+    var lng = Math.toRadians(position.longitude());
+    var sin = Math.sin(lat);
+    var n = WGS84_RADIUS / Math.sqrt(1 - WGS84_E2 * sin * sin);
+    return new double[] {
+      (n + position.altitude()) * Math.cos(lat) * Math.cos(lng),
+      (n + position.altitude()) * Math.cos(lat) * Math.sin(lng),
+      (n * (1 - WGS84_E2) + position.altitude()) * sin
+    };
+  }
+
+  /**
+   * Computes the elevation of a target above the horizon of an observer.
+   *
+   * @param observer Geodetic position of the observer.
+   * @param observerPosition Earth-fixed coordinates of the observer.
+   * @param target Earth-fixed coordinates of the target.
+   * @return The elevation in degrees, negative below the horizon.
+   */
+  public static double elevation(
+      GeodeticPosition observer, double[] observerPosition, double[] target) {
+    var lat = Math.toRadians(observer.latitude());
+    var lng = Math.toRadians(observer.longitude());
+    var dx = target[0] - observerPosition[0];
+    var dy = target[1] - observerPosition[1];
+    var dz = target[2] - observerPosition[2];
+    var up =
+        Math.cos(lat) * Math.cos(lng) * dx
+            + Math.cos(lat) * Math.sin(lng) * dy
+            + Math.sin(lat) * dz;
+    return Math.toDegrees(Math.asin(up / Math.sqrt(dx * dx + dy * dy + dz * dz)));
+  }
+}
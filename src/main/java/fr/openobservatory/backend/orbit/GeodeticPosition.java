@@ -0,0 +1,7 @@
+package fr.openobservatory.backend.orbit;
+
+/**
+ * Position above the WGS-84 ellipsoid, with the latitude and longitude in degrees and the altitude
+ * in kilometers.
+ */
+public record GeodeticPosition(double latitude, double longitude, double altitude) {}
@@ -0,0 +1,317 @@
+package fr.openobservatory.backend.orbit;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * SGP4 propagator for near-earth satellites, following the revised implementation published by
+ * Vallado et al. in "Revisiting Spacetrack Report #3" (AIAA 2006-6753) with the WGS-72 constants.
+ * Satellites with an orbital period of 225 minutes or more require the SDP4 deep-space
+ * perturbations and are not supported.
+ *
+ * <p>Everything only depending on the elements is computed once when the propagator is created, so
+ * that each propagation only costs a few hundred floating-point operations.
+ */
+public final class Sgp4Propagator {
+
+  static final double EARTH_RADIUS = 6378.135;
+  private static final double MU = 398600.8;
+  private static final double XKE = 60 / Math.sqrt(EARTH_RADIUS * EARTH_RADIUS * EARTH_RADIUS / MU);
+  private static final double J2 = 0.001082616;
+  private static final double J3 = -0.00000253881;
+  private static final double J4 = -0.00000165597;
+  private static final double J3OJ2 = J3 / J2;
+  private static final double X2O3 = 2.0 / 3.0;
+  private static final double TWO_PI = 2 * Math.PI;
+  private static final double VELOCITY_UNIT = EARTH_RADIUS * XKE / 60;
+  private static final double DEEP_SPACE_PERIOD = 225;
+
+  private final TwoLineElements elements;
+  private final double bstar;
+  private final double ecco;
+  private final double inclo;
+  private final double nodeo;
+  private final double argpo;
+  private final double mo;
+  private final double no;
+  private final boolean isimp;
+  private final double aycof;
+  private final double con41;
+  private final double cc1;
+  private final double cc4;
+  private final double cc5;
+  private final double d2;
+  private final double d3;
+  private final double d4;
+  private final double delmo;
+  private final double eta;
+  private final double argpdot;
+  private final double omgcof;
+  private final double sinmao;
+  private final double t2cof;
+  private final double t3cof;
+  private final double t4cof;
+  private final double t5cof;
+  private final double x1mth2;
+  private final double x7thm1;
+  private final double mdot;
+  private final double nodedot;
+  private final double xlcof;
+  private final double xmcof;
+  private final double nodecf;
+
+  /**
+   * Initializes the propagator for the given elements.
+   *
+   * @throws IllegalArgumentException If the elements describe a deep-space orbit or cannot be
+   *     propagated.
+   */
+  public Sgp4Propagator(TwoLineElements elements) {
+    this.elements = elements;
+    bstar = elements.bstar();
+    ecco = elements.eccentricity();
+    inclo = Math.toRadians(elements.inclination());
+    nodeo = Math.toRadians(elements.rightAscension());
+    argpo = Math.toRadians(elements.argumentOfPerigee());
+    mo = Math.toRadians(elements.meanAnomaly());
+    var kozaiMeanMotion = elements.meanMotion() * TWO_PI / 1440;
+    if (ecco < 0 || ecco >= 1 || kozaiMeanMotion <= 0)
+      throw new IllegalArgumentException("Invalid orbital elements");
+
+    // Recover the original mean motion and semi-major axis from the Kozai mean motion
+    var eccsq = ecco * ecco;
+    var omeosq = 1 - eccsq;
+    var rteosq = Math.sqrt(omeosq);
+    var cosio = Math.cos(inclo);
+    var cosio2 = cosio * cosio;
+    var ak = Math.pow(XKE / kozaiMeanMotion, X2O3);
+    var d1 = 0.75 * J2 * (3 * cosio2 - 1) / (rteosq * omeosq);
+    var del = d1 / (ak * ak);
+    var adel = ak * (1 - del * del - del * (1.0 / 3.0 + 134 * del * del / 81));
+    del = d1 / (adel * adel);
+    no = kozaiMeanMotion / (1 + del);
+    if (TWO_PI / no >= DEEP_SPACE_PERIOD)
+      throw new IllegalArgumentException("Deep-space orbits are not supported");
+    var ao = Math.pow(XKE / no, X2O3);
+    var sinio = Math.sin(inclo);
+    var po = ao * omeosq;
+    var con42 = 1 - 5 * cosio2;
+    con41 = -con42 - cosio2 - cosio2;
+    var posq = po * po;
+    var rp = ao * (1 - ecco);
+
+    // Atmospheric density parameters, adjusted for low perigees
+    isimp = rp < 220 / EARTH_RADIUS + 1;
+    var sfour = 78 / EARTH_RADIUS + 1;
+    var qzms24 = Math.pow((120 - 78) / EARTH_RADIUS, 4);
+    var perige = (rp - 1) * EARTH_RADIUS;
+    if (perige < 156) {
+      sfour = perige < 98 ? 20 : perige - 78;
+      qzms24 = Math.pow((120 - sfour) / EARTH_RADIUS, 4);
+      sfour = sfour / EARTH_RADIUS + 1;
+    }
+    var pinvsq = 1 / posq;
+    var tsi = 1 / (ao - sfour);
+    eta = ao * ecco * tsi;
+    var etasq = eta * eta;
+    var eeta = ecco * eta;
+    var psisq = Math.abs(1 - etasq);
+    var coef = qzms24 * Math.pow(tsi, 4);
+    var coef1 = coef / Math.pow(psisq, 3.5);
+    var cc2 =
+        coef1
+            * no
+            * (ao * (1 + 1.5 * etasq + eeta * (4 + etasq))
+                + 0.375 * J2 * tsi / psisq * con41 * (8 + 3 * etasq * (8 + etasq)));
+    cc1 = bstar * cc2;
+    var cc3 = ecco > 1e-4 ? -2 * coef * tsi * J3OJ2 * no * sinio / ecco : 0;
+    x1mth2 = 1 - cosio2;
+    cc4 =
+        2
+            * no
+            * coef1
+            * ao
+            * omeosq
+            * (eta * (2 + 0.5 * etasq)
+                + ecco * (0.5 + 2 * etasq)
+                - J2
+                    * tsi
+                    / (ao * psisq)
+                    * (-3 * con41 * (1 - 2 * eeta + etasq * (1.5 - 0.5 * eeta))
+                        + 0.75 * x1mth2 * (2 * etasq - eeta * (1 + etasq)) * Math.cos(2 * argpo)));
+    cc5 = 2 * coef1 * ao * omeosq * (1 + 2.75 * (etasq + eeta) + eeta * etasq);
+
+    // Secular rates of the mean anomaly, argument of perigee and right ascension
+    var cosio4 = cosio2 * cosio2;
+    var temp1 = 1.5 * J2 * pinvsq * no;
+    var temp2 = 0.5 * temp1 * J2 * pinvsq;
+    var temp3 = -0.46875 * J4 * pinvsq * pinvsq * no;
+    mdot =
+        no
+            + 0.5 * temp1 * rteosq * con41
+            + 0.0625 * temp2 * rteosq * (13 - 78 * cosio2 + 137 * cosio4);
+    argpdot =
+        -0.5 * temp1 * con42
+            + 0.0625 * temp2 * (7 - 114 * cosio2 + 395 * cosio4)
+            + temp3 * (3 - 36 * cosio2 + 49 * cosio4);
+    var xhdot1 = -temp1 * cosio;
+    nodedot = xhdot1 + (0.5 * temp2 * (4 - 19 * cosio2) + 2 * temp3 * (3 - 7 * cosio2)) * cosio;
+    omgcof = bstar * cc3 * Math.cos(argpo);
+    xmcof = ecco > 1e-4 ? -X2O3 * coef * bstar / eeta : 0;
+    nodecf = 3.5 * omeosq * xhdot1 * cc1;
+    t2cof = 1.5 * cc1;
+    xlcof = -0.25 * J3OJ2 * sinio * (3 + 5 * cosio) / Math.max(Math.abs(1 + cosio), 1.5e-12);
+    aycof = -0.5 * J3OJ2 * sinio;
+    delmo = Math.pow(1 + eta * Math.cos(mo), 3);
+    sinmao = Math.sin(mo);
+    x7thm1 = 7 * cosio2 - 1;
+
+    // Higher order drag terms, neglected for low perigees
+    if (isimp) {
+      d2 = d3 = d4 = t3cof = t4cof = t5cof = 0;
+    } else {
+      var cc1sq = cc1 * cc1;
+      d2 = 4 * ao * tsi * cc1sq;
+      var temp = d2 * tsi * cc1 / 3;
+      d3 = (17 * ao + sfour) * temp;
+      d4 = 0.5 * temp * ao * tsi * (221 * ao + 31 * sfour) * cc1;
+      t3cof = d2 + 2 * cc1sq;
+      t4cof = 0.25 * (3 * d3 + cc1 * (12 * d2 + 10 * cc1sq));
+      t5cof = 0.2 * (3 * d4 + 12 * cc1 * d3 + 6 * d2 * d2 + 15 * cc1sq * (2 * d2 + cc1sq));
+    }
+  }
+
+  // ---
+
+  public TwoLineElements getElements() {
+    return elements;
+  }
+
+  /**
+   * Computes the state of the satellite at the given instant.
+   *
+   * @param at Instant to propagate the elements to.
+   * @return The position and velocity of the satellite in the TEME frame.
+   * @throws IllegalStateException If the orbit has decayed at that instant.
+   */
+  public StateVector propagate(Instant at) {
+    return propagate(Duration.between(elements.epoch(), at).toNanos() / 60e9);
+  }
+
+  /**
+   * Computes the state of the satellite at the given time since the epoch of its elements.
+   *
+   * @param tsince Minutes elapsed since the epoch of the elements, negative before it.
+   * @return The position (km) and velocity (km/s) of the satellite in the TEME frame.
+   * @throws IllegalStateException If the orbit has decayed at that time.
+   */
+  public StateVector propagate(double tsince) {
+    // Secular gravity and atmospheric drag
+    var t = tsince;
+    var xmdf = mo + mdot * t;
+    var argpdf = argpo + argpdot * t;
+    var nodedf = nodeo + nodedot * t;
+    var argpm = argpdf;
+    var mm = xmdf;
+    var t2 = t * t;
+    var nodem = nodedf + nodecf * t2;
+    var tempa = 1 - cc1 * t;
+    var tempe = bstar * cc4 * t;
+    var templ = t2cof * t2;
+    if (!isimp) {
+      var delomg = omgcof * t;
+      var delm = xmcof * (Math.pow(1 + eta * Math.cos(xmdf), 3) - delmo);
+      mm = xmdf + delomg + delm;
+      argpm = argpdf - delomg - delm;
+      var t3 = t2 * t;
+      var t4 = t3 * t;
+      tempa = tempa - d2 * t2 - d3 * t3 - d4 * t4;
+      tempe = tempe + bstar * cc5 * (Math.sin(mm) - sinmao);
+      templ = templ + t3cof * t3 + t4 * (t4cof + t * t5cof);
+    }
+    var am = Math.pow(XKE / no, X2O3) * tempa * tempa;
+    var nm = XKE / Math.pow(am, 1.5);
+    var em = ecco - tempe;
+    if (em >= 1 || em < -0.001 || am < 0.95) throw new IllegalStateException("Orbit has decayed");
+    if (em < 1e-6) em = 1e-6;
+    mm = mm + no * templ;
+    var xlm = mm + argpm + nodem;
+    nodem = nodem % TWO_PI;
+    argpm = argpm % TWO_PI;
+    xlm = xlm % TWO_PI;
+    mm = (xlm - argpm - nodem) % TWO_PI;
+
+    // Long-period periodics
+    var sinip = Math.sin(inclo);
+    var cosip = Math.cos(inclo);
+    var axnl = em * Math.cos(argpm);
+    var temp = 1 / (am * (1 - em * em));
+    var aynl = em * Math.sin(argpm) + temp * aycof;
+    var xl = mm + argpm + nodem + temp * xlcof * axnl;
+
+    // Kepler's equation
+    var u = (xl - nodem) % TWO_PI;
+    var eo1 = u;
+    var sineo1 = 0.0;
+    var coseo1 = 0.0;
+    var tem5 = 9999.9;
+    for (int ktr = 1; Math.abs(tem5) >= 1e-12 && ktr <= 10; ktr++) {
+      sineo1 = Math.sin(eo1);
+      coseo1 = Math.cos(eo1);
+      tem5 = 1 - coseo1 * axnl - sineo1 * aynl;
+      tem5 = (u - aynl * coseo1 + axnl * sineo1 - eo1) / tem5;
+      if (Math.abs(tem5) >= 0.95) tem5 = tem5 > 0 ? 0.95 : -0.95;
+      eo1 += tem5;
+    }
+
+    // Short-period periodics
+    var ecose = axnl * coseo1 + aynl * sineo1;
+    var esine = axnl * sineo1 - aynl * coseo1;
+    var el2 = axnl * axnl + aynl * aynl;
+    var pl = am * (1 - el2);
+    if (pl < 0) throw new IllegalStateException("Orbit has decayed");
+    var rl = am * (1 - ecose);
+    var rdotl = Math.sqrt(am) * esine / rl;
+    var rvdotl = Math.sqrt(pl) / rl;
+    var betal = Math.sqrt(1 - el2);
+    temp = esine / (1 + betal);
+    var sinu = am / rl * (sineo1 - aynl - axnl * temp);
+    var cosu = am / rl * (coseo1 - axnl + aynl * temp);
+    var su = Math.atan2(sinu, cosu);
+    var sin2u = (cosu + cosu) * sinu;
+    var cos2u = 1 - 2 * sinu * sinu;
+    temp = 1 / pl;
+    var temp1 = 0.5 * J2 * temp;
+    var temp2 = temp1 * temp;
+    var mrt = rl * (1 - 1.5 * temp2 * betal * con41) + 0.5 * temp1 * x1mth2 * cos2u;
+    if (mrt < 1) throw new IllegalStateException("Orbit has decayed");
+    su = su - 0.25 * temp2 * x7thm1 * sin2u;
+    var xnode = nodem + 1.5 * temp2 * cosip * sin2u;
+    var xinc = inclo + 1.5 * temp2 * cosip * sinip * cos2u;
+    var mvt = rdotl - nm * temp1 * x1mth2 * sin2u / XKE;
+    var rvdot = rvdotl + nm * temp1 * (x1mth2 * cos2u + 1.5 * con41) / XKE;
+
+    // Orientation vectors
+    var sinsu = Math.sin(su);
+    var cossu = Math.cos(su);
+    var snod = Math.sin(xnode);
+    var cnod = Math.cos(xnode);
+    var sini = Math.sin(xinc);
+    var cosi = Math.cos(xinc);
+    var xmx = -snod * cosi;
+    var xmy = cnod * cosi;
+    var ux = xmx * sinsu + cnod * cossu;
+    var uy = xmy * sinsu + snod * cossu;
+    var uz = sini * sinsu;
+    var vx = xmx * cossu - cnod * sinsu;
+    var vy = xmy * cossu - snod * sinsu;
+    var vz = sini * cossu;
+    return new StateVector(
+        mrt * ux * EARTH_RADIUS,
+        mrt * uy * EARTH_RADIUS,
+        mrt * uz * EARTH_RADIUS,
+        (mvt * ux + rvdot * vx) * VELOCITY_UNIT,
+        (mvt * uy + rvdot * vy) * VELOCITY_UNIT,
+        (mvt * uz + rvdot * vz) * VELOCITY_UNIT);
+  }
+}
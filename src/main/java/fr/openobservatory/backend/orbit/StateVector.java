@@ -0,0 +1,7 @@
+package fr.openobservatory.backend.orbit;
+
+/**
+ * Position (km) and velocity (km/s) of a satellite in the True Equator Mean Equinox frame used by
+ * SGP4.
+ */
+public record StateVector(double x, double y, double z, double vx, double vy, double vz) {}
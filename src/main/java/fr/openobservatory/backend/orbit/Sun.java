@@ -0,0 +1,63 @@
+package fr.openobservatory.backend.orbit;
+
+import java.time.Instant;
+
+/**
+ * Low-precision position of the Sun from the Astronomical Almanac, accurate to about 0.01 degrees
+ * between 1950 and 2050, which is enough to tell whether a satellite is lit and the sky dark.
+ */
+public final class Sun {
+
+  private static final double ASTRONOMICAL_UNIT = 149597870.7;
+  private static final double EARTH_RADIUS = 6378.137;
+  private static final long J2000_EPOCH_SECOND = 946_728_000;
+  private static final double SECONDS_PER_CENTURY = 36525 * 86400.0;
+
+  private Sun() {}
+
+  // ---
+
+  /**
+   * Computes the position of the Sun in the inertial frame of the equator and equinox of date,
+   * which is close enough to the TEME frame of SGP4 for visibility computations.
+   *
+   * @return The inertial coordinates of the Sun in kilometers.
+   */
+  public static double[] position(Instant at) {
+    var t = (at.getEpochSecond() - J2000_EPOCH_SECOND) / SECONDS_PER_CENTURY;
+    var meanLongitude = 280.460 + 36000.771 * t;
+    var meanAnomaly = Math.toRadians(357.5291092 + 35999.05034 * t);
+    var longitude =
+        Math.toRadians(
+            meanLongitude
+                + 1.914666471 * Math.sin(meanAnomaly)
+                + 0.019994643 * Math.sin(2 * meanAnomaly));
+    var distance =
+        (1.000140612
+                - 0.016708617 * Math.cos(meanAnomaly)
+                - 0.000139589 * Math.cos(2 * meanAnomaly))
+            * ASTRONOMICAL_UNIT;
+    var obliquity = Math.toRadians(23.439291 - 0.0130042 * t);
+    return new double[] {
+      distance * Math.cos(longitude),
+      distance * Math.cos(obliquity) * Math.sin(longitude),
+      distance * Math.sin(obliquity) * Math.sin(longitude)
+    };
+  }
+
+  /**
+   * Tells whether a satellite is lit by the Sun, modelling the shadow of the Earth as a cylinder.
+   *
+   * @param satellite State of the satellite in the TEME frame.
+   * @param sun Inertial coordinates of the Sun.
+   */
+  public static boolean illuminates(StateVector satellite, double[] sun) {
+    var norm = Math.sqrt(sun[0] * sun[0] + sun[1] * sun[1] + sun[2] * sun[2]);
+    var along = (satellite.x() * sun[0] + satellite.y() * sun[1] + satellite.z() * sun[2]) / norm;
+    if (along >= 0) return true;
+    var dx = satellite.x() - along * sun[0] / norm;
+    var dy = satellite.y() - along * sun[1] / norm;
+    var dz = satellite.z() - along * sun[2] / norm;
+    return dx * dx + dy * dy + dz * dz > EARTH_RADIUS * EARTH_RADIUS;
+  }
+}
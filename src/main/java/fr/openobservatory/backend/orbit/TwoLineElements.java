@@ -0,0 +1,115 @@
+package fr.openobservatory.backend.orbit;
+
+import fr.openobservatory.backend.exceptions.InvalidTwoLineElementsException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mean orbital elements of a satellite, as published in the two-line element set format. Angles are
+ * expressed in degrees and the mean motion in revolutions per day, as in the source lines.
+ */
+public record TwoLineElements(
+    String name,
+    int noradId,
+    Instant epoch,
+    double bstar,
+    double inclination,
+    double rightAscension,
+    double eccentricity,
+    double argumentOfPerigee,
+    double meanAnomaly,
+    double meanMotion) {
+
+  private static final int LINE_LENGTH = 69;
+
+  // ---
+
+  /**
+   * Parses a single element set.
+   *
+   * @param name Name of the satellite, or null if the set has no title line.
+   * @param line1 First line of the set.
+   * @param line2 Second line of the set.
+   * @return The parsed elements.
+   */
+  public static TwoLineElements parse(String name, String line1, String line2) {
+    line1 = line1.stripTrailing();
+    line2 = line2.stripTrailing();
+    if (!isLine(line1, '1') || !isLine(line2, '2')) throw new InvalidTwoLineElementsException();
+    try {
+      var noradId = Integer.parseInt(line1.substring(2, 7).trim());
+      if (noradId != Integer.parseInt(line2.substring(2, 7).trim()))
+        throw new InvalidTwoLineElementsException();
+      return new TwoLineElements(
+          name == null || name.isBlank() ? null : name.strip(),
+          noradId,
+          parseEpoch(line1.substring(18, 20), line1.substring(20, 32)),
+          parseExponent(line1.substring(53, 61)),
+          Double.parseDouble(line2.substring(8, 16).trim()),
+          Double.parseDouble(line2.substring(17, 25).trim()),
+          Double.parseDouble("0." + line2.substring(26, 33).trim()),
+          Double.parseDouble(line2.substring(34, 42).trim()),
+          Double.parseDouble(line2.substring(43, 51).trim()),
+          Double.parseDouble(line2.substring(52, 63).trim()));
+    } catch (NumberFormatException e) {
+      throw new InvalidTwoLineElementsException();
+    }
+  }
+
+  /**
+   * Parses every element set of a text, in the two-line or three-line format used by CelesTrak and
+   * Space-Track. Blank lines are ignored.
+   *
+   * @param text Content of the element sets file.
+   * @return The parsed elements, in the order of the text.
+   */
+  public static List<TwoLineElements> parseAll(String text) {
+    var lines = text.lines().filter(l -> !l.isBlank()).toList();
+    var elements = new ArrayList<TwoLineElements>();
+    String name = null;
+    for (int i = 0; i < lines.size(); i++) {
+      var line = lines.get(i);
+      if (line.startsWith("1 ") && i + 1 < lines.size()) {
+        elements.add(parse(name, line, lines.get(++i)));
+        name = null;
+      } else if (name == null) {
+        name = line.startsWith("0 ") ? line.substring(2) : line;
+      } else {
+        throw new InvalidTwoLineElementsException();
+      }
+    }
+    if (name != null) throw new InvalidTwoLineElementsException();
+    return elements;
+  }
+
+  // ---
+
+  private static boolean isLine(String line, char number) {
+    if (line.length() != LINE_LENGTH || line.charAt(0) != number) return false;
+    int checksum = 0;
+    for (int i = 0; i < LINE_LENGTH - 1; i++) {
+      var c = line.charAt(i);
+      if (Character.isDigit(c)) checksum += c - '0';
+      else if (c == '-') checksum++;
+    }
+    return line.charAt(LINE_LENGTH - 1) - '0' == checksum % 10;
+  }
+
+  private static Instant parseEpoch(String year, String day) {
+    var y = Integer.parseInt(year.trim());
+    var start = LocalDate.of(y < 57 ? 2000 + y : 1900 + y, 1, 1).atStartOfDay(ZoneOffset.UTC);
+    var micros = Math.round((Double.parseDouble(day.trim()) - 1) * 86_400_000_000L);
+    return start.toInstant().plus(micros, ChronoUnit.MICROS);
+  }
+
+  /** Parses the compact notation of the drag term, where {@code -11606-4} means -0.11606e-4. */
+  private static double parseExponent(String field) {
+    var mantissa = Double.parseDouble("0." + field.substring(1, 6).trim());
+    var exponent = Integer.parseInt(field.substring(6, 8).trim());
+    return (field.charAt(0) == '-' ? -mantissa : mantissa) * Math.pow(10, exponent);
+  }
+}
@@ -3,23 +3,51 @@ package fr.openobservatory.backend.providers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.openobservatory.backend.configuration.PushServiceProperties;
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
 import java.security.GeneralSecurityException;
-import java.util.concurrent.ExecutionException;
-import lombok.AllArgsConstructor;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import nl.martijndwars.webpush.Notification;
-import nl.martijndwars.webpush.PushService;
 import org.jose4j.lang.JoseException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-@AllArgsConstructor
 @Component
 public class PushProvider {
 
+  private static final Duration ACQUIRE_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
   private final ObjectMapper objectMapper;
   private final PushServiceProperties properties;
-  private final PushService pushService;
+  private final WebPushRequestFactory requestFactory;
+  private final HttpClient httpClient;
+  private final Semaphore pendingRequests;
+
+  public PushProvider(
+      ObjectMapper objectMapper,
+      PushServiceProperties properties,
+      WebPushRequestFactory requestFactory,
+      HttpClient httpClient) {
+    this.objectMapper = objectMapper;
+    this.properties = properties;
+    this.requestFactory = requestFactory;
+    this.httpClient = httpClient;
+    this.pendingRequests = new Semaphore(properties.dispatch().maxConcurrentRequests());
+  }
 
   // ---
 
@@ -29,36 +57,106 @@ public class PushProvider {
   }
 
   /**
-   * Sends the requested push message over the network.
+   * Sends the requested push message over the network without waiting for the push service. The
+   * connections to each push service are reused across messages, and the number of pending messages
+   * is bounded: once reached, the caller waits a few seconds for a slot to be released, after which
+   * the message fails as if the push service could not be reached, so that it is retried later.
    *
    * @param message The push message to send.
+   * @return The response of the push service, or a {@link PushMessageException} if the message
+   *     could not be delivered to it, caused by an {@link IOException} when the push service could
+   *     not be reached in time.
    */
-  public void send(PushMessage message) throws PushMessageException {
+  public CompletableFuture<PushResponse> sendAsync(PushMessage message) {
+    HttpRequest request;
     try {
-      var payload = objectMapper.writeValueAsBytes(message.payload);
-      var notification =
-          Notification.builder()
-              .endpoint(message.endpoint)
-              .userAuth(message.auth)
-              .userPublicKey(message.publicKey)
-              .payload(payload)
-              .build();
-      var response = pushService.send(notification);
-      if (!HttpStatus.valueOf(response.getStatusLine().getStatusCode()).is2xxSuccessful())
-        throw new PushMessageException();
+      request = prepareRequest(message);
+      if (!pendingRequests.tryAcquire(ACQUIRE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+        return CompletableFuture.failedFuture(
+            new PushMessageException(new IOException("Too many pending push messages")));
     } catch (InterruptedException e) {
-      send(message);
-    } catch (JoseException | GeneralSecurityException | IOException | ExecutionException e) {
-      throw new PushMessageException();
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(new PushMessageException());
+    } catch (JoseException | GeneralSecurityException | IOException | IllegalArgumentException e) {
+      return CompletableFuture.failedFuture(new PushMessageException());
+    }
+    try {
+      return httpClient
+          .sendAsync(request, BodyHandlers.discarding())
+          .handle(
+              (response, e) -> {
+                pendingRequests.release();
+                if (e != null)
+                  throw new CompletionException(
+                      new PushMessageException(
+                          e instanceof CompletionException ? e.getCause() : e));
+                return new PushResponse(response.statusCode(), response.headers());
+              });
+    } catch (RuntimeException e) {
+      pendingRequests.release();
+      return CompletableFuture.failedFuture(new PushMessageException());
     }
   }
 
   // ---
 
+  private HttpRequest prepareRequest(PushMessage message)
+      throws JoseException, GeneralSecurityException, IOException {
+    var payload = objectMapper.writeValueAsBytes(message.payload);
+    var notification =
+        Notification.builder()
+            .endpoint(message.endpoint)
+            .userAuth(message.auth)
+            .userPublicKey(message.publicKey)
+            .payload(payload)
+            .build();
+    var prepared = requestFactory.create(notification);
+    var builder =
+        HttpRequest.newBuilder(URI.create(prepared.getUrl()))
+            .timeout(REQUEST_TIMEOUT)
+            .POST(
+                prepared.getBody() == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(prepared.getBody()));
+    prepared.getHeaders().forEach(builder::header);
+    return builder.build();
+  }
+
   // ---
 
   @ResponseStatus(code = HttpStatus.INTERNAL_SERVER_ERROR)
-  public static class PushMessageException extends Exception {}
+  public static class PushMessageException extends Exception {
+
+    public PushMessageException() {}
+
+    public PushMessageException(Throwable cause) {
+      super(cause);
+    }
+  }
 
   public record PushMessage(String endpoint, String auth, String publicKey, Object payload) {}
+
+  public record PushResponse(int status, HttpHeaders headers) {
+
+    public boolean isSuccessful() {
+      return HttpStatusCode.valueOf(status).is2xxSuccessful();
+    }
+
+    /** Returns the delay requested by the push service before sending the message again. */
+    public Duration retryAfter() {
+      var value = headers.firstValue("Retry-After").orElse(null);
+      if (value == null) return null;
+      try {
+        return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+      } catch (NumberFormatException ignored) {
+      }
+      try {
+        var date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        var delay = Duration.between(Instant.now(), date);
+        return delay.isNegative() ? Duration.ZERO : delay;
+      } catch (DateTimeParseException ignored) {
+        return null;
+      }
+    }
+  }
 }
@@ -0,0 +1,82 @@
+package fr.openobservatory.backend.providers;
+
+import fr.openobservatory.backend.configuration.PushServiceProperties;
+import fr.openobservatory.backend.providers.PushProvider.PushMessageException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides what to do with push messages rejected by push services, following RFC 8030: expired
+ * subscriptions are dropped, while throttled or failing deliveries are retried later with a bounded
+ * exponential backoff.
+ */
+@AllArgsConstructor
+@Component
+public class PushRetryPolicy {
+
+  private static final int MAX_BACKOFF_EXPONENT = 20;
+
+  private final PushServiceProperties properties;
+
+  // ---
+
+  /**
+   * Tells whether the subscription a message was sent to no longer exists.
+   *
+   * @param status Status returned by the push service.
+   */
+  public boolean isExpired(int status) {
+    return status == 404 || status == 410;
+  }
+
+  /**
+   * Tells whether a message rejected with the given status may be accepted later.
+   *
+   * @param status Status returned by the push service.
+   */
+  public boolean isRetryable(int status) {
+    return status == 408 || status == 429 || status >= 500;
+  }
+
+  /**
+   * Tells whether a message that could not be sent may be delivered later, which is only the case
+   * when the push service could not be reached or did not answer in time. Messages that could not
+   * be encrypted or addressed would fail the same way again.
+   *
+   * @param failure Failure of the delivery.
+   */
+  public boolean isRetryable(Throwable failure) {
+    var e = failure instanceof CompletionException ? failure.getCause() : failure;
+    return e instanceof PushMessageException && e.getCause() instanceof IOException;
+  }
+
+  /**
+   * Computes the delay to wait before the next delivery attempt. The delay doubles after each
+   * attempt up to the configured maximum, and is randomized to avoid retrying every throttled
+   * message at once. A longer delay requested by the push service is honoured up to the configured
+   * maximum, beyond which the message is given up rather than kept in memory.
+   *
+   * @param attempt Number of attempts already made.
+   * @param retryAfter Delay requested by the push service, if any.
+   * @return The delay, or nothing when the message should be given up.
+   */
+  public Optional<Duration> nextDelay(int attempt, Duration retryAfter) {
+    var retry = properties.retry();
+    if (attempt >= retry.maxAttempts()) return Optional.empty();
+    var backoff =
+        retry
+            .initialDelay()
+            .multipliedBy(1L << Math.min(attempt - 1, MAX_BACKOFF_EXPONENT))
+            .toMillis();
+    backoff = Math.min(backoff, retry.maxDelay().toMillis());
+    var delay =
+        Duration.ofMillis(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+    if (retryAfter != null && retryAfter.compareTo(delay) > 0) delay = retryAfter;
+    return delay.compareTo(retry.maxDelay()) > 0 ? Optional.empty() : Optional.of(delay);
+  }
+}
@@ -0,0 +1,34 @@
+package fr.openobservatory.backend.providers;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import nl.martijndwars.webpush.AbstractPushService;
+import nl.martijndwars.webpush.Encoding;
+import nl.martijndwars.webpush.HttpRequest;
+import nl.martijndwars.webpush.Notification;
+import org.jose4j.lang.JoseException;
+
+/**
+ * Builds encrypted and VAPID-signed web push requests using the web-push library, leaving the
+ * transport of these requests to the caller.
+ */
+public class WebPushRequestFactory extends AbstractPushService<WebPushRequestFactory> {
+
+  public WebPushRequestFactory(String publicKey, String privateKey, String subject)
+      throws GeneralSecurityException {
+    super(publicKey, privateKey, subject);
+  }
+
+  // ---
+
+  /**
+   * Encrypts the notification payload and prepares the request delivering it to its endpoint.
+   *
+   * @param notification The notification to deliver.
+   * @return The request to send to the push service.
+   */
+  public HttpRequest create(Notification notification)
+      throws GeneralSecurityException, IOException, JoseException {
+    return prepareRequest(notification, Encoding.AES128GCM);
+  }
+}
@@ -0,0 +1,13 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.AchievementBackfillCheckpointEntity;
+import java.util.Set;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface AchievementBackfillCheckpointRepository
+    extends JpaRepository<AchievementBackfillCheckpointEntity, Long> {
+
+  @Query("SELECT c.rangeStart FROM AchievementBackfillCheckpointEntity c")
+  Set<Long> findAllRangeStarts();
+}
@@ -1,8 +1,8 @@
 package fr.openobservatory.backend.repositories;
 
 import fr.openobservatory.backend.entities.ObservationEntity;
-import fr.openobservatory.backend.entities.ObservationVoteEntity;
 import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -16,16 +16,45 @@ public interface Achievements {
     JAMES_WEBB
   }
 
-  default Request onObservationUpdate(ObservationEntity observation) {
+  /**
+   * Evaluates the achievement after the author created an observation.
+   *
+   * @param author Author of the observation, with up-to-date counters.
+   * @return The achievement to award, or null if the rule is not affected by observations.
+   */
+  default Request onObservationCreated(UserEntity author) {
     return null;
   }
 
-  default Request onVoteSubmit(ObservationVoteEntity vote) {
+  /**
+   * Evaluates the achievement after a vote changed.
+   *
+   * @param event Change of the vote.
+   * @param observation Observation the vote is on, with up-to-date karma.
+   * @param voter User who voted, with up-to-date counters.
+   * @return The achievement to award, or null if the rule is not affected by this change.
+   */
+  default Request onObservationVoteChanged(
+      ObservationVoteChangedEvent event, ObservationEntity observation, UserEntity voter) {
     return null;
   }
 
+  /**
+   * Evaluates the achievement from the whole history of a user, when backfilling the levels.
+   *
+   * @param activity Activity of the user, aggregated over the whole history.
+   * @return The level reached by the user, or null if none is.
+   */
+  default Level evaluate(Activity activity) {
+    return null;
+  }
+
+  Achievement getAchievement();
+
   record Request(Achievement achievement, Level level, UserEntity user) {}
 
+  record Activity(int observationCount, int voteCount, int karma, int bestObservationKarma) {}
+
   @AllArgsConstructor
   @Getter
   enum Level {
@@ -41,15 +70,22 @@ public interface Achievements {
       return name();
     }
 
+    /**
+     * Returns the highest level reached with a count, so that a level is awarded even when the
+     * count skips its threshold.
+     *
+     * @param count Current value of the counter the level is based on.
+     * @return The highest level whose threshold is reached, or null if none is.
+     */
     public static Level getLevel(Integer count) {
-      if (count == 1) {
-        return Level.NEW;
-      } else if (count == 10) {
-        return Level.BEGINNER;
-      } else if (count == 25) {
-        return Level.INTERMEDIATE;
-      } else if (count == 100) {
+      if (count >= EXPERT.count) {
         return EXPERT;
+      } else if (count >= INTERMEDIATE.count) {
+        return INTERMEDIATE;
+      } else if (count >= BEGINNER.count) {
+        return BEGINNER;
+      } else if (count >= NEW.count) {
+        return NEW;
       } else {
         return null;
       }
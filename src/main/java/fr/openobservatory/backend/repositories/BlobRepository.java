@@ -0,0 +1,29 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.BlobEntity;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BlobRepository extends JpaRepository<BlobEntity, String> {
+
+  /**
+   * Deletes the blobs which are neither an avatar nor a celestial body image anymore.
+   *
+   * @param createdBefore Instant before which unreferenced blobs were created, so that blobs stored
+   *     by a request still in progress are kept.
+   * @return The number of deleted blobs.
+   */
+  @Modifying
+  @Query(
+      "DELETE FROM BlobEntity b WHERE b.createdAt < :createdBefore AND NOT EXISTS (SELECT 1 FROM UserEntity u WHERE u.avatar = b.hash) AND NOT EXISTS (SELECT 1 FROM CelestialBodyEntity c WHERE c.image = b.hash)")
+  int deleteUnreferenced(Instant createdBefore);
+
+  /** Records that a blob could not be decoded, so that its thumbnails are never generated again. */
+  @Modifying
+  @Query("UPDATE BlobEntity b SET b.undecodable = true WHERE b.hash = :hash")
+  void markUndecodable(String hash);
+}
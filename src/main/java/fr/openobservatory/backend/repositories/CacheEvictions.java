@@ -0,0 +1,40 @@
+package fr.openobservatory.backend.repositories;
+
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+final class CacheEvictions {
+
+  private CacheEvictions() {}
+
+  // ---
+
+  /**
+   * Evicts an entry right away, so that the current transaction does not read it anymore, and again
+   * once the transaction completes, in case a concurrent transaction cached the previous state in
+   * between.
+   */
+  static void evict(Cache cache, Object key) {
+    runNowAndAfterCompletion(() -> cache.evict(key));
+  }
+
+  /** Clears a cache right away, and again once the current transaction completes. */
+  static void clear(Cache cache) {
+    runNowAndAfterCompletion(cache::clear);
+  }
+
+  // ---
+
+  private static void runNowAndAfterCompletion(Runnable eviction) {
+    eviction.run();
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            eviction.run();
+          }
+        });
+  }
+}
@@ -0,0 +1,24 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import java.util.Optional;
+
+/** Lookups of celestial bodies going through the cache of celestial bodies. */
+public interface CachedCelestialBodyRepository {
+
+  /**
+   * Finds a celestial body by identifier. The returned entity is a detached copy of the cached one:
+   * it may be referenced by other entities, but must not be modified.
+   *
+   * @param id Identifier of the celestial body.
+   * @return The celestial body, if any.
+   */
+  Optional<CelestialBodyEntity> findCachedById(Long id);
+
+  /**
+   * Evicts a cached celestial body, now and once the current transaction completes.
+   *
+   * @param id Identifier of the celestial body.
+   */
+  void evictCached(Long id);
+}
@@ -0,0 +1,67 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.configuration.CacheConfiguration;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import jakarta.persistence.EntityManager;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+
+public class CachedCelestialBodyRepositoryImpl implements CachedCelestialBodyRepository {
+
+  private final Cache cache;
+  private final EntityManager entityManager;
+
+  /** Caching is disabled when the application context has no cache manager, as in JPA tests. */
+  public CachedCelestialBodyRepositoryImpl(
+      ObjectProvider<CacheManager> cacheManager, EntityManager entityManager) {
+    this.cache =
+        Objects.requireNonNull(
+            cacheManager
+                .getIfAvailable(NoOpCacheManager::new)
+                .getCache(CacheConfiguration.CELESTIAL_BODIES));
+    this.entityManager = entityManager;
+  }
+
+  // ---
+
+  @Override
+  public Optional<CelestialBodyEntity> findCachedById(Long id) {
+    if (id == null) return Optional.empty();
+    var snapshot = cache.get(id, Snapshot.class);
+    if (snapshot == null) {
+      var celestialBody = entityManager.find(CelestialBodyEntity.class, id);
+      if (celestialBody == null) return Optional.empty();
+      snapshot = Snapshot.of(celestialBody);
+      cache.put(id, snapshot);
+    }
+    return Optional.of(snapshot.toEntity());
+  }
+
+  @Override
+  public void evictCached(Long id) {
+    CacheEvictions.evict(cache, id);
+  }
+
+  // ---
+
+  private record Snapshot(Long id, String name, String image, Integer validityTime) {
+
+    static Snapshot of(CelestialBodyEntity entity) {
+      return new Snapshot(
+          entity.getId(), entity.getName(), entity.getImage(), entity.getValidityTime());
+    }
+
+    CelestialBodyEntity toEntity() {
+      return CelestialBodyEntity.builder()
+          .id(id)
+          .name(name)
+          .image(image)
+          .validityTime(validityTime)
+          .build();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import java.util.List;
+import java.util.Optional;
+
+/** Read model of the user profiles, going through the cache of profiles. */
+public interface CachedUserProfileRepository {
+
+  /**
+   * Finds the identifier of a user by username, ignoring case, without loading the user when the
+   * identifier is cached.
+   *
+   * @param username Username of the user.
+   * @return The identifier of the user, if any.
+   */
+  Optional<Long> findIdByUsernameIgnoreCase(String username);
+
+  /**
+   * Finds the profile of a user. Profiles are built from the counters maintained on users and their
+   * achievement levels, and cached until evicted.
+   *
+   * @param id Identifier of the user.
+   * @return The profile of the user, if any.
+   */
+  Optional<UserProfile> findProfileById(Long id);
+
+  /**
+   * Evicts the cached profile of a user, now and once the current transaction completes.
+   *
+   * @param id Identifier of the user.
+   */
+  void evictProfile(Long id);
+
+  /** Evicts all cached profiles, after their counters or levels changed in bulk. */
+  void evictAllProfiles();
+
+  // ---
+
+  record UserProfile(
+      Long id,
+      String username,
+      UserEntity.Type type,
+      String avatar,
+      String biography,
+      boolean isPublic,
+      int karma,
+      int observationCount,
+      boolean notificationEnabled,
+      int notificationRadius,
+      List<AchievementLevel> achievements) {}
+
+  record AchievementLevel(Achievement achievement, Level level) {}
+}
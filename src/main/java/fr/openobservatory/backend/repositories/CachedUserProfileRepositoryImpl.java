@@ -0,0 +1,98 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.configuration.CacheConfiguration;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import jakarta.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+
+public class CachedUserProfileRepositoryImpl implements CachedUserProfileRepository {
+
+  private static final String FIND_ID_BY_USERNAME =
+      "SELECT u.id FROM UserEntity u WHERE UPPER(u.username) = UPPER(:username)";
+  private static final String FIND_ACHIEVEMENTS =
+      "SELECT a.achievement, a.level FROM UserAchievementEntity a WHERE a.user.id = :id";
+
+  private final Cache idCache;
+  private final Cache profileCache;
+  private final EntityManager entityManager;
+
+  /** Caching is disabled when the application context has no cache manager, as in JPA tests. */
+  public CachedUserProfileRepositoryImpl(
+      ObjectProvider<CacheManager> cacheManager, EntityManager entityManager) {
+    var manager = cacheManager.getIfAvailable(NoOpCacheManager::new);
+    this.idCache = Objects.requireNonNull(manager.getCache(CacheConfiguration.USER_IDS));
+    this.profileCache = Objects.requireNonNull(manager.getCache(CacheConfiguration.PROFILES));
+    this.entityManager = entityManager;
+  }
+
+  // ---
+
+  @Override
+  public Optional<Long> findIdByUsernameIgnoreCase(String username) {
+    if (username == null) return Optional.empty();
+    var key = username.toLowerCase(Locale.ROOT);
+    var id = idCache.get(key, Long.class);
+    if (id != null) return Optional.of(id);
+    var found =
+        entityManager
+            .createQuery(FIND_ID_BY_USERNAME, Long.class)
+            .setParameter("username", username)
+            .getResultList()
+            .stream()
+            .findFirst();
+    found.ifPresent(i -> idCache.put(key, i));
+    return found;
+  }
+
+  @Override
+  public Optional<UserProfile> findProfileById(Long id) {
+    if (id == null) return Optional.empty();
+    var profile = profileCache.get(id, UserProfile.class);
+    if (profile != null) return Optional.of(profile);
+    var user = entityManager.find(UserEntity.class, id);
+    if (user == null) return Optional.empty();
+    var achievements =
+        entityManager
+            .createQuery(FIND_ACHIEVEMENTS, Object[].class)
+            .setParameter("id", id)
+            .getResultList()
+            .stream()
+            .map(row -> new AchievementLevel((Achievement) row[0], (Level) row[1]))
+            .sorted(Comparator.comparing(AchievementLevel::achievement))
+            .toList();
+    profile =
+        new UserProfile(
+            user.getId(),
+            user.getUsername(),
+            user.getType(),
+            user.getAvatar(),
+            user.getBiography(),
+            user.isPublic(),
+            user.getKarma(),
+            user.getObservationCount(),
+            user.isNotificationEnabled(),
+            user.getNotificationRadius(),
+            achievements);
+    profileCache.put(id, profile);
+    return Optional.of(profile);
+  }
+
+  @Override
+  public void evictProfile(Long id) {
+    CacheEvictions.evict(profileCache, id);
+  }
+
+  @Override
+  public void evictAllProfiles() {
+    CacheEvictions.clear(profileCache);
+  }
+}
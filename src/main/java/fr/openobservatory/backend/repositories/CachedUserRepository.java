@@ -0,0 +1,24 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.UserEntity;
+import java.util.Optional;
+
+/** Lookups of users by username going through the cache of user identifiers. */
+public interface CachedUserRepository {
+
+  /**
+   * Finds a user by username, ignoring case. The identifier of the user is cached, so that repeated
+   * lookups are served by the persistence context or a primary key lookup rather than a query.
+   *
+   * @param username Username of the user.
+   * @return The user, if any.
+   */
+  Optional<UserEntity> findByUsernameIgnoreCase(String username);
+
+  /**
+   * Evicts the cached identifier of a username, now and once the current transaction completes.
+   *
+   * @param username Username of the user.
+   */
+  void evictUsername(String username);
+}
@@ -0,0 +1,61 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.configuration.CacheConfiguration;
+import fr.openobservatory.backend.entities.UserEntity;
+import jakarta.persistence.EntityManager;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+
+public class CachedUserRepositoryImpl implements CachedUserRepository {
+
+  private static final String FIND_BY_USERNAME =
+      "SELECT u FROM UserEntity u WHERE UPPER(u.username) = UPPER(:username)";
+
+  private final Cache cache;
+  private final EntityManager entityManager;
+
+  /** Caching is disabled when the application context has no cache manager, as in JPA tests. */
+  public CachedUserRepositoryImpl(
+      ObjectProvider<CacheManager> cacheManager, EntityManager entityManager) {
+    this.cache =
+        Objects.requireNonNull(
+            cacheManager
+                .getIfAvailable(NoOpCacheManager::new)
+                .getCache(CacheConfiguration.USER_IDS));
+    this.entityManager = entityManager;
+  }
+
+  // ---
+
+  @Override
+  public Optional<UserEntity> findByUsernameIgnoreCase(String username) {
+    if (username == null) return Optional.empty();
+    var key = username.toLowerCase(Locale.ROOT);
+    var id = cache.get(key, Long.class);
+    if (id != null) {
+      var user = entityManager.find(UserEntity.class, id);
+      if (user != null && user.getUsername().equalsIgnoreCase(username)) return Optional.of(user);
+      cache.evict(key);
+    }
+    var user =
+        entityManager
+            .createQuery(FIND_BY_USERNAME, UserEntity.class)
+            .setParameter("username", username)
+            .getResultList()
+            .stream()
+            .findFirst();
+    user.ifPresent(u -> cache.put(key, u.getId()));
+    return user;
+  }
+
+  @Override
+  public void evictUsername(String username) {
+    var key = username.toLowerCase(Locale.ROOT);
+    CacheEvictions.evict(cache, key);
+  }
+}
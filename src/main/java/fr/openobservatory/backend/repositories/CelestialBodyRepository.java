@@ -1,11 +1,17 @@
 package fr.openobservatory.backend.repositories;
 
 import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CelestialBodyRepository extends JpaRepository<CelestialBodyEntity, Long> {
+public interface CelestialBodyRepository
+    extends JpaRepository<CelestialBodyEntity, Long>, CachedCelestialBodyRepository {
 
   boolean existsCelestialBodyByNameIgnoreCase(String name);
+
+  List<CelestialBodyEntity> findAllByImageStartingWithAndIdGreaterThanOrderByIdAsc(
+      String prefix, Long id, Pageable pageable);
 }
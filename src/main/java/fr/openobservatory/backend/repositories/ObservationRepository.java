@@ -1,25 +1,133 @@
 package fr.openobservatory.backend.repositories;
 
 import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationEntity.Visibility;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
 import fr.openobservatory.backend.entities.UserEntity;
+import java.time.Instant;
 import java.util.Collection;
-import java.util.Set;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ObservationRepository extends JpaRepository<ObservationEntity, Long> {
+public interface ObservationRepository
+    extends JpaRepository<ObservationEntity, Long>, StreamingObservationRepository {
 
-  Page<ObservationEntity> findAllByOrderByTimestampDesc(Pageable pageable);
+  String SELECT_DETAILED =
+      "SELECT new fr.openobservatory.backend.repositories.ObservationRepository$DetailedObservation(o.id, o.description, o.latitude, o.longitude, o.orientation, o.visibility, o.timestamp, o.expiresAt, o.karma, a.username, a.avatar, a.isPublic, a.type, c.id, c.name, c.image, c.validityTime, v.vote) FROM ObservationEntity o JOIN o.author a JOIN o.celestialBody c LEFT JOIN ObservationVoteEntity v ON v.observation = o AND v.user.id = :issuerId";
 
-  Page<ObservationEntity> findAllByAuthor(UserEntity user, Pageable pageable);
+  /**
+   * Fetches a page of the most recent observations along with their author, their celestial body
+   * and the vote of the issuer, in a single statement.
+   *
+   * @param issuerId Identifier of the user whose vote should be fetched, if any.
+   * @param pageable Page to fetch.
+   */
+  @Query(
+      value = SELECT_DETAILED + " ORDER BY o.timestamp DESC, o.id DESC",
+      countQuery = "SELECT COUNT(o) FROM ObservationEntity o")
+  Page<DetailedObservation> findAllDetailed(Long issuerId, Pageable pageable);
+
+  /**
+   * Fetches the most recent observations like {@link #findAllDetailed}, without counting them.
+   *
+   * @param issuerId Identifier of the user whose vote should be fetched, if any.
+   * @param pageable Number of observations to fetch.
+   */
+  @Query(SELECT_DETAILED + " ORDER BY o.timestamp DESC, o.id DESC")
+  List<DetailedObservation> scrollDetailed(Long issuerId, Pageable pageable);
 
-  Set<ObservationEntity> findAllByAuthor(UserEntity user);
+  /**
+   * Fetches the observations following the given one in the feed order. The position is looked up
+   * through the (timestamp, id) index, so every page costs the same whatever its depth.
+   *
+   * @param issuerId Identifier of the user whose vote should be fetched, if any.
+   * @param timestamp Timestamp of the last observation of the previous page.
+   * @param id Identifier of the last observation of the previous page.
+   * @param pageable Number of observations to fetch.
+   */
+  @Query(
+      SELECT_DETAILED
+          + " WHERE o.timestamp < :timestamp OR (o.timestamp = :timestamp AND o.id < :id) ORDER BY o.timestamp DESC, o.id DESC")
+  List<DetailedObservation> scrollDetailedAfter(
+      Long issuerId, Instant timestamp, Long id, Pageable pageable);
 
   @Query(
-      "FROM ObservationEntity o WHERE (o.latitude BETWEEN :latX AND :latY) AND (o.longitude BETWEEN :lngX AND :lngY) AND (CURRENT_TIMESTAMP - o.timestamp) < MAKE_INTERVAL(0, 0, 0, 0, o.celestialBody.validityTime)")
+      "FROM ObservationEntity o WHERE (o.latitude BETWEEN :latX AND :latY) AND (o.longitude BETWEEN :lngX AND :lngY) AND o.expiresAt > CURRENT_TIMESTAMP")
   Collection<ObservationEntity> findAllNearby(double latX, double latY, double lngX, double lngY);
+
+  /**
+   * Finds the observations still valid within the given distance of a point, using the PostGIS
+   * geography column and its GiST index. Only available when PostGIS is installed.
+   *
+   * @param latitude Latitude of the point.
+   * @param longitude Longitude of the point.
+   * @param distance Maximum distance to the point, in meters.
+   */
+  @Query(
+      nativeQuery = true,
+      value =
+          "SELECT o.* FROM observation o WHERE ST_DWithin(o.location, CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography), :distance) AND o.expires_at > CURRENT_TIMESTAMP")
+  Collection<ObservationEntity> findAllWithin(double latitude, double longitude, double distance);
+
+  /**
+   * Recomputes the expiration of the observations of a celestial body after its validity time
+   * changed.
+   *
+   * @param celestialBodyId Identifier of the celestial body.
+   * @param validityTime New validity time of the celestial body, in hours.
+   * @return The number of updated observations.
+   */
+  @Modifying
+  @Query(
+      "UPDATE ObservationEntity o SET o.expiresAt = o.timestamp + :validityTime hour WHERE o.celestialBody.id = :celestialBodyId")
+  int updateExpiresAt(Long celestialBodyId, int validityTime);
+
+  boolean existsByExpiresAtIsNull();
+
+  /**
+   * Computes the expiration of the observations created before it was stored.
+   *
+   * @return The number of updated observations.
+   */
+  @Modifying
+  @Query(
+      "UPDATE ObservationEntity o SET o.expiresAt = o.timestamp + (SELECT c.validityTime FROM CelestialBodyEntity c WHERE c = o.celestialBody) hour WHERE o.expiresAt IS NULL")
+  int fillMissingExpiresAt();
+
+  @Modifying
+  @Query("UPDATE ObservationEntity o SET o.karma = o.karma + :delta WHERE o.id = :id")
+  void incrementKarma(Long id, int delta);
+
+  @Modifying
+  @Query(
+      "UPDATE ObservationEntity o SET o.karma = CAST(COALESCE((SELECT SUM(CASE v.vote WHEN fr.openobservatory.backend.entities.ObservationVoteEntity$VoteType.UPVOTE THEN 1 ELSE -1 END) FROM ObservationVoteEntity v WHERE v.observation = o), 0) AS Integer)")
+  int reconcileKarma();
+
+  // ---
+
+  record DetailedObservation(
+      Long id,
+      String description,
+      Double latitude,
+      Double longitude,
+      Integer orientation,
+      Visibility visibility,
+      Instant timestamp,
+      Instant expiresAt,
+      Integer karma,
+      String authorUsername,
+      String authorAvatar,
+      boolean authorIsPublic,
+      UserEntity.Type authorType,
+      Long celestialBodyId,
+      String celestialBodyName,
+      String celestialBodyImage,
+      Integer celestialBodyValidityTime,
+      VoteType currentVote) {}
 }
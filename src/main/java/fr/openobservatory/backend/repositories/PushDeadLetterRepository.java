@@ -0,0 +1,6 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.PushDeadLetterEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PushDeadLetterRepository extends JpaRepository<PushDeadLetterEntity, Long> {}
@@ -9,5 +9,5 @@ public interface PushSubscriptionRepository extends JpaRepository<PushSubscripti
 
   void deleteAllByUser(UserEntity user);
 
-  Collection<PushSubscriptionEntity> findAllByUser(UserEntity user);
+  Collection<PushSubscriptionEntity> findAllByUserIdIn(Collection<Long> userIds);
 }
@@ -0,0 +1,43 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/** Reads of the observations of an author, streamed row by row rather than collected in lists. */
+public interface StreamingObservationRepository {
+
+  /**
+   * Finds the position of the last observation of a page of an author, in the feed order. Only the
+   * positions of the observations of the page are read, through the (author, timestamp, id) index.
+   *
+   * @param authorId Identifier of the author.
+   * @param after Position of the last observation of the previous page, if any.
+   * @param itemsPerPage Number of observations of the page.
+   * @return The position of the last observation of the page, or empty if it is the last page.
+   */
+  Optional<Position> findPageEnd(Long authorId, Position after, int itemsPerPage);
+
+  /**
+   * Streams the observations of an author in the feed order, along with their celestial body and
+   * the vote of the issuer, through a read-only and forward-only result set.
+   *
+   * @param author Profile of the author.
+   * @param issuerId Identifier of the user whose vote should be fetched, if any.
+   * @param after Position of the last observation of the previous page, if any.
+   * @param until Position of the last observation to stream, or null to stream them all.
+   * @param consumer Consumer of the observations, called for each row as it is read.
+   */
+  void streamByAuthor(
+      UserProfile author,
+      Long issuerId,
+      Position after,
+      Position until,
+      Consumer<DetailedObservation> consumer);
+
+  // ---
+
+  record Position(Instant timestamp, Long id) {}
+}
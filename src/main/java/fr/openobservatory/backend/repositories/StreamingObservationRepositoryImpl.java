@@ -0,0 +1,129 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.ObservationEntity.Visibility;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams the observations of an author with plain JDBC, so that rows are mapped and handed over
+ * one at a time. The statement runs in a read-only transaction with a fetch size, which PostgreSQL
+ * requires to fetch rows through a cursor rather than all at once.
+ */
+public class StreamingObservationRepositoryImpl implements StreamingObservationRepository {
+
+  private static final String SELECT_BY_AUTHOR =
+      "SELECT o.id, o.description, o.latitude, o.longitude, o.orientation, o.visibility, o.timestamp, o.expires_at, o.karma, c.id, c.name, c.image, c.validity_time, v.vote FROM observation o JOIN celestial_body c ON c.id = o.celestial_body_id LEFT JOIN observation_vote v ON v.observation_id = o.id AND v.user_id = ? WHERE o.author_id = ?";
+  private static final String SELECT_POSITIONS_BY_AUTHOR =
+      "SELECT o.timestamp, o.id FROM observation o WHERE o.author_id = ?";
+  private static final String AFTER = " AND (o.timestamp < ? OR (o.timestamp = ? AND o.id < ?))";
+  private static final String UNTIL = " AND (o.timestamp > ? OR (o.timestamp = ? AND o.id >= ?))";
+  private static final String ORDER = " ORDER BY o.timestamp DESC, o.id DESC";
+  private static final int FETCH_SIZE = 100;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public StreamingObservationRepositoryImpl(
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  // ---
+
+  @Override
+  public Optional<Position> findPageEnd(Long authorId, Position after, int itemsPerPage) {
+    var sql =
+        SELECT_POSITIONS_BY_AUTHOR + (after == null ? "" : AFTER) + ORDER + " LIMIT 2 OFFSET ?";
+    var positions =
+        jdbcTemplate.query(
+            connection -> {
+              var statement = connection.prepareStatement(sql);
+              var i = 1;
+              statement.setLong(i++, authorId);
+              if (after != null) i = setPosition(statement, i, after);
+              statement.setInt(i, itemsPerPage - 1);
+              return statement;
+            },
+            (rs, n) -> new Position(toInstant(rs, 1), rs.getLong(2)));
+    return positions.size() < 2 ? Optional.empty() : Optional.of(positions.get(0));
+  }
+
+  @Override
+  public void streamByAuthor(
+      UserProfile author,
+      Long issuerId,
+      Position after,
+      Position until,
+      Consumer<DetailedObservation> consumer) {
+    var sql =
+        SELECT_BY_AUTHOR + (after == null ? "" : AFTER) + (until == null ? "" : UNTIL) + ORDER;
+    transactionTemplate.executeWithoutResult(
+        status ->
+            jdbcTemplate.query(
+                connection -> {
+                  var statement =
+                      connection.prepareStatement(
+                          sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                  statement.setFetchSize(FETCH_SIZE);
+                  var i = 1;
+                  statement.setObject(i++, issuerId, Types.BIGINT);
+                  statement.setLong(i++, author.id());
+                  if (after != null) i = setPosition(statement, i, after);
+                  if (until != null) setPosition(statement, i, until);
+                  return statement;
+                },
+                rs -> {
+                  var vote = rs.getObject(14);
+                  consumer.accept(
+                      new DetailedObservation(
+                          rs.getLong(1),
+                          rs.getString(2),
+                          rs.getDouble(3),
+                          rs.getDouble(4),
+                          rs.getInt(5),
+                          Visibility.values()[rs.getInt(6)],
+                          toInstant(rs, 7),
+                          toInstant(rs, 8),
+                          rs.getInt(9),
+                          author.username(),
+                          author.avatar(),
+                          author.isPublic(),
+                          author.type(),
+                          rs.getLong(10),
+                          rs.getString(11),
+                          rs.getString(12),
+                          rs.getInt(13),
+                          vote == null ? null : VoteType.values()[((Number) vote).intValue()]));
+                }));
+  }
+
+  // ---
+
+  private static int setPosition(PreparedStatement statement, int index, Position position)
+      throws SQLException {
+    var timestamp = Timestamp.from(position.timestamp());
+    statement.setTimestamp(index, timestamp);
+    statement.setTimestamp(index + 1, timestamp);
+    statement.setLong(index + 2, position.id());
+    return index + 3;
+  }
+
+  private static Instant toInstant(ResultSet rs, int index) throws SQLException {
+    var timestamp = rs.getTimestamp(index);
+    return timestamp == null ? null : timestamp.toInstant();
+  }
+}
@@ -0,0 +1,32 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity.Size;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ThumbnailRepository extends JpaRepository<ThumbnailEntity, Long> {
+
+  boolean existsByBlobHash(String blobHash);
+
+  Optional<ThumbnailEntity> findByBlobHashAndSize(String blobHash, Size size);
+
+  /**
+   * Finds the blobs whose thumbnails were never generated, such as those stored before thumbnails
+   * existed. Blobs which could not be decoded are left out.
+   */
+  @Query(
+      "SELECT b.hash FROM BlobEntity b WHERE COALESCE(b.undecodable, false) = false AND NOT EXISTS (SELECT 1 FROM ThumbnailEntity t WHERE t.blobHash = b.hash) ORDER BY b.hash")
+  List<String> findBlobHashesWithoutThumbnails(Pageable pageable);
+
+  @Modifying
+  @Query(
+      "DELETE FROM ThumbnailEntity t WHERE NOT EXISTS (SELECT 1 FROM BlobEntity b WHERE b.hash = t.blobHash)")
+  int deleteOrphans();
+}
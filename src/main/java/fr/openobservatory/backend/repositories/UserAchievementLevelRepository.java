@@ -0,0 +1,36 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import java.util.Collection;
+
+/** Idempotent writes of the achievement levels of users. */
+public interface UserAchievementLevelRepository {
+
+  /**
+   * Awards an achievement level to a user, unless the user already reached this level or a higher
+   * one. Awarding the same level again, or a lower one, leaves the row untouched.
+   *
+   * @param userId Identifier of the user.
+   * @param achievement Achievement to award.
+   * @param level Level reached by the user.
+   */
+  void raiseLevel(Long userId, Achievement achievement, Level level);
+
+  /**
+   * Awards achievement levels in batches, as {@link #raiseLevel} does for each one of them.
+   *
+   * @param awards Levels reached by users, in any order.
+   */
+  void raiseLevels(Collection<Award> awards);
+
+  /**
+   * Removes the duplicate levels awarded before users and achievements were unique, keeping the
+   * highest one, then adds the unique constraint if the schema update could not add it.
+   */
+  void removeDuplicateLevels();
+
+  // ---
+
+  record Award(Long userId, Achievement achievement, Level level) {}
+}
@@ -0,0 +1,102 @@
+package fr.openobservatory.backend.repositories;
+
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Upserts the achievement levels with a single statement on PostgreSQL, relying on the unique
+ * constraint of the users and achievements, so that concurrent awards never conflict. Levels are
+ * stored as ordinals, and only ever increase. Other databases, such as the embedded one of the
+ * tests, update then insert the missing rows in two statements. The schema update cannot add the
+ * constraint while duplicate rows remain, so they are removed and the constraint added at startup.
+ */
+public class UserAchievementLevelRepositoryImpl implements UserAchievementLevelRepository {
+
+  private static final String UPSERT =
+      "INSERT INTO user_achievement (user_id, achievement, level) VALUES (?, ?, ?) ON CONFLICT (user_id, achievement) DO UPDATE SET level = EXCLUDED.level WHERE user_achievement.level < EXCLUDED.level";
+  private static final String UPDATE =
+      "UPDATE user_achievement SET level = ? WHERE user_id = ? AND achievement = ? AND level < ?";
+  private static final String INSERT =
+      "INSERT INTO user_achievement (user_id, achievement, level) SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM user_achievement WHERE user_id = ? AND achievement = ?)";
+  private static final String DELETE_DUPLICATES =
+      "DELETE FROM user_achievement a WHERE EXISTS (SELECT 1 FROM user_achievement b WHERE b.user_id = a.user_id AND b.achievement = a.achievement AND (b.level > a.level OR (b.level = a.level AND b.id < a.id)))";
+  private static final String COUNT_CONSTRAINTS =
+      "SELECT COUNT(*) FROM pg_constraint WHERE conname = 'user_achievement_user_id_achievement_key'";
+  private static final String ADD_CONSTRAINT =
+      "ALTER TABLE user_achievement ADD CONSTRAINT user_achievement_user_id_achievement_key UNIQUE (user_id, achievement)";
+  private static final int BATCH_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+  private volatile Boolean postgres;
+
+  public UserAchievementLevelRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // ---
+
+  @Override
+  public void raiseLevel(Long userId, Achievement achievement, Level level) {
+    raiseLevels(List.of(new Award(userId, achievement, level)));
+  }
+
+  @Override
+  public void raiseLevels(Collection<Award> awards) {
+    if (awards.isEmpty()) return;
+    if (isPostgres()) {
+      jdbcTemplate.batchUpdate(
+          UPSERT,
+          awards,
+          BATCH_SIZE,
+          (statement, award) -> {
+            statement.setLong(1, award.userId());
+            statement.setInt(2, award.achievement().ordinal());
+            statement.setInt(3, award.level().ordinal());
+          });
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        UPDATE,
+        awards,
+        BATCH_SIZE,
+        (statement, award) -> {
+          statement.setInt(1, award.level().ordinal());
+          statement.setLong(2, award.userId());
+          statement.setInt(3, award.achievement().ordinal());
+          statement.setInt(4, award.level().ordinal());
+        });
+    jdbcTemplate.batchUpdate(
+        INSERT,
+        awards,
+        BATCH_SIZE,
+        (statement, award) -> {
+          statement.setLong(1, award.userId());
+          statement.setInt(2, award.achievement().ordinal());
+          statement.setInt(3, award.level().ordinal());
+          statement.setLong(4, award.userId());
+          statement.setInt(5, award.achievement().ordinal());
+        });
+  }
+
+  @Override
+  public void removeDuplicateLevels() {
+    jdbcTemplate.update(DELETE_DUPLICATES);
+    if (isPostgres() && jdbcTemplate.queryForObject(COUNT_CONSTRAINTS, Long.class) == 0)
+      jdbcTemplate.execute(ADD_CONSTRAINT);
+  }
+
+  // ---
+
+  private boolean isPostgres() {
+    if (postgres == null)
+      postgres =
+          jdbcTemplate.execute(
+              (ConnectionCallback<Boolean>)
+                  c -> c.getMetaData().getDatabaseProductName().equals("PostgreSQL"));
+    return postgres;
+  }
+}
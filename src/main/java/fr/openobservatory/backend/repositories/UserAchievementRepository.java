@@ -8,7 +8,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserAchievementRepository extends JpaRepository<UserAchievementEntity, Long> {
+public interface UserAchievementRepository
+    extends JpaRepository<UserAchievementEntity, Long>, UserAchievementLevelRepository {
   Set<UserAchievementEntity> findAllByUser(UserEntity user);
 
   Optional<UserAchievementEntity> findByUserAndAchievement(
@@ -2,13 +2,17 @@ package fr.openobservatory.backend.repositories;
 
 import fr.openobservatory.backend.entities.UserEntity;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
 import java.util.Set;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository
+    extends JpaRepository<UserEntity, Long>, CachedUserProfileRepository, CachedUserRepository {
 
   boolean existsByUsernameIgnoreCase(String username);
 
@@ -16,5 +20,39 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
       findAllByNotificationEnabledIsTrueAndLatitudeIsNotNullAndLongitudeIsNotNullAndPositionAtIsGreaterThanEqual(
           Instant timestamp);
 
-  Optional<UserEntity> findByUsernameIgnoreCase(String username);
+  List<UserEntity> findAllByAvatarStartingWithAndIdGreaterThanOrderByIdAsc(
+      String prefix, Long id, Pageable pageable);
+
+  List<UserEntity> findAllByOrderByUsernameAsc(Pageable pageable);
+
+  List<UserEntity> findAllByUsernameGreaterThanOrderByUsernameAsc(
+      String username, Pageable pageable);
+
+  @Modifying
+  @Query("UPDATE UserEntity u SET u.karma = u.karma + :delta WHERE u.id = :id")
+  void incrementKarma(Long id, int delta);
+
+  @Modifying
+  @Query(
+      "UPDATE UserEntity u SET u.karma = CAST(COALESCE((SELECT SUM(o.karma) FROM ObservationEntity o WHERE o.author = u), 0) AS Integer)")
+  int reconcileKarma();
+
+  @Modifying
+  @Query(
+      "UPDATE UserEntity u SET u.observationCount = u.observationCount + :delta WHERE u.id = :id")
+  void incrementObservationCount(Long id, int delta);
+
+  @Modifying
+  @Query("UPDATE UserEntity u SET u.voteCount = u.voteCount + :delta WHERE u.id = :id")
+  void incrementVoteCount(Long id, int delta);
+
+  @Modifying
+  @Query(
+      "UPDATE UserEntity u SET u.voteCount = u.voteCount - 1 WHERE u.id IN (SELECT v.user.id FROM ObservationVoteEntity v WHERE v.observation.id = :observationId)")
+  void decrementVoteCountOfVoters(Long observationId);
+
+  @Modifying
+  @Query(
+      "UPDATE UserEntity u SET u.observationCount = CAST((SELECT COUNT(o) FROM ObservationEntity o WHERE o.author = u) AS Integer), u.voteCount = CAST((SELECT COUNT(v) FROM ObservationVoteEntity v WHERE v.user = u) AS Integer)")
+  int reconcileActivity();
 }
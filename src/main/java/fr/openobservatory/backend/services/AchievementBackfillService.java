@@ -0,0 +1,204 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.configuration.AsyncConfiguration;
+import fr.openobservatory.backend.dto.output.AchievementBackfillDto;
+import fr.openobservatory.backend.entities.AchievementBackfillCheckpointEntity;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.exceptions.BackfillInProgressException;
+import fr.openobservatory.backend.repositories.AchievementBackfillCheckpointRepository;
+import fr.openobservatory.backend.repositories.Achievements.Activity;
+import fr.openobservatory.backend.repositories.UserAchievementLevelRepository.Award;
+import fr.openobservatory.backend.repositories.UserAchievementRepository;
+import fr.openobservatory.backend.repositories.UserRepository;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes the achievement levels of all users from their whole history, after a rule changed.
+ * Users are split into ranges of identifiers, backfilled in parallel. The observations and votes of
+ * a range are streamed in identifier order and aggregated into arrays indexed by user, then the
+ * levels reached are upserted in batches. The karma of observations is summed from their votes
+ * rather than read from their counters, which may have drifted. Levels are only ever raised, so a
+ * level awarded from drifted counters is kept. Each range is checkpointed in the transaction
+ * awarding its levels, so that an interrupted run resumes with the ranges left. Checkpoints are
+ * cleared once every range succeeded.
+ */
+@AllArgsConstructor
+@Service
+public class AchievementBackfillService {
+
+  static final int RANGE_SIZE = 10000;
+  private static final int FETCH_SIZE = 1000;
+  private static final String FIND_USER_ID_BOUNDS = "SELECT MIN(id), MAX(id) FROM \"user\"";
+  private static final String FIND_OBSERVATIONS =
+      "SELECT o.author_id, COALESCE(SUM(CASE v.vote WHEN "
+          + VoteType.UPVOTE.ordinal()
+          + " THEN 1 WHEN "
+          + VoteType.DOWNVOTE.ordinal()
+          + " THEN -1 END), 0) FROM observation o LEFT JOIN observation_vote v ON v.observation_id = o.id WHERE o.author_id >= ? AND o.author_id < ? GROUP BY o.id, o.author_id ORDER BY o.id";
+  private static final String FIND_VOTES =
+      "SELECT user_id FROM observation_vote WHERE user_id >= ? AND user_id < ? ORDER BY id";
+
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final AtomicInteger totalRanges = new AtomicInteger();
+  private final AtomicInteger completedRanges = new AtomicInteger();
+  private final AtomicInteger failedRanges = new AtomicInteger();
+  private final AchievementBackfillCheckpointRepository achievementBackfillCheckpointRepository;
+  private final AchievementService achievementService;
+
+  @Qualifier(AsyncConfiguration.BACKFILL_EXECUTOR)
+  private final Executor backfillExecutor;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final UserAchievementRepository userAchievementRepository;
+  private final UserRepository userRepository;
+
+  // ---
+
+  /**
+   * Starts backfilling the ranges of users not checkpointed yet, in the background.
+   *
+   * @return The progress of the run just started.
+   * @throws BackfillInProgressException If a run is still in progress.
+   */
+  public AchievementBackfillDto start() {
+    if (!running.compareAndSet(false, true)) throw new BackfillInProgressException();
+    try {
+      var ranges = findPendingRanges();
+      totalRanges.set(ranges.size());
+      completedRanges.set(0);
+      failedRanges.set(0);
+      var futures =
+          ranges.stream()
+              .map(
+                  rangeStart ->
+                      CompletableFuture.runAsync(() -> backfill(rangeStart), backfillExecutor)
+                          .whenComplete(
+                              (v, e) ->
+                                  (e == null ? completedRanges : failedRanges).incrementAndGet()))
+              .toArray(CompletableFuture[]::new);
+      CompletableFuture.allOf(futures)
+          .whenComplete(
+              (v, e) -> {
+                try {
+                  if (e == null) achievementBackfillCheckpointRepository.deleteAllInBatch();
+                  userRepository.evictAllProfiles();
+                } finally {
+                  running.set(false);
+                }
+              });
+    } catch (RuntimeException e) {
+      running.set(false);
+      throw e;
+    }
+    return getProgress();
+  }
+
+  public AchievementBackfillDto getProgress() {
+    return AchievementBackfillDto.builder()
+        .running(running.get())
+        .totalRanges(totalRanges.get())
+        .completedRanges(completedRanges.get())
+        .failedRanges(failedRanges.get())
+        .build();
+  }
+
+  /**
+   * Recomputes the achievement levels of a range of users, and checkpoints the range.
+   *
+   * @param rangeStart First identifier of the range, a multiple of the range size.
+   */
+  public void backfill(long rangeStart) {
+    var rangeEnd = rangeStart + RANGE_SIZE;
+    var observationCounts = new int[RANGE_SIZE];
+    var voteCounts = new int[RANGE_SIZE];
+    var karmas = new int[RANGE_SIZE];
+    var bestObservationKarmas = new int[RANGE_SIZE];
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          stream(
+              FIND_OBSERVATIONS,
+              rangeStart,
+              rangeEnd,
+              rs -> {
+                var i = (int) (rs.getLong(1) - rangeStart);
+                var karma = rs.getInt(2);
+                observationCounts[i]++;
+                karmas[i] += karma;
+                bestObservationKarmas[i] = Math.max(bestObservationKarmas[i], karma);
+              });
+          stream(
+              FIND_VOTES,
+              rangeStart,
+              rangeEnd,
+              rs -> voteCounts[(int) (rs.getLong(1) - rangeStart)]++);
+          var awards = new ArrayList<Award>();
+          for (var i = 0; i < RANGE_SIZE; i++) {
+            if (observationCounts[i] == 0 && voteCounts[i] == 0) continue;
+            var activity =
+                new Activity(
+                    observationCounts[i], voteCounts[i], karmas[i], bestObservationKarmas[i]);
+            for (var rule : achievementService.getAchievements()) {
+              var level = rule.evaluate(activity);
+              if (level != null)
+                awards.add(new Award(rangeStart + i, rule.getAchievement(), level));
+            }
+          }
+          userAchievementRepository.raiseLevels(awards);
+          achievementBackfillCheckpointRepository.save(
+              AchievementBackfillCheckpointEntity.builder()
+                  .rangeStart(rangeStart)
+                  .rangeEnd(rangeEnd)
+                  .build());
+        });
+  }
+
+  // ---
+
+  private List<Long> findPendingRanges() {
+    var bounds =
+        jdbcTemplate.query(
+            FIND_USER_ID_BOUNDS,
+            rs -> {
+              rs.next();
+              return rs.getObject(1) == null ? null : new long[] {rs.getLong(1), rs.getLong(2)};
+            });
+    if (bounds == null) return List.of();
+    var checkpoints = achievementBackfillCheckpointRepository.findAllRangeStarts();
+    var ranges = new ArrayList<Long>();
+    for (var rangeStart = bounds[0] / RANGE_SIZE * RANGE_SIZE;
+        rangeStart <= bounds[1];
+        rangeStart += RANGE_SIZE) if (!checkpoints.contains(rangeStart)) ranges.add(rangeStart);
+    return ranges;
+  }
+
+  /**
+   * Streams the rows of a range with a forward-only cursor, fetching a bounded number of rows at a
+   * time rather than the whole result.
+   */
+  private void stream(String sql, long rangeStart, long rangeEnd, RowCallbackHandler handler) {
+    jdbcTemplate.query(
+        connection -> {
+          var statement =
+              connection.prepareStatement(
+                  sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          statement.setFetchSize(FETCH_SIZE);
+          statement.setLong(1, rangeStart);
+          statement.setLong(2, rangeEnd);
+          return statement;
+        },
+        handler);
+  }
+}
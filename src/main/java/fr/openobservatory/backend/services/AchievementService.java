@@ -1,75 +1,91 @@
 package fr.openobservatory.backend.services;
 
 import fr.openobservatory.backend.achievements.*;
-import fr.openobservatory.backend.entities.ObservationEntity;
-import fr.openobservatory.backend.entities.ObservationVoteEntity;
-import fr.openobservatory.backend.entities.UserAchievementEntity;
+import fr.openobservatory.backend.configuration.AsyncConfiguration;
+import fr.openobservatory.backend.events.ObservationCreatedEvent;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
 import fr.openobservatory.backend.repositories.*;
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+import java.util.List;
 import java.util.Objects;
-import java.util.Set;
+import java.util.stream.Stream;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+/**
+ * Awards achievements from the domain events of observations. Events are handled asynchronously
+ * once the transaction publishing them is committed, and rules are evaluated from the counters
+ * maintained on users and observations rather than from their collections. The author and voter are
+ * loaded lazily, so that the rules unaffected by an event cost nothing, once checked to still exist
+ * since the event was published. Levels are computed from the current counters and only ever
+ * raised, so that events may be handled in any order, several times and in parallel.
+ */
 @AllArgsConstructor
 @Service
+@Timed("service.method")
 public class AchievementService {
 
+  private final ObservationRepository observationRepository;
   private final UserAchievementRepository userAchievementRepository;
+  private final UserRepository userRepository;
 
-  private final Set<Achievements> achievements =
-      Set.of(
+  /** Rules awarding the achievements, also evaluated when backfilling the levels. */
+  @Getter
+  private final List<Achievements> achievements =
+      List.of(
           new ObserverAchievement(),
           new JudgeAchievement(),
           new FamousAchievement(),
           new HubbleAchievement(),
           new JamesWebbAchievement());
 
-  public void checkForAchievements(ObservationEntity observation) {
-    checkObservationAchievements(observation);
+  // ---
+
+  @Async(AsyncConfiguration.ACHIEVEMENT_EXECUTOR)
+  @TransactionalEventListener
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void onObservationCreated(ObservationCreatedEvent event) {
+    if (!userRepository.existsById(event.authorId())) return;
+    var author = userRepository.getReferenceById(event.authorId());
+    award(achievements.stream().map(a -> a.onObservationCreated(author)));
   }
 
-  public void checkForAchievements(ObservationVoteEntity vote) {
-    checkVoteAchievements(vote);
+  @Async(AsyncConfiguration.ACHIEVEMENT_EXECUTOR)
+  @TransactionalEventListener
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void onObservationVoteChanged(ObservationVoteChangedEvent event) {
+    if (!observationRepository.existsById(event.observationId())
+        || !userRepository.existsById(event.voterId())) return;
+    var observation = observationRepository.getReferenceById(event.observationId());
+    var voter = userRepository.getReferenceById(event.voterId());
+    award(achievements.stream().map(a -> a.onObservationVoteChanged(event, observation, voter)));
   }
 
-  private void checkObservationAchievements(ObservationEntity observation) {
-    var request =
-        achievements.stream().map(a -> a.onObservationUpdate(observation)).filter(Objects::nonNull);
-    request.forEach(
-        a -> {
-          if (a.level() != null) {
-            UserAchievementEntity achievement;
-            achievement =
-                userAchievementRepository
-                    .findByUserAndAchievement(observation.getAuthor(), a.achievement())
-                    .orElse(
-                        UserAchievementEntity.builder()
-                            .achievement(a.achievement())
-                            .user(a.user())
-                            .build());
-            achievement.setLevel(a.level());
-            userAchievementRepository.save(achievement);
-          }
-        });
+  /**
+   * Removes the duplicate levels, so that the upserts of the levels can rely on their uniqueness.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void removeDuplicateLevels() {
+    userAchievementRepository.removeDuplicateLevels();
   }
 
-  private void checkVoteAchievements(ObservationVoteEntity vote) {
-    var request = achievements.stream().map(a -> a.onVoteSubmit(vote)).filter(Objects::nonNull);
-    request.forEach(
-        a -> {
-          if (a.level() != null) {
-            UserAchievementEntity achievement;
-            achievement =
-                userAchievementRepository
-                    .findByUserAndAchievement(a.user(), a.achievement())
-                    .orElse(
-                        UserAchievementEntity.builder()
-                            .achievement(a.achievement())
-                            .user(a.user())
-                            .build());
-            achievement.setLevel(a.level());
-            userAchievementRepository.save(achievement);
-          }
-        });
+  // ---
+
+  private void award(Stream<Achievements.Request> requests) {
+    requests
+        .filter(Objects::nonNull)
+        .filter(r -> r.level() != null)
+        .forEach(
+            r -> {
+              userAchievementRepository.raiseLevel(r.user().getId(), r.achievement(), r.level());
+              userRepository.evictProfile(r.user().getId());
+            });
   }
 }
@@ -0,0 +1,242 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.entities.BlobEntity;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.exceptions.InvalidImageException;
+import fr.openobservatory.backend.exceptions.UnknownBlobException;
+import fr.openobservatory.backend.images.Thumbnails;
+import fr.openobservatory.backend.repositories.BlobRepository;
+import fr.openobservatory.backend.repositories.CelestialBodyRepository;
+import fr.openobservatory.backend.repositories.ThumbnailRepository;
+import fr.openobservatory.backend.repositories.UserRepository;
+import jakarta.transaction.Transactional;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores the images of the users and celestial bodies apart from their rows. Images are identified
+ * by the SHA-256 hash of their content, which entities keep as a reference, so that identical
+ * images are stored once and their URL never has to be invalidated. Images are decoded once when
+ * stored to generate the thumbnails shown by the lists, the profiles and the map. Only raster
+ * formats are accepted, since blobs are served from the origin of the application and formats such
+ * as SVG may embed scripts.
+ */
+@AllArgsConstructor
+@Service
+public class BlobService {
+
+  private static final Pattern DATA_URL_HEADER =
+      Pattern.compile("^data:(image/(?:png|jpeg|gif|webp))(?:;[\\w-]+=[\\w.-]+)*;base64$");
+  private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+  private static final String INLINE_IMAGE_PREFIX = "data:";
+  private static final String CLEANUP_CRON = "0 0 5 * * *";
+  private static final Duration CLEANUP_GRACE_PERIOD = Duration.ofDays(1);
+  private static final int BATCH_SIZE = 10;
+
+  private final BlobProperties properties;
+  private final BlobRepository blobRepository;
+  private final CelestialBodyRepository celestialBodyRepository;
+  private final ThumbnailRepository thumbnailRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final UserRepository userRepository;
+
+  // ---
+
+  /**
+   * Stores an image sent by a client, along with its thumbnails. Images are sent as base64 data
+   * URLs, unless the client sends back the URL of an image or thumbnail it was given, which is then
+   * kept as is.
+   *
+   * @param image Data URL of the image, URL of a stored image, or null.
+   * @return The hash of the stored image, or null when no image is given.
+   */
+  public String store(String image) {
+    if (image == null) return null;
+    if (image.startsWith(properties.urlPrefix())) {
+      var hash = image.substring(properties.urlPrefix().length()).replaceFirst("\\?.*$", "");
+      if (!HASH.matcher(hash).matches() || !blobRepository.existsById(hash))
+        throw new InvalidImageException();
+      return hash;
+    }
+    var separator = image.indexOf(',');
+    if (separator < 0) throw new InvalidImageException();
+    var header = DATA_URL_HEADER.matcher(image.substring(0, separator));
+    if (!header.matches()) throw new InvalidImageException();
+    byte[] content;
+    try {
+      content = Base64.getDecoder().decode(image.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidImageException();
+    }
+    if (content.length == 0 || content.length > properties.maxSize().toBytes())
+      throw new InvalidImageException();
+    var hash = hash(content);
+    if (!blobRepository.existsById(hash)) {
+      var thumbnails = createThumbnails(hash, content);
+      blobRepository.save(
+          BlobEntity.builder()
+              .hash(hash)
+              .mediaType(header.group(1))
+              .content(content)
+              .undecodable(thumbnails.isEmpty())
+              .build());
+      thumbnailRepository.saveAll(thumbnails);
+    }
+    return hash;
+  }
+
+  public BlobEntity findByHash(String hash) {
+    if (!HASH.matcher(hash).matches()) throw new UnknownBlobException();
+    return blobRepository.findById(hash).orElseThrow(UnknownBlobException::new);
+  }
+
+  /**
+   * Finds a thumbnail of an image blob.
+   *
+   * @return The thumbnail, or nothing when the image could not be decoded.
+   */
+  public Optional<ThumbnailEntity> findThumbnail(String hash, ThumbnailEntity.Size size) {
+    return thumbnailRepository.findByBlobHashAndSize(hash, size);
+  }
+
+  /**
+   * Moves the images stored inline as data URLs, before blobs existed, to the blob store, one
+   * transaction per batch of entities. Entities are walked in the order of their identifier, so
+   * that the celestial bodies keeping an image which cannot be stored are not loaded again.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void moveInlineImages() {
+    moveInlineImages(
+        (id, page) ->
+            userRepository.findAllByAvatarStartingWithAndIdGreaterThanOrderByIdAsc(
+                INLINE_IMAGE_PREFIX, id, page),
+        UserEntity::getId,
+        user -> {
+          try {
+            user.setAvatar(store(user.getAvatar()));
+          } catch (InvalidImageException e) {
+            user.setAvatar(null);
+          }
+        });
+    moveInlineImages(
+        (id, page) ->
+            celestialBodyRepository.findAllByImageStartingWithAndIdGreaterThanOrderByIdAsc(
+                INLINE_IMAGE_PREFIX, id, page),
+        CelestialBodyEntity::getId,
+        celestialBody -> {
+          try {
+            celestialBody.setImage(store(celestialBody.getImage()));
+          } catch (InvalidImageException ignored) {
+            // The image is required, keep it until an administrator replaces it
+          }
+        });
+  }
+
+  /**
+   * Generates the thumbnails of the images stored before thumbnails existed, one transaction per
+   * batch of images. Images which cannot be decoded are marked as such, so that they are only ever
+   * decoded once.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void generateMissingThumbnails() {
+    List<String> hashes;
+    do {
+      hashes =
+          transactionTemplate.execute(
+              status -> {
+                var batch =
+                    thumbnailRepository.findBlobHashesWithoutThumbnails(
+                        Pageable.ofSize(BATCH_SIZE));
+                for (var hash : batch)
+                  blobRepository
+                      .findById(hash)
+                      .ifPresent(
+                          b -> {
+                            var thumbnails = createThumbnails(hash, b.getContent());
+                            if (thumbnails.isEmpty()) blobRepository.markUndecodable(hash);
+                            thumbnailRepository.saveAll(thumbnails);
+                          });
+                return batch;
+              });
+    } while (hashes != null && hashes.size() == BATCH_SIZE);
+  }
+
+  @Scheduled(cron = CLEANUP_CRON)
+  @Transactional
+  public void deleteUnreferenced() {
+    blobRepository.deleteUnreferenced(Instant.now().minus(CLEANUP_GRACE_PERIOD));
+    thumbnailRepository.deleteOrphans();
+  }
+
+  // ---
+
+  private <T> void moveInlineImages(
+      BiFunction<Long, Pageable, List<T>> findAfter, Function<T, Long> id, Consumer<T> move) {
+    var lastId = 0L;
+    List<T> entities;
+    do {
+      var after = lastId;
+      entities =
+          transactionTemplate.execute(
+              status -> {
+                var batch = findAfter.apply(after, Pageable.ofSize(BATCH_SIZE));
+                batch.forEach(move);
+                return batch;
+              });
+      if (entities == null || entities.isEmpty()) return;
+      lastId = id.apply(entities.get(entities.size() - 1));
+    } while (entities.size() == BATCH_SIZE);
+  }
+
+  /**
+   * @return The thumbnails of an image, or nothing when it could not be decoded.
+   */
+  private List<ThumbnailEntity> createThumbnails(String hash, byte[] content) {
+    var image = Thumbnails.decode(content);
+    if (image.isEmpty()) return List.of();
+    // Sizes go from the largest to the smallest, so each thumbnail is scaled from the previous one
+    var thumbnails = new ArrayList<ThumbnailEntity>();
+    var thumbnail = image.get();
+    for (var size : ThumbnailEntity.Size.values()) {
+      thumbnail = Thumbnails.scaleDown(thumbnail, size.getDimension());
+      var encoded = Thumbnails.encode(thumbnail);
+      thumbnails.add(
+          ThumbnailEntity.builder()
+              .blobHash(hash)
+              .size(size)
+              .mediaType(encoded.mediaType())
+              .content(encoded.content())
+              .build());
+    }
+    return thumbnails;
+  }
+
+  private static String hash(byte[] content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
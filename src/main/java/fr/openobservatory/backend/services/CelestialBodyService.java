@@ -7,7 +7,10 @@ import fr.openobservatory.backend.dto.output.CelestialBodyDto;
 import fr.openobservatory.backend.dto.output.SearchResultsDto;
 import fr.openobservatory.backend.entities.CelestialBodyEntity;
 import fr.openobservatory.backend.exceptions.*;
+import fr.openobservatory.backend.mappers.CelestialBodyMapper;
 import fr.openobservatory.backend.repositories.CelestialBodyRepository;
+import fr.openobservatory.backend.repositories.ObservationRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
@@ -17,9 +20,13 @@ import org.springframework.stereotype.Service;
 
 @AllArgsConstructor
 @Service
+@Timed("service.method")
 public class CelestialBodyService {
 
+  private final BlobService blobService;
+  private final CelestialBodyMapper celestialBodyMapper;
   private final CelestialBodyRepository celestialBodyRepository;
+  private final ObservationRepository observationRepository;
   private final ModelMapper modelMapper;
   private final Validator validator;
 
@@ -31,18 +38,20 @@ public class CelestialBodyService {
     if (celestialBodyRepository.existsCelestialBodyByNameIgnoreCase(dto.getName()))
       throw new CelestialBodyNameAlreadyUsedException();
     var celestialBody = modelMapper.map(dto, CelestialBodyEntity.class);
-    return modelMapper.map(celestialBodyRepository.save(celestialBody), CelestialBodyDto.class);
+    celestialBody.setImage(blobService.store(dto.getImage()));
+    return celestialBodyMapper.toDto(celestialBodyRepository.save(celestialBody));
   }
 
   public void delete(Long id) {
     if (!celestialBodyRepository.existsById(id)) throw new UnknownCelestialBodyException();
     celestialBodyRepository.deleteById(id);
+    celestialBodyRepository.evictCached(id);
   }
 
   public CelestialBodyDto findById(Long id) {
     return celestialBodyRepository
         .findById(id)
-        .map(o -> modelMapper.map(o, CelestialBodyDto.class))
+        .map(celestialBodyMapper::toDto)
         .orElseThrow(UnknownCelestialBodyException::new);
   }
 
@@ -52,7 +61,7 @@ public class CelestialBodyService {
     return SearchResultsDto.from(
         celestialBodyRepository
             .findAll(Pageable.ofSize(dto.getItemsPerPage()).withPage(dto.getPage()))
-            .map(o -> modelMapper.map(o, CelestialBodyDto.class)));
+            .map(celestialBodyMapper::toDto));
   }
 
   @Transactional
@@ -70,10 +79,12 @@ public class CelestialBodyService {
     }
     if (dto.getValidityTime().isPresent()) {
       celestialBody.setValidityTime(dto.getValidityTime().get());
+      observationRepository.updateExpiresAt(id, celestialBody.getValidityTime());
     }
     if (dto.getImage().isPresent()) {
-      celestialBody.setImage(dto.getImage().get());
+      celestialBody.setImage(blobService.store(dto.getImage().get()));
     }
-    return modelMapper.map(celestialBodyRepository.save(celestialBody), CelestialBodyDto.class);
+    celestialBodyRepository.evictCached(id);
+    return celestialBodyMapper.toDto(celestialBodyRepository.save(celestialBody));
   }
 }
@@ -0,0 +1,38 @@
+package fr.openobservatory.backend.services;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import fr.openobservatory.backend.exceptions.InvalidCursorException;
+import fr.openobservatory.backend.repositories.StreamingObservationRepository.Position;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/** Position of an observation in the feed, exchanged with clients as an opaque string. */
+record FeedCursor(Instant timestamp, Long id) {
+
+  static FeedCursor of(Position position) {
+    return new FeedCursor(position.timestamp(), position.id());
+  }
+
+  String encode() {
+    var value = timestamp + "/" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+  }
+
+  Position toPosition() {
+    return new Position(timestamp, id);
+  }
+
+  static FeedCursor decode(String cursor) {
+    try {
+      var value = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+      var separator = value.indexOf('/');
+      return new FeedCursor(
+          Instant.parse(value.substring(0, separator)),
+          Long.parseLong(value.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+      throw new InvalidCursorException();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package fr.openobservatory.backend.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Detects whether the database supports PostGIS and, if so, maintains a geography column on the
+ * observations along with its GiST index, so that nearby observations can be looked up by their
+ * true distance. Without PostGIS, lookups fall back to the latitude and longitude box.
+ */
+@Service
+@Slf4j
+public class GeospatialService {
+
+  private static final String CREATE_EXTENSION = "CREATE EXTENSION IF NOT EXISTS postgis";
+  private static final String CREATE_LOCATION_COLUMN =
+      "ALTER TABLE observation ADD COLUMN IF NOT EXISTS location geography(Point, 4326) GENERATED ALWAYS AS (CAST(ST_SetSRID(ST_MakePoint(longitude, latitude), 4326) AS geography)) STORED";
+  private static final String CREATE_LOCATION_INDEX =
+      "CREATE INDEX IF NOT EXISTS observation_location_idx ON observation USING GIST (location)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private volatile boolean enabled;
+
+  public GeospatialService(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // ---
+
+  /**
+   * Sets up the geography column and its index. The column is generated from the latitude and
+   * longitude, so it never has to be written by the application.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    try {
+      jdbcTemplate.execute(CREATE_EXTENSION);
+      jdbcTemplate.execute(CREATE_LOCATION_COLUMN);
+      jdbcTemplate.execute(CREATE_LOCATION_INDEX);
+      enabled = true;
+    } catch (DataAccessException e) {
+      log.warn("PostGIS is unavailable, nearby observations are looked up within a box", e);
+      enabled = false;
+    }
+  }
+
+  /**
+   * @return Whether observations can be looked up with {@code ST_DWithin}.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+}
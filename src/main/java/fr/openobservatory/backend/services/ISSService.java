@@ -1,61 +1,224 @@
 package fr.openobservatory.backend.services;
 
+import fr.openobservatory.backend.configuration.ISSProperties;
 import fr.openobservatory.backend.dto.output.ISSPositionDto;
 import fr.openobservatory.backend.exceptions.UnavailableISSPositionsException;
+import fr.openobservatory.backend.exceptions.UnavailableSatellitePositionException;
+import io.micrometer.core.annotation.Timed;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+/**
+ * Keeps a window of ISS positions computed in the background, so that requests never wait on the
+ * upstream API. Positions are propagated locally while recent orbital elements of the ISS are
+ * known, and otherwise fetched from the upstream API and interpolated along the great circle
+ * joining the samples. The current position is streamed to subscribed clients.
+ */
 @AllArgsConstructor
 @EnableScheduling
 @Service
+@Timed("service.method")
 public class ISSService {
 
-  private static final String API_URL =
-      "https://api.wheretheiss.at/v1/satellites/{1}/positions?timestamps={2}&units={3}";
-  private static final String CACHING_KEY = "iss-positions";
-  private static final int CACHING_TTL = 30 * 1000;
-  private static final int NORAD_ISS_ID = 25544;
+  private static final String API_PATH = "/v1/satellites/{1}/positions?timestamps={2}&units={3}";
+  static final int NORAD_ISS_ID = 25544;
   private static final List<Integer> INSTANT_DELTAS =
       List.of(-40, -30, -20, -10, 0, 10, 20, 30, 40, 50);
   private static final String UNITS = "kilometers";
+  private static final int REFRESH_DELAY = 5 * 60 * 1000;
+  private static final int STREAM_DELAY = 5 * 1000;
+  private static final long EMITTER_TIMEOUT = 30 * 60 * 1000;
 
-  private RestTemplate restTemplate;
+  private final ISSProperties properties;
+  private final RestTemplate restTemplate;
+  private final OrbitService orbitService;
+  private final AtomicReference<List<ISSPositionDto>> samples = new AtomicReference<>(List.of());
+  private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
 
   // ---
 
   /**
-   * Computes positions of the ISS around the time the request is done. For a request done at a time
-   * H, positions from H-9 to H+10 will be returned. A margin of 5 minutes between the returned
-   * "current" timestamp and the actual timestamp is to be expected due to caching mechanisms.
+   * Returns the positions of the ISS from 40 minutes before to 50 minutes after the last refresh,
+   * along with its current position, flagged as such.
    */
-  @Cacheable(CACHING_KEY)
   public List<ISSPositionDto> findISSPositions() {
+    var window = samples.get();
+    var current = findCurrentPosition(window, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    if (current == null) throw new UnavailableISSPositionsException();
+    var positions = new ArrayList<ISSPositionDto>(window.size() + 1);
+    window.stream()
+        .filter(p -> p.getTimestamp().isBefore(current.getTimestamp()))
+        .forEach(positions::add);
+    positions.add(current);
+    window.stream()
+        .filter(p -> p.getTimestamp().isAfter(current.getTimestamp()))
+        .forEach(positions::add);
+    return positions;
+  }
+
+  /**
+   * Subscribes a client to the ISS positions. The client first receives a {@code positions} event
+   * with the whole window, then a {@code position} event with the current position every few
+   * seconds and a new {@code positions} event whenever the window is refreshed.
+   */
+  public SseEmitter subscribe() {
+    var emitter = new SseEmitter(EMITTER_TIMEOUT);
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(e -> emitters.remove(emitter));
+    emitters.add(emitter);
+    if (!samples.get().isEmpty()) send(emitter, "positions", findISSPositions());
+    return emitter;
+  }
+
+  /**
+   * Computes a new window of positions around the current time. The previous window keeps being
+   * served if the upstream API cannot be reached, as it covers the next 50 minutes.
+   */
+  @Scheduled(fixedDelay = REFRESH_DELAY)
+  public void refresh() {
     var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    var window = orbitService.isAvailable(NORAD_ISS_ID, now) ? propagate(now) : fetch(now);
+    if (window == null) return;
+    samples.set(window);
+    broadcast("positions", findISSPositions());
+  }
+
+  @Scheduled(fixedDelay = STREAM_DELAY)
+  public void streamCurrentPosition() {
+    if (emitters.isEmpty()) return;
+    var current = findCurrentPosition(samples.get(), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    if (current != null) broadcast("position", current);
+  }
+
+  // ---
+
+  private List<ISSPositionDto> propagate(Instant now) {
+    try {
+      return INSTANT_DELTAS.stream()
+          .map(d -> locate(now.plus(d, ChronoUnit.MINUTES), false))
+          .toList();
+    } catch (UnavailableSatellitePositionException e) {
+      return fetch(now);
+    }
+  }
+
+  private List<ISSPositionDto> fetch(Instant now) {
     var timestamps =
         INSTANT_DELTAS.stream()
             .map(d -> String.valueOf(now.plus(d, ChronoUnit.MINUTES).getEpochSecond()))
             .collect(Collectors.joining(","));
-    var response =
-        restTemplate.getForEntity(API_URL, ISSPositionDto[].class, NORAD_ISS_ID, timestamps, UNITS);
-    if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null)
-      throw new UnavailableISSPositionsException();
-    var positions = Arrays.asList(response.getBody());
-    positions.stream().filter(p -> p.getTimestamp().equals(now)).forEach(p -> p.setCurrent(true));
-    return positions;
+    try {
+      var response =
+          restTemplate.getForEntity(
+              properties.apiUrl() + API_PATH,
+              ISSPositionDto[].class,
+              NORAD_ISS_ID,
+              timestamps,
+              UNITS);
+      if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) return null;
+      return Arrays.stream(response.getBody())
+          .sorted(Comparator.comparing(ISSPositionDto::getTimestamp))
+          .toList();
+    } catch (RestClientException e) {
+      return null;
+    }
+  }
+
+  private ISSPositionDto findCurrentPosition(List<ISSPositionDto> window, Instant now) {
+    if (orbitService.isAvailable(NORAD_ISS_ID, now)) {
+      try {
+        return locate(now, true);
+      } catch (UnavailableSatellitePositionException e) {
+        // Fall back to the samples
+      }
+    }
+    return interpolate(window, now);
+  }
+
+  private ISSPositionDto locate(Instant at, boolean isCurrent) {
+    var satellitePosition = orbitService.findPosition(NORAD_ISS_ID, at);
+    var position = new ISSPositionDto();
+    position.setCurrent(isCurrent);
+    position.setLatitude(satellitePosition.getLatitude());
+    position.setLongitude(satellitePosition.getLongitude());
+    position.setTimestamp(at);
+    return position;
+  }
+
+  private void broadcast(String name, Object data) {
+    emitters.forEach(emitter -> send(emitter, name, data));
   }
 
-  @CacheEvict(allEntries = true, value = CACHING_KEY)
-  @Scheduled(fixedDelay = CACHING_TTL)
-  public void clearISSPositionsCache() {}
+  private void send(SseEmitter emitter, String name, Object data) {
+    try {
+      emitter.send(SseEmitter.event().name(name).data(data));
+    } catch (IOException | IllegalStateException e) {
+      emitters.remove(emitter);
+      emitter.completeWithError(e);
+    }
+  }
+
+  /**
+   * Interpolates the position of the ISS at the given instant from the samples surrounding it,
+   * following the great circle joining them so that the antimeridian and the poles are crossed
+   * correctly.
+   *
+   * @return The interpolated position, or null if the instant is not covered by the samples.
+   */
+  static ISSPositionDto interpolate(List<ISSPositionDto> samples, Instant at) {
+    for (int i = 1; i < samples.size(); i++) {
+      var from = samples.get(i - 1);
+      var to = samples.get(i);
+      if (at.isBefore(from.getTimestamp()) || at.isAfter(to.getTimestamp())) continue;
+      var span = Duration.between(from.getTimestamp(), to.getTimestamp()).toMillis();
+      var fraction =
+          span == 0 ? 0 : (double) Duration.between(from.getTimestamp(), at).toMillis() / span;
+      var a = toVector(from.getLatitude(), from.getLongitude());
+      var b = toVector(to.getLatitude(), to.getLongitude());
+      var angle = Math.acos(Math.max(-1, Math.min(1, a[0] * b[0] + a[1] * b[1] + a[2] * b[2])));
+      double wa = 1 - fraction;
+      double wb = fraction;
+      if (angle > 1e-9) {
+        wa = Math.sin((1 - fraction) * angle) / Math.sin(angle);
+        wb = Math.sin(fraction * angle) / Math.sin(angle);
+      }
+      var x = wa * a[0] + wb * b[0];
+      var y = wa * a[1] + wb * b[1];
+      var z = wa * a[2] + wb * b[2];
+      var position = new ISSPositionDto();
+      position.setCurrent(true);
+      position.setLatitude(Math.toDegrees(Math.atan2(z, Math.hypot(x, y))));
+      position.setLongitude(Math.toDegrees(Math.atan2(y, x)));
+      position.setTimestamp(at);
+      return position;
+    }
+    return null;
+  }
+
+  private static double[] toVector(double latitude, double longitude) {
+    var lat = Math.toRadians(latitude);
+    var lng = Math.toRadians(longitude);
+    return new double[] {
+      Math.cos(lat) * Math.cos(lng), Math.cos(lat) * Math.sin(lng), Math.sin(lat)
+    };
+  }
 }
@@ -0,0 +1,257 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.UserRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory grid index of the users to notify about nearby observations. Each user is registered in
+ * every cell overlapped by its notification area, so that looking up the users covering a point
+ * only involves the users registered in the cell of that point. Changes made within a transaction
+ * are only indexed once it commits.
+ */
+@AllArgsConstructor
+@Service
+public class NotifiableUserIndexService {
+
+  static final double CELL_SIZE = 0.5;
+  private static final int LATITUDE_CELLS = (int) Math.ceil(180 / CELL_SIZE);
+  private static final int LONGITUDE_CELLS = (int) Math.ceil(360 / CELL_SIZE);
+  private static final int POSITION_VALIDITY_DAYS = 7;
+  private static final int EVICTION_DELAY = 60 * 60 * 1000;
+
+  private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+  private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+  private final UserRepository userRepository;
+
+  // ---
+
+  /** Loads every notifiable user from the database, replacing the current content of the index. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    cells.clear();
+    entries.clear();
+    userRepository
+        .findAllByNotificationEnabledIsTrueAndLatitudeIsNotNullAndLongitudeIsNotNullAndPositionAtIsGreaterThanEqual(
+            positionThreshold())
+        .forEach(this::update);
+  }
+
+  /**
+   * Indexes the given user at its last known position, or removes it from the index when it can no
+   * longer be notified. A more recent position already in the index is kept, as the user may have
+   * been loaded before its last position was written.
+   *
+   * @param user User whose position or notification settings changed.
+   */
+  public void update(UserEntity user) {
+    var latitude = user.getLatitude();
+    var longitude = user.getLongitude();
+    var positionAt = user.getPositionAt();
+    afterCommit(() -> index(user, latitude, longitude, positionAt));
+  }
+
+  /**
+   * Indexes the given user at a new position, which may not be written to the user yet.
+   *
+   * @param user User whose position changed.
+   * @param latitude Latitude of the user.
+   * @param longitude Longitude of the user.
+   * @param positionAt Instant the position was reported.
+   */
+  public void updatePosition(
+      UserEntity user, double latitude, double longitude, Instant positionAt) {
+    index(user, latitude, longitude, positionAt);
+  }
+
+  /**
+   * Removes a user from the index.
+   *
+   * @param userId Identifier of the user to remove.
+   */
+  public void remove(Long userId) {
+    afterCommit(() -> unindex(userId));
+  }
+
+  /**
+   * Finds the users whose notification area covers the given point and whose position is recent
+   * enough to be trusted.
+   *
+   * @param latitude Latitude of the point.
+   * @param longitude Longitude of the point.
+   * @return The matching index entries.
+   */
+  public List<Entry> findUsersCovering(double latitude, double longitude) {
+    var ids = cells.get(cellKey(latitudeCell(latitude), longitudeCell(longitude)));
+    if (ids == null) return List.of();
+    var threshold = positionThreshold();
+    var users = new ArrayList<Entry>();
+    for (var id : ids) {
+      var entry = entries.get(id);
+      if (entry != null
+          && entry.covers(latitude, longitude)
+          && !entry.positionAt().isBefore(threshold)) users.add(entry);
+    }
+    return users;
+  }
+
+  /** Returns every user of the index whose position is recent enough to be trusted. */
+  public List<Entry> findAll() {
+    var threshold = positionThreshold();
+    return entries.values().stream().filter(e -> !e.positionAt().isBefore(threshold)).toList();
+  }
+
+  /** Drops users whose last position is too old for them to be notified anymore. */
+  @Scheduled(fixedDelay = EVICTION_DELAY)
+  public void evictOutdated() {
+    var threshold = positionThreshold();
+    entries.values().stream()
+        .filter(e -> e.positionAt().isBefore(threshold))
+        .map(Entry::id)
+        .toList()
+        .forEach(this::unindex);
+  }
+
+  /** Returns the key of the cell containing the given point. */
+  static long cellOf(double latitude, double longitude) {
+    return cellKey(latitudeCell(latitude), longitudeCell(longitude));
+  }
+
+  /**
+   * Returns the center of a cell.
+   *
+   * @return The latitude and longitude of the center.
+   */
+  static double[] cellCenter(long key) {
+    return new double[] {
+      (key / LONGITUDE_CELLS + 0.5) * CELL_SIZE - 90,
+      (key % LONGITUDE_CELLS + 0.5) * CELL_SIZE - 180
+    };
+  }
+
+  // ---
+
+  private synchronized void index(
+      UserEntity user, Double latitude, Double longitude, Instant positionAt) {
+    var previous = entries.get(user.getId());
+    if (previous != null && (positionAt == null || previous.positionAt().isAfter(positionAt))) {
+      latitude = previous.latitude();
+      longitude = previous.longitude();
+      positionAt = previous.positionAt();
+    }
+    unindex(user.getId());
+    if (!user.isNotificationEnabled()
+        || latitude == null
+        || longitude == null
+        || positionAt == null) return;
+    var topLeft =
+        ObservationService.getPointCorner(latitude, longitude, -user.getNotificationRadius());
+    var bottomRight =
+        ObservationService.getPointCorner(latitude, longitude, user.getNotificationRadius());
+    var entry =
+        new Entry(
+            user.getId(),
+            user.getUsername(),
+            latitude,
+            longitude,
+            topLeft[0],
+            bottomRight[0],
+            topLeft[1],
+            bottomRight[1],
+            positionAt);
+    entries.put(entry.id(), entry);
+    forEachCell(
+        entry,
+        key -> cells.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(entry.id()));
+  }
+
+  private synchronized void unindex(Long userId) {
+    var entry = entries.remove(userId);
+    if (entry == null) return;
+    forEachCell(
+        entry,
+        key ->
+            cells.computeIfPresent(
+                key,
+                (k, ids) -> {
+                  ids.remove(userId);
+                  return ids.isEmpty() ? null : ids;
+                }));
+  }
+
+  /** Applies a change to the index once the current transaction, if any, commits. */
+  private static void afterCommit(Runnable change) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      change.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            change.run();
+          }
+        });
+  }
+
+  private void forEachCell(Entry entry, LongConsumer action) {
+    int fromLat = latitudeCell(entry.minLatitude());
+    int toLat = latitudeCell(entry.maxLatitude());
+    int fromLng = longitudeCell(entry.minLongitude());
+    int toLng = longitudeCell(entry.maxLongitude());
+    for (int lat = fromLat; lat <= toLat; lat++)
+      for (int lng = fromLng; lng <= toLng; lng++) action.accept(cellKey(lat, lng));
+  }
+
+  private static long cellKey(int latitudeCell, int longitudeCell) {
+    return (long) latitudeCell * LONGITUDE_CELLS + longitudeCell;
+  }
+
+  private static int latitudeCell(double latitude) {
+    return Math.max(0, Math.min(LATITUDE_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_SIZE)));
+  }
+
+  private static int longitudeCell(double longitude) {
+    return Math.max(
+        0, Math.min(LONGITUDE_CELLS - 1, (int) Math.floor((longitude + 180) / CELL_SIZE)));
+  }
+
+  private static Instant positionThreshold() {
+    return Instant.now().minus(POSITION_VALIDITY_DAYS, ChronoUnit.DAYS);
+  }
+
+  // ---
+
+  public record Entry(
+      Long id,
+      String username,
+      double latitude,
+      double longitude,
+      double minLatitude,
+      double maxLatitude,
+      double minLongitude,
+      double maxLongitude,
+      Instant positionAt) {
+
+    boolean covers(double latitude, double longitude) {
+      return minLatitude < latitude
+          && latitude < maxLatitude
+          && minLongitude < longitude
+          && longitude < maxLongitude;
+    }
+  }
+}
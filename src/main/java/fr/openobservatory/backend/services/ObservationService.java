@@ -1,6 +1,7 @@
 package fr.openobservatory.backend.services;
 
 import fr.openobservatory.backend.dto.input.*;
+import fr.openobservatory.backend.dto.output.CursorResultsDto;
 import fr.openobservatory.backend.dto.output.ObservationDto;
 import fr.openobservatory.backend.dto.output.ObservationWithDetailsDto;
 import fr.openobservatory.backend.dto.output.SearchResultsDto;
@@ -8,32 +9,46 @@ import fr.openobservatory.backend.entities.ObservationEntity;
 import fr.openobservatory.backend.entities.ObservationVoteEntity;
 import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
 import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationCreatedEvent;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
 import fr.openobservatory.backend.exceptions.*;
+import fr.openobservatory.backend.mappers.ObservationMapper;
 import fr.openobservatory.backend.repositories.CelestialBodyRepository;
 import fr.openobservatory.backend.repositories.ObservationRepository;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
 import fr.openobservatory.backend.repositories.ObservationVoteRepository;
 import fr.openobservatory.backend.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Validator;
-import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @AllArgsConstructor
 @Service
+@Timed("service.method")
 public class ObservationService {
 
   private static final double RATIO_KM_LATITUDE = 110.574;
   private static final double RATIO_KM_LONGITUDE = 111.320;
   private static final double MAX_NEARBY_DISTANCE = 250;
+  private static final String KARMA_RECONCILIATION_CRON = "0 30 4 * * *";
 
-  private final AchievementService achievementService;
+  private final ApplicationEventPublisher applicationEventPublisher;
   private final CelestialBodyRepository celestialBodyRepository;
+  private final GeospatialService geospatialService;
   private final ModelMapper modelMapper;
+  private final NotifiableUserIndexService notifiableUserIndexService;
+  private final ObservationMapper observationMapper;
   private final ObservationRepository observationRepository;
   private final ObservationVoteRepository observationVoteRepository;
   private final PushSubscriptionService pushSubscriptionService;
@@ -49,38 +64,31 @@ public class ObservationService {
     var issuer = findIssuer(issuerUsername, false);
     var celestialBody =
         celestialBodyRepository
-            .findById(dto.getCelestialBodyId())
+            .findCachedById(dto.getCelestialBodyId())
             .orElseThrow(InvalidCelestialBodyIdException::new);
     var observation = modelMapper.map(dto, ObservationEntity.class);
     observation.setAuthor(issuer);
     observation.setCelestialBody(celestialBody);
+    observation.setExpiresAt(
+        observation.getTimestamp().plus(celestialBody.getValidityTime(), ChronoUnit.HOURS));
     var savedObservation = observationRepository.save(observation);
-    achievementService.checkForAchievements(savedObservation);
-    // Quite ugly, to be optimized
-    var notifiableUsers =
-        userRepository
-            .findAllByNotificationEnabledIsTrueAndLatitudeIsNotNullAndLongitudeIsNotNullAndPositionAtIsGreaterThanEqual(
-                Instant.now().minus(7, ChronoUnit.DAYS));
+    userRepository.incrementObservationCount(issuer.getId(), 1);
+    userRepository.evictProfile(issuer.getId());
+    applicationEventPublisher.publishEvent(
+        new ObservationCreatedEvent(savedObservation.getId(), issuer.getId()));
     var notification =
         PushNotificationDto.builder()
             .code("OBSERVATION_NEARBY")
             .link("/observations/" + savedObservation.getId())
             .build();
-    notifiableUsers.forEach(
-        user -> {
-          if (user.equals(issuer)) return;
-          double[] topLeft =
-              getPointCorner(
-                  user.getLatitude(), user.getLongitude(), -user.getNotificationRadius());
-          double[] bottomRight =
-              getPointCorner(user.getLatitude(), user.getLongitude(), user.getNotificationRadius());
-          if (topLeft[0] < observation.getLatitude()
-              && observation.getLatitude() < bottomRight[0]
-              && topLeft[1] < observation.getLongitude()
-              && observation.getLongitude() < bottomRight[1]) {
-            pushSubscriptionService.sendTo(user.getUsername(), notification);
-          }
-        });
+    var targetIds =
+        notifiableUserIndexService
+            .findUsersCovering(observation.getLatitude(), observation.getLongitude())
+            .stream()
+            .filter(user -> !user.username().equalsIgnoreCase(issuer.getUsername()))
+            .map(NotifiableUserIndexService.Entry::id)
+            .toList();
+    pushSubscriptionService.sendToAll(targetIds, notification);
     return buildDetailed(savedObservation, issuer);
   }
 
@@ -93,13 +101,19 @@ public class ObservationService {
 
   public List<ObservationDto> findAllNearby(FindNearbyObservationsDto dto) {
     double distance = Math.max(0, Math.min(dto.getRadius(), MAX_NEARBY_DISTANCE));
-    double[] topLeft = getPointCorner(dto.getLatitude(), dto.getLongitude(), -distance);
-    double[] bottomRight = getPointCorner(dto.getLatitude(), dto.getLongitude(), distance);
-    return observationRepository
-        .findAllNearby(topLeft[0], bottomRight[0], topLeft[1], bottomRight[1])
-        .stream()
-        .map(o -> modelMapper.map(o, ObservationDto.class))
-        .toList();
+    Collection<ObservationEntity> observations;
+    if (geospatialService.isEnabled())
+      observations =
+          observationRepository.findAllWithin(
+              dto.getLatitude(), dto.getLongitude(), distance * 1000);
+    else {
+      double[] topLeft = getPointCorner(dto.getLatitude(), dto.getLongitude(), -distance);
+      double[] bottomRight = getPointCorner(dto.getLatitude(), dto.getLongitude(), distance);
+      observations =
+          observationRepository.findAllNearby(
+              topLeft[0], bottomRight[0], topLeft[1], bottomRight[1]);
+    }
+    return observations.stream().map(observationMapper::toDto).toList();
   }
 
   public SearchResultsDto<ObservationWithDetailsDto> search(
@@ -109,11 +123,33 @@ public class ObservationService {
     var issuer = findIssuer(issuerUsername, false);
     return SearchResultsDto.from(
         observationRepository
-            .findAllByOrderByTimestampDesc(
-                Pageable.ofSize(dto.getItemsPerPage()).withPage(dto.getPage()))
-            .map(o -> buildDetailed(o, issuer)));
+            .findAllDetailed(
+                issuer.getId(), Pageable.ofSize(dto.getItemsPerPage()).withPage(dto.getPage()))
+            .map(observationMapper::toDetailedDto));
+  }
+
+  public CursorResultsDto<ObservationWithDetailsDto> scroll(ScrollDto dto, String issuerUsername) {
+    var violations = validator.validate(dto);
+    if (!violations.isEmpty()) throw new ValidationException(violations);
+    var issuer = findIssuer(issuerUsername, false);
+    var pageable = Pageable.ofSize(dto.getItemsPerPage() + 1);
+    List<DetailedObservation> observations;
+    if (dto.getCursor() == null || dto.getCursor().isEmpty()) {
+      observations = observationRepository.scrollDetailed(issuer.getId(), pageable);
+    } else {
+      var cursor = FeedCursor.decode(dto.getCursor());
+      observations =
+          observationRepository.scrollDetailedAfter(
+              issuer.getId(), cursor.timestamp(), cursor.id(), pageable);
+    }
+    return CursorResultsDto.from(
+        observations,
+        dto.getItemsPerPage(),
+        observationMapper::toDetailedDto,
+        o -> new FeedCursor(o.timestamp(), o.id()).encode());
   }
 
+  @Transactional
   public void submitVote(Long observationId, SubmitVoteDto dto, String issuerUsername) {
     var violations = validator.validate(dto);
     if (!violations.isEmpty()) throw new ValidationException(violations);
@@ -121,9 +157,15 @@ public class ObservationService {
     var observation =
         observationRepository.findById(observationId).orElseThrow(UnknownObservationException::new);
     var currentVote = observationVoteRepository.findByObservationAndUser(observation, issuer);
+    var previousVote = currentVote.map(ObservationVoteEntity::getVote).orElse(null);
+    var currentWeight = previousVote == null ? 0 : previousVote.getWeight();
     if (dto.getVote() == null) {
       if (currentVote.isEmpty()) return;
       observationVoteRepository.delete(currentVote.get());
+      updateKarma(observation, -currentWeight);
+      userRepository.incrementVoteCount(issuer.getId(), -1);
+      applicationEventPublisher.publishEvent(
+          new ObservationVoteChangedEvent(observationId, issuer.getId(), previousVote, null));
       return;
     }
     var vote = currentVote.orElse(new ObservationVoteEntity());
@@ -131,7 +173,11 @@ public class ObservationService {
     vote.setObservation(observation);
     vote.setVote(VoteType.valueOf(dto.getVote()));
     var saveVote = observationVoteRepository.save(vote);
-    achievementService.checkForAchievements(saveVote);
+    updateKarma(observation, saveVote.getVote().getWeight() - currentWeight);
+    if (previousVote == null) userRepository.incrementVoteCount(issuer.getId(), 1);
+    applicationEventPublisher.publishEvent(
+        new ObservationVoteChangedEvent(
+            observationId, issuer.getId(), previousVote, saveVote.getVote()));
   }
 
   public ObservationWithDetailsDto update(
@@ -148,10 +194,16 @@ public class ObservationService {
     return buildDetailed(observationRepository.save(observation), issuer);
   }
 
+  @Transactional
   public ObservationDto delete(Long id) {
     var obs = observationRepository.findById(id).orElseThrow(UnknownObservationException::new);
+    userRepository.decrementVoteCountOfVoters(id);
+    userRepository.incrementObservationCount(obs.getAuthor().getId(), -1);
     observationRepository.deleteById(id);
-    return modelMapper.map(obs, ObservationDto.class);
+    if (obs.getKarma() != 0)
+      userRepository.incrementKarma(obs.getAuthor().getId(), -obs.getKarma());
+    userRepository.evictProfile(obs.getAuthor().getId());
+    return observationMapper.toDto(obs);
   }
 
   public ObservationDto updateFromAdmin(Long id, UpdateObservationDto dto) {
@@ -162,32 +214,62 @@ public class ObservationService {
     if (dto.getDescription().isPresent()) {
       observation.setDescription(dto.getDescription().get());
     }
-    return modelMapper.map(observationRepository.save(observation), ObservationDto.class);
+    return observationMapper.toDto(observationRepository.save(observation));
+  }
+
+  /**
+   * Computes the expiration of the observations stored before it was tracked. The update only runs
+   * while such observations remain, which the index on the expiration tells cheaply.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void fillMissingExpiresAt() {
+    if (observationRepository.existsByExpiresAtIsNull())
+      observationRepository.fillMissingExpiresAt();
+  }
+
+  /**
+   * Rebuilds the karma counters of observations and users from the submitted votes, along with the
+   * observation and vote counters of users, fixing the drifts left by concurrent votes or by votes
+   * deleted along with their user.
+   */
+  @Scheduled(cron = KARMA_RECONCILIATION_CRON)
+  @Transactional
+  public void reconcileKarma() {
+    observationRepository.reconcileKarma();
+    userRepository.reconcileKarma();
+    userRepository.reconcileActivity();
+    userRepository.evictAllProfiles();
   }
 
   // ---
 
   private ObservationWithDetailsDto buildDetailed(
       ObservationEntity observation, UserEntity issuer) {
-    var dto = modelMapper.map(observation, ObservationWithDetailsDto.class);
-    dto.setCurrentVote(
-        observation.getVotes().stream()
-            .filter(v -> v.getUser().equals(issuer))
-            .map(ObservationVoteEntity::getVote)
-            .findFirst()
-            .orElse(null));
-    dto.setExpired(
-        observation
-            .getTimestamp()
-            .plus(observation.getCelestialBody().getValidityTime(), ChronoUnit.HOURS)
-            .isBefore(Instant.now()));
-    dto.setKarma(
-        observation.getVotes().stream()
-            .map(vote -> vote.getVote().getWeight())
-            .reduce(0, Integer::sum));
+    var dto = observationMapper.toDetailedDto(observation);
+    if (issuer != null)
+      dto.setCurrentVote(
+          observationVoteRepository
+              .findByObservationAndUser(observation, issuer)
+              .map(ObservationVoteEntity::getVote)
+              .orElse(null));
     return dto;
   }
 
+  /**
+   * Applies a karma change to an observation and its author, both in the database and on the loaded
+   * entities.
+   */
+  private void updateKarma(ObservationEntity observation, int delta) {
+    if (delta == 0) return;
+    var author = observation.getAuthor();
+    observationRepository.incrementKarma(observation.getId(), delta);
+    userRepository.incrementKarma(author.getId(), delta);
+    userRepository.evictProfile(author.getId());
+    observation.setKarma(observation.getKarma() + delta);
+    author.setKarma(author.getKarma() + delta);
+  }
+
   /**
    * Calculates coordinates given a point and a distance.
    *
@@ -197,7 +279,7 @@ public class ObservationService {
    * @return An array containing {shiftedLatitude, shiftedLongitude}.
    * @implNote Involved formulas: <a href="https://stackoverflow.com/a/1253545"></a>
    */
-  private double[] getPointCorner(double lat, double lng, double distance) {
+  static double[] getPointCorner(double lat, double lng, double distance) {
     double latShift = distance / RATIO_KM_LATITUDE;
     double lngShift = distance / (RATIO_KM_LONGITUDE * Math.cos(Math.toRadians(lat)));
     return new double[] {lat + latShift, lng + lngShift};
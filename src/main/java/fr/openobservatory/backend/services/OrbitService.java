@@ -0,0 +1,266 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.configuration.OrbitProperties;
+import fr.openobservatory.backend.dto.input.FindSatellitePassDto;
+import fr.openobservatory.backend.dto.input.FindSatellitePositionsDto;
+import fr.openobservatory.backend.dto.output.SatellitePassDto;
+import fr.openobservatory.backend.dto.output.SatellitePositionDto;
+import fr.openobservatory.backend.exceptions.InvalidTwoLineElementsException;
+import fr.openobservatory.backend.exceptions.UnavailableSatellitePositionException;
+import fr.openobservatory.backend.exceptions.UnknownSatelliteException;
+import fr.openobservatory.backend.exceptions.ValidationException;
+import fr.openobservatory.backend.orbit.Geodesy;
+import fr.openobservatory.backend.orbit.GeodeticPosition;
+import fr.openobservatory.backend.orbit.Sgp4Propagator;
+import fr.openobservatory.backend.orbit.StateVector;
+import fr.openobservatory.backend.orbit.Sun;
+import fr.openobservatory.backend.orbit.TwoLineElements;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Propagates the orbits of satellites locally with SGP4, from the two-line element sets loaded at
+ * startup or uploaded by an administrator. Positions are computed in-process in a few microseconds,
+ * without relying on an external API.
+ */
+@AllArgsConstructor
+@Service
+public class OrbitService {
+
+  private static final double MIN_PASS_ELEVATION = 10;
+  private static final double MAX_SUN_ELEVATION = -6;
+  private static final Duration PASS_SEARCH_WINDOW = Duration.ofDays(2);
+  private static final Duration PASS_SEARCH_STEP = Duration.ofSeconds(30);
+  private static final Duration MAX_PASS_DURATION = Duration.ofHours(6);
+
+  private final OrbitProperties properties;
+  private final Validator validator;
+  private final Map<Integer, Sgp4Propagator> propagators = new ConcurrentHashMap<>();
+
+  // ---
+
+  /** Loads the element sets of the configured file, if any. */
+  @PostConstruct
+  public void loadElementsFile() {
+    var file = properties.elementsFile();
+    if (file == null || !file.exists()) return;
+    try {
+      upload(file.getContentAsString(StandardCharsets.US_ASCII));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Registers element sets, replacing the previous elements of the same satellites. Sets describing
+   * deep-space orbits are ignored, as SGP4 cannot propagate them.
+   *
+   * @param text Element sets in the two-line or three-line format.
+   * @return The NORAD identifiers of the registered satellites.
+   */
+  public List<Integer> upload(String text) {
+    var registered = new ArrayList<Integer>();
+    for (var elements : TwoLineElements.parseAll(text)) {
+      try {
+        propagators.put(elements.noradId(), new Sgp4Propagator(elements));
+        registered.add(elements.noradId());
+      } catch (IllegalArgumentException e) {
+        // Deep-space orbit
+      }
+    }
+    if (registered.isEmpty()) throw new InvalidTwoLineElementsException();
+    return registered;
+  }
+
+  /**
+   * Tells whether the satellite can be located at the given instant from elements recent enough to
+   * be trusted.
+   */
+  public boolean isAvailable(int noradId, Instant at) {
+    var propagator = propagators.get(noradId);
+    return propagator != null && isFresh(propagator, at);
+  }
+
+  public SatellitePositionDto findPosition(int noradId, Instant at) {
+    return locate(findPropagator(noradId), at);
+  }
+
+  public List<SatellitePositionDto> findPositions(int noradId, FindSatellitePositionsDto dto) {
+    var violations = validator.validate(dto);
+    if (!violations.isEmpty()) throw new ValidationException(violations);
+    var propagator = findPropagator(noradId);
+    return dto.getTimestamps().stream().map(t -> locate(propagator, t)).toList();
+  }
+
+  /**
+   * Finds the next pass of a satellite at least 10 degrees above the horizon of an observer, within
+   * the next two days.
+   *
+   * @return The next pass, or an empty optional if the satellite does not rise high enough in that
+   *     window.
+   */
+  public Optional<SatellitePassDto> findNextPass(int noradId, FindSatellitePassDto dto) {
+    return findNextPass(noradId, dto, Instant.now());
+  }
+
+  Optional<SatellitePassDto> findNextPass(int noradId, FindSatellitePassDto dto, Instant from) {
+    var violations = validator.validate(dto);
+    if (!violations.isEmpty()) throw new ValidationException(violations);
+    var propagator = findPropagator(noradId);
+    var start = from.truncatedTo(ChronoUnit.SECONDS);
+    if (!isFresh(propagator, start)) throw new UnavailableSatellitePositionException();
+    var observer = new GeodeticPosition(dto.getLatitude(), dto.getLongitude(), 0);
+    return Optional.ofNullable(
+        findPass(propagator, observer, start, start.plus(PASS_SEARCH_WINDOW)));
+  }
+
+  /**
+   * Finds every pass of a satellite at least 10 degrees above the horizon of an observer rising
+   * within the given period. A pass already in progress at the start of the period is not included.
+   *
+   * @param latitude Latitude of the observer.
+   * @param longitude Longitude of the observer.
+   * @param from Start of the period.
+   * @param to End of the period.
+   * @return The passes, in chronological order.
+   */
+  public List<SatellitePassDto> findPasses(
+      int noradId, double latitude, double longitude, Instant from, Instant to) {
+    var propagator = findPropagator(noradId);
+    var start = from.truncatedTo(ChronoUnit.SECONDS);
+    if (!isFresh(propagator, start)) throw new UnavailableSatellitePositionException();
+    var observer = new GeodeticPosition(latitude, longitude, 0);
+    var passes = new ArrayList<SatellitePassDto>();
+    var pass = findPass(propagator, observer, start, to);
+    if (pass != null && !pass.getRiseAt().isAfter(start))
+      pass = findPass(propagator, observer, pass.getSetAt().plusSeconds(1), to);
+    while (pass != null) {
+      passes.add(pass);
+      pass = findPass(propagator, observer, pass.getSetAt().plusSeconds(1), to);
+    }
+    return passes;
+  }
+
+  // ---
+
+  private Sgp4Propagator findPropagator(int noradId) {
+    var propagator = propagators.get(noradId);
+    if (propagator == null) throw new UnknownSatelliteException();
+    return propagator;
+  }
+
+  private boolean isFresh(Sgp4Propagator propagator, Instant at) {
+    var age = Duration.between(propagator.getElements().epoch(), at).abs();
+    return age.compareTo(properties.maxElementsAge()) <= 0;
+  }
+
+  private SatellitePositionDto locate(Sgp4Propagator propagator, Instant at) {
+    if (!isFresh(propagator, at)) throw new UnavailableSatellitePositionException();
+    var geodetic = Geodesy.toGeodetic(Geodesy.toEarthFixed(propagate(propagator, at), at));
+    var position = new SatellitePositionDto();
+    position.setLatitude(geodetic.latitude());
+    position.setLongitude(geodetic.longitude());
+    position.setAltitude(geodetic.altitude());
+    position.setTimestamp(at);
+    return position;
+  }
+
+  private static StateVector propagate(Sgp4Propagator propagator, Instant at) {
+    try {
+      return propagator.propagate(at);
+    } catch (IllegalStateException e) {
+      throw new UnavailableSatellitePositionException();
+    }
+  }
+
+  /**
+   * Scans the elevation of the satellite from the given instant until it rises above the pass
+   * threshold, then narrows down the rise, culmination and set instants. A satellite still above
+   * the threshold after the longest pass duration is considered set then.
+   *
+   * @return The pass, or null if the satellite does not rise before the limit.
+   */
+  private static SatellitePassDto findPass(
+      Sgp4Propagator propagator, GeodeticPosition observer, Instant from, Instant limit) {
+    var observerPosition = Geodesy.toEarthFixed(observer);
+    ToDoubleFunction<Instant> elevation =
+        t ->
+            Geodesy.elevation(
+                observer, observerPosition, Geodesy.toEarthFixed(propagate(propagator, t), t));
+    if (from.isAfter(limit)) return null;
+    var before = from;
+    var riseAt = from;
+    while (elevation.applyAsDouble(riseAt) < MIN_PASS_ELEVATION) {
+      if (riseAt.isAfter(limit)) return null;
+      before = riseAt;
+      riseAt = riseAt.plus(PASS_SEARCH_STEP);
+    }
+    if (riseAt.isAfter(from)) riseAt = findCrossing(elevation, before, riseAt, true);
+    var setLimit = riseAt.plus(MAX_PASS_DURATION);
+    var setAt = riseAt;
+    boolean isUp;
+    do {
+      setAt = setAt.plus(PASS_SEARCH_STEP);
+      isUp = elevation.applyAsDouble(setAt) >= MIN_PASS_ELEVATION;
+    } while (isUp && setAt.isBefore(setLimit));
+    if (!isUp) setAt = findCrossing(elevation, setAt.minus(PASS_SEARCH_STEP), setAt, false);
+    var culminationAt = findCulmination(elevation, riseAt, setAt);
+
+    var pass = new SatellitePassDto();
+    pass.setRiseAt(riseAt);
+    pass.setCulminationAt(culminationAt);
+    pass.setSetAt(setAt);
+    pass.setMaxElevation(elevation.applyAsDouble(culminationAt));
+    pass.setVisible(isVisible(propagator, observer, observerPosition, culminationAt));
+    return pass;
+  }
+
+  /**
+   * Tells whether a satellite can be seen with the naked eye, that is when it is lit by the Sun
+   * while the sky of the observer is dark.
+   */
+  private static boolean isVisible(
+      Sgp4Propagator propagator, GeodeticPosition observer, double[] observerPosition, Instant at) {
+    var sun = Sun.position(at);
+    var sunElevation = Geodesy.elevation(observer, observerPosition, Geodesy.toEarthFixed(sun, at));
+    return sunElevation < MAX_SUN_ELEVATION && Sun.illuminates(propagate(propagator, at), sun);
+  }
+
+  /** Narrows down to the second the instant the elevation crosses the pass threshold. */
+  private static Instant findCrossing(
+      ToDoubleFunction<Instant> elevation, Instant from, Instant to, boolean rising) {
+    while (Duration.between(from, to).getSeconds() > 1) {
+      var middle = from.plus(Duration.between(from, to).dividedBy(2));
+      if (elevation.applyAsDouble(middle) >= MIN_PASS_ELEVATION == rising) to = middle;
+      else from = middle;
+    }
+    return (rising ? to : from).truncatedTo(ChronoUnit.SECONDS);
+  }
+
+  /** Narrows down to the second the highest point of a pass, the elevation being unimodal. */
+  private static Instant findCulmination(
+      ToDoubleFunction<Instant> elevation, Instant from, Instant to) {
+    while (Duration.between(from, to).getSeconds() > 2) {
+      var third = Duration.between(from, to).dividedBy(3);
+      var left = from.plus(third);
+      var right = to.minus(third);
+      if (elevation.applyAsDouble(left) < elevation.applyAsDouble(right)) from = left;
+      else to = right;
+    }
+    return from.plus(Duration.between(from, to).dividedBy(2)).truncatedTo(ChronoUnit.SECONDS);
+  }
+}
@@ -0,0 +1,107 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.dto.input.PushNotificationDto;
+import fr.openobservatory.backend.dto.output.SatellitePassDto;
+import fr.openobservatory.backend.exceptions.UnavailableSatellitePositionException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AllArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reminds users of the visible passes of the ISS shortly before they start. Users are grouped by
+ * the cell of the notification index containing their position, and passes are computed once per
+ * cell, at its center, rather than once per user. Tables are only computed for the cells which were
+ * just populated or whose table is getting old, so that position updates are handled incrementally.
+ */
+@AllArgsConstructor
+@Service
+public class PassNotificationService {
+
+  private static final Duration TABLE_WINDOW = Duration.ofHours(24);
+  private static final Duration TABLE_VALIDITY = Duration.ofHours(6);
+  private static final Duration REMINDER_LEAD = Duration.ofMinutes(10);
+  private static final int SCHEDULE_DELAY = 60 * 1000;
+
+  private final Map<Long, PassTable> tables = new ConcurrentHashMap<>();
+  private final NotifiableUserIndexService notifiableUserIndexService;
+  private final OrbitService orbitService;
+  private final PushSubscriptionService pushSubscriptionService;
+
+  // ---
+
+  /**
+   * Groups the notifiable users by cell, computes the pass tables of the cells needing one, and
+   * sends a reminder for every visible pass starting within the next minutes.
+   */
+  @Scheduled(fixedDelay = SCHEDULE_DELAY)
+  public void run() {
+    var now = Instant.now();
+    if (!orbitService.isAvailable(ISSService.NORAD_ISS_ID, now)) return;
+    var users = new HashMap<Long, List<Long>>();
+    for (var entry : notifiableUserIndexService.findAll())
+      users
+          .computeIfAbsent(
+              NotifiableUserIndexService.cellOf(entry.latitude(), entry.longitude()),
+              k -> new ArrayList<>())
+          .add(entry.id());
+    tables.keySet().retainAll(users.keySet());
+    users.forEach((cell, ids) -> remind(cell, ids, now));
+  }
+
+  // ---
+
+  private void remind(long cell, List<Long> userIds, Instant now) {
+    var table = tables.get(cell);
+    if (table == null || table.computedAt.plus(TABLE_VALIDITY).isBefore(now)) {
+      try {
+        table = computeTable(cell, table == null ? now : table.remindedUntil, now);
+      } catch (UnavailableSatellitePositionException e) {
+        return;
+      }
+      tables.put(cell, table);
+    }
+    var horizon = now.plus(REMINDER_LEAD);
+    while (!table.passes.isEmpty() && !table.passes.peekFirst().getRiseAt().isAfter(horizon)) {
+      var pass = table.passes.pollFirst();
+      if (pass.getRiseAt().isAfter(now))
+        pushSubscriptionService.sendToAll(
+            userIds, PushNotificationDto.builder().code("ISS_PASS").link("/iss").build());
+    }
+    table.remindedUntil = horizon;
+  }
+
+  private PassTable computeTable(long cell, Instant from, Instant now) {
+    var center = NotifiableUserIndexService.cellCenter(cell);
+    var passes =
+        orbitService
+            .findPasses(ISSService.NORAD_ISS_ID, center[0], center[1], from, now.plus(TABLE_WINDOW))
+            .stream()
+            .filter(SatellitePassDto::isVisible)
+            .toList();
+    return new PassTable(now, new ArrayDeque<>(passes), from);
+  }
+
+  // ---
+
+  private static final class PassTable {
+
+    private final Instant computedAt;
+    private final Deque<SatellitePassDto> passes;
+    private Instant remindedUntil;
+
+    private PassTable(Instant computedAt, Deque<SatellitePassDto> passes, Instant remindedUntil) {
+      this.computedAt = computedAt;
+      this.passes = passes;
+      this.remindedUntil = remindedUntil;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package fr.openobservatory.backend.services;
+
+import fr.openobservatory.backend.entities.UserEntity;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AllArgsConstructor;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind buffer of the user positions. Positions are applied to the notification index right
+ * away, but only the last position of each user is written to the database, every 30 seconds, in a
+ * single batch of updates touching the position columns only.
+ */
+@AllArgsConstructor
+@Service
+public class PositionBufferService {
+
+  private static final String UPDATE_POSITION =
+      "UPDATE \"user\" SET latitude = ?, longitude = ?, position_at = ? WHERE id = ?";
+  private static final int BATCH_SIZE = 500;
+  private static final int FLUSH_DELAY = 30 * 1000;
+
+  private final Map<Long, Position> pending = new ConcurrentHashMap<>();
+  private final JdbcTemplate jdbcTemplate;
+  private final NotifiableUserIndexService notifiableUserIndexService;
+
+  // ---
+
+  /**
+   * Records the position of a user, replacing any position of that user not written yet.
+   *
+   * @param user User whose position changed.
+   * @param latitude Latitude of the user.
+   * @param longitude Longitude of the user.
+   * @param positionAt Instant the position was reported.
+   */
+  public void buffer(UserEntity user, double latitude, double longitude, Instant positionAt) {
+    pending.put(user.getId(), new Position(latitude, longitude, positionAt));
+    notifiableUserIndexService.updatePosition(user, latitude, longitude, positionAt);
+  }
+
+  /**
+   * Drops the position of a user not written yet.
+   *
+   * @param userId Identifier of the user.
+   */
+  public void discard(Long userId) {
+    pending.remove(userId);
+  }
+
+  /**
+   * Writes the buffered positions to the database. Positions recorded while writing are kept for
+   * the next flush, as are all positions if the database cannot be reached.
+   */
+  @EventListener(ContextClosedEvent.class)
+  @Scheduled(fixedDelay = FLUSH_DELAY)
+  public void flush() {
+    if (pending.isEmpty()) return;
+    var batch = pending.entrySet().stream().map(e -> Map.entry(e.getKey(), e.getValue())).toList();
+    jdbcTemplate.batchUpdate(
+        UPDATE_POSITION,
+        batch,
+        BATCH_SIZE,
+        (statement, entry) -> {
+          statement.setDouble(1, entry.getValue().latitude());
+          statement.setDouble(2, entry.getValue().longitude());
+          statement.setTimestamp(3, Timestamp.from(entry.getValue().positionAt()));
+          statement.setLong(4, entry.getKey());
+        });
+    batch.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+  }
+
+  // ---
+
+  private record Position(double latitude, double longitude, Instant positionAt) {}
+}
@@ -2,30 +2,62 @@ package fr.openobservatory.backend.services;
 
 import fr.openobservatory.backend.dto.input.PushNotificationDto;
 import fr.openobservatory.backend.dto.input.SubscribeNotificationsDto;
+import fr.openobservatory.backend.entities.PushDeadLetterEntity;
 import fr.openobservatory.backend.entities.PushSubscriptionEntity;
 import fr.openobservatory.backend.exceptions.UnavailableUserException;
-import fr.openobservatory.backend.exceptions.UnknownUserException;
 import fr.openobservatory.backend.exceptions.ValidationException;
 import fr.openobservatory.backend.providers.PushProvider;
 import fr.openobservatory.backend.providers.PushProvider.PushMessage;
-import fr.openobservatory.backend.providers.PushProvider.PushMessageException;
+import fr.openobservatory.backend.providers.PushProvider.PushResponse;
+import fr.openobservatory.backend.providers.PushRetryPolicy;
+import fr.openobservatory.backend.repositories.PushDeadLetterRepository;
 import fr.openobservatory.backend.repositories.PushSubscriptionRepository;
 import fr.openobservatory.backend.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Validator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.AllArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @AllArgsConstructor
 @Service
+@Timed("service.method")
 public class PushSubscriptionService {
 
+  private static final int BATCH_SIZE = 100;
+
+  private final Map<PushOutcome, LongAdder> outcomes = new EnumMap<>(PushOutcome.class);
+  private final MeterRegistry meterRegistry;
   private final ModelMapper modelMapper;
   private final PushProvider pushProvider;
+  private final PushRetryPolicy pushRetryPolicy;
+
+  @Qualifier("pushExecutor")
+  private final TaskExecutor pushExecutor;
+
+  private final TaskScheduler taskScheduler;
+  private final PushDeadLetterRepository pushDeadLetterRepository;
   private final PushSubscriptionRepository pushSubscriptionRepository;
   private final UserRepository userRepository;
   private final Validator validator;
 
+  {
+    for (var outcome : PushOutcome.values()) outcomes.put(outcome, new LongAdder());
+  }
+
   // ---
 
   /** Retrieves the public key used to sign push notification messages. */
@@ -33,25 +65,47 @@ public class PushSubscriptionService {
     return pushProvider.publicKey();
   }
 
+  /** Returns how many push messages ended up with each outcome since startup. */
+  public Map<PushOutcome, Long> getOutcomes() {
+    var counts = new EnumMap<PushOutcome, Long>(PushOutcome.class);
+    outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+    return counts;
+  }
+
   /**
-   * Sends a push notification to the targeted user.
+   * Queues a push notification for every subscription of the targeted users. Subscriptions are
+   * loaded by batches on the push executor, and their notifications are sent without waiting for
+   * the push services to answer. When called within a transaction, nothing is queued until the
+   * transaction is committed.
    *
-   * @param targetUsername User to send a push notification to.
-   * @param dto Payload to send in the push notification.
+   * @param targetIds Identifiers of the users to send a push notification to.
+   * @param dto Payload to send in the push notifications.
    */
-  public void sendTo(String targetUsername, PushNotificationDto dto) {
-    var target =
-        userRepository
-            .findByUsernameIgnoreCase(targetUsername)
-            .orElseThrow(UnknownUserException::new);
-    var subscriptions = pushSubscriptionRepository.findAllByUser(target);
-    for (var s : subscriptions) {
-      try {
-        pushProvider.send(new PushMessage(s.getEndpoint(), s.getAuth(), s.getP256dh(), dto));
-      } catch (PushMessageException ignored) {
-        pushSubscriptionRepository.delete(s);
-      }
+  public void sendToAll(Collection<Long> targetIds, PushNotificationDto dto) {
+    if (targetIds.isEmpty()) return;
+    var ids = List.copyOf(targetIds);
+    Runnable dispatch =
+        () -> {
+          for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            var batch = ids.subList(i, Math.min(i + BATCH_SIZE, ids.size()));
+            pushExecutor.execute(
+                () ->
+                    pushSubscriptionRepository
+                        .findAllByUserIdIn(batch)
+                        .forEach(s -> send(s, dto, 1)));
+          }
+        };
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      dispatch.run();
+      return;
     }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            dispatch.run();
+          }
+        });
   }
 
   /**
@@ -71,4 +125,99 @@ public class PushSubscriptionService {
     subscription.setUser(issuer);
     pushSubscriptionRepository.save(subscription);
   }
+
+  // ---
+
+  /**
+   * Sends a push notification to a subscription. Expired subscriptions are deleted, while messages
+   * the push service may accept later, or that could not reach it, are sent again after a delay.
+   * Messages that cannot be delivered are kept as dead letters. Answers are handled on the threads
+   * of the HTTP client, so the database is only written from the push executor.
+   */
+  private void send(PushSubscriptionEntity subscription, PushNotificationDto dto, int attempt) {
+    pushProvider
+        .sendAsync(toMessage(subscription, dto))
+        .whenComplete(
+            (response, e) -> {
+              if (response != null && response.isSuccessful()) {
+                record(PushOutcome.DELIVERED, response.status());
+              } else if (response != null && pushRetryPolicy.isExpired(response.status())) {
+                record(PushOutcome.EXPIRED, response.status());
+                pushExecutor.execute(() -> pushSubscriptionRepository.delete(subscription));
+              } else if (response != null && !pushRetryPolicy.isRetryable(response.status())) {
+                deadLetter(subscription, dto, response.status(), attempt);
+              } else if (response == null && !pushRetryPolicy.isRetryable(e)) {
+                deadLetter(subscription, dto, null, attempt);
+              } else {
+                var retryAfter = response == null ? null : response.retryAfter();
+                pushRetryPolicy
+                    .nextDelay(attempt, retryAfter)
+                    .ifPresentOrElse(
+                        delay -> retry(subscription, dto, response, attempt, delay),
+                        () ->
+                            deadLetter(
+                                subscription,
+                                dto,
+                                response == null ? null : response.status(),
+                                attempt));
+              }
+            });
+  }
+
+  private void retry(
+      PushSubscriptionEntity subscription,
+      PushNotificationDto dto,
+      PushResponse response,
+      int attempt,
+      Duration delay) {
+    record(PushOutcome.RETRIED, response == null ? null : response.status());
+    taskScheduler.schedule(
+        () -> pushExecutor.execute(() -> send(subscription, dto, attempt + 1)),
+        Instant.now().plus(delay));
+  }
+
+  private void deadLetter(
+      PushSubscriptionEntity subscription, PushNotificationDto dto, Integer status, int attempt) {
+    record(PushOutcome.DEAD_LETTERED, status);
+    var deadLetter =
+        PushDeadLetterEntity.builder()
+            .endpoint(subscription.getEndpoint())
+            .code(dto.getCode())
+            .link(dto.getLink())
+            .status(status)
+            .attempts(attempt)
+            .build();
+    pushExecutor.execute(() -> pushDeadLetterRepository.save(deadLetter));
+  }
+
+  /**
+   * Counts a push message outcome, both since startup and in the {@code push.messages} metric
+   * tagged with the status code returned by the push service, if any.
+   */
+  private void record(PushOutcome outcome, Integer status) {
+    outcomes.get(outcome).increment();
+    meterRegistry
+        .counter(
+            "push.messages",
+            "outcome",
+            outcome.name(),
+            "status",
+            status == null ? "NONE" : status.toString())
+        .increment();
+  }
+
+  private static PushMessage toMessage(
+      PushSubscriptionEntity subscription, PushNotificationDto dto) {
+    return new PushMessage(
+        subscription.getEndpoint(), subscription.getAuth(), subscription.getP256dh(), dto);
+  }
+
+  // ---
+
+  public enum PushOutcome {
+    DELIVERED,
+    RETRIED,
+    EXPIRED,
+    DEAD_LETTERED
+  }
 }
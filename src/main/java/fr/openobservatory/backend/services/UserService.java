@@ -1,34 +1,52 @@
 package fr.openobservatory.backend.services;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import fr.openobservatory.backend.dto.input.*;
+import fr.openobservatory.backend.dto.output.CursorResultsDto;
 import fr.openobservatory.backend.dto.output.ObservationWithDetailsDto;
 import fr.openobservatory.backend.dto.output.SearchResultsDto;
 import fr.openobservatory.backend.dto.output.SelfUserDto;
+import fr.openobservatory.backend.dto.output.StreamedResultsDto;
 import fr.openobservatory.backend.dto.output.UserWithProfileDto;
 import fr.openobservatory.backend.entities.UserEntity;
 import fr.openobservatory.backend.exceptions.*;
+import fr.openobservatory.backend.mappers.ObservationMapper;
+import fr.openobservatory.backend.mappers.UserMapper;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
 import fr.openobservatory.backend.repositories.ObservationRepository;
 import fr.openobservatory.backend.repositories.PushSubscriptionRepository;
 import fr.openobservatory.backend.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
+import java.util.Base64;
+import java.util.Optional;
 import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @AllArgsConstructor
 @Service
+@Timed("service.method")
 public class UserService {
 
-  private final ModelMapper modelMapper;
+  private final BlobService blobService;
+  private final NotifiableUserIndexService notifiableUserIndexService;
+  private final ObjectMapper objectMapper;
+  private final ObservationMapper observationMapper;
   private final ObservationRepository observationRepository;
   private final PasswordEncoder passwordEncoder;
+  private final PositionBufferService positionBufferService;
   private final PushSubscriptionRepository pushSubscriptionRepository;
+  private final UserMapper userMapper;
   private final UserRepository userRepository;
   private final Validator validator;
 
@@ -45,7 +63,7 @@ public class UserService {
             .password(passwordEncoder.encode(dto.getPassword()))
             .biography(dto.getBiography())
             .build();
-    return buildProfile(userRepository.save(user), UserWithProfileDto.class);
+    return userMapper.toProfileDto(userRepository.save(user));
   }
 
   public SearchResultsDto<UserWithProfileDto> search(PaginationDto dto) {
@@ -54,7 +72,20 @@ public class UserService {
     return SearchResultsDto.from(
         userRepository
             .findAll(Pageable.ofSize(dto.getItemsPerPage()).withPage(dto.getPage()))
-            .map(u -> modelMapper.map(u, UserWithProfileDto.class)));
+            .map(userMapper::toProfileDto));
+  }
+
+  public CursorResultsDto<UserWithProfileDto> scroll(ScrollDto dto) {
+    var violations = validator.validate(dto);
+    if (!violations.isEmpty()) throw new ValidationException(violations);
+    var pageable = Pageable.ofSize(dto.getItemsPerPage() + 1);
+    var users =
+        dto.getCursor() == null || dto.getCursor().isEmpty()
+            ? userRepository.findAllByOrderByUsernameAsc(pageable)
+            : userRepository.findAllByUsernameGreaterThanOrderByUsernameAsc(
+                decodeCursor(dto.getCursor()), pageable);
+    return CursorResultsDto.from(
+        users, dto.getItemsPerPage(), userMapper::toProfileDto, u -> encodeCursor(u.getUsername()));
   }
 
   public void delete(String username, String issuerUsername) {
@@ -63,44 +94,76 @@ public class UserService {
         userRepository.findByUsernameIgnoreCase(username).orElseThrow(UnknownUserException::new);
     if (!isEditableBy(user, issuer)) throw new UserNotEditableException();
     userRepository.delete(user);
+    userRepository.evictProfile(user.getId());
+    userRepository.evictUsername(user.getUsername());
+    positionBufferService.discard(user.getId());
+    notifiableUserIndexService.remove(user.getId());
   }
 
   public UserWithProfileDto findByUsername(String username, String issuerUsername) {
-    var issuer = findIssuer(issuerUsername, true);
-    var user =
-        userRepository.findByUsernameIgnoreCase(username).orElseThrow(UnknownUserException::new);
+    var issuer =
+        issuerUsername == null
+            ? null
+            : findProfile(issuerUsername).orElseThrow(UnavailableUserException::new);
+    var user = findProfile(username).orElseThrow(UnknownUserException::new);
     if (!isViewableBy(user, issuer)) throw new UserNotVisibleException();
-    return buildProfile(user, UserWithProfileDto.class);
+    return userMapper.toProfileDto(user);
   }
 
-  public List<ObservationWithDetailsDto> findObservationsByUsername(
-      String username, String issuerUsername) {
+  /**
+   * Finds a page of the observations of a user, in the feed order. The end of the page is looked up
+   * first, so that its cursor is known before the observations are written to the response one by
+   * one as they are read.
+   */
+  public StreamedResultsDto findObservationsByUsername(
+      String username, ScrollDto dto, String issuerUsername) {
+    var violations = validator.validate(dto);
+    if (!violations.isEmpty()) throw new ValidationException(violations);
     var issuer =
-        issuerUsername != null
-            ? userRepository
-                .findByUsernameIgnoreCase(issuerUsername)
-                .orElseThrow(UnavailableUserException::new)
-            : null;
-    var user =
-        userRepository.findByUsernameIgnoreCase(username).orElseThrow(UnknownUserException::new);
+        issuerUsername == null
+            ? null
+            : findProfile(issuerUsername).orElseThrow(UnavailableUserException::new);
+    var user = findProfile(username).orElseThrow(UnknownUserException::new);
     if (!isViewableBy(user, issuer)) throw new UserNotVisibleException();
-    return observationRepository.findAllByAuthor(user, Pageable.ofSize(100)).stream()
-        .map(
-            o -> {
-              var dto = modelMapper.map(o, ObservationWithDetailsDto.class);
-              dto.setExpired(
-                  o.getTimestamp()
-                      .plus(o.getCelestialBody().getValidityTime(), ChronoUnit.HOURS)
-                      .isBefore(Instant.now()));
-              return dto;
-            })
-        .toList();
+    var after =
+        dto.getCursor() == null || dto.getCursor().isEmpty()
+            ? null
+            : FeedCursor.decode(dto.getCursor()).toPosition();
+    var until =
+        observationRepository.findPageEnd(user.id(), after, dto.getItemsPerPage()).orElse(null);
+    var issuerId = issuer == null ? null : issuer.id();
+    StreamingResponseBody body =
+        output -> {
+          var writer =
+              objectMapper
+                  .writerFor(ObservationWithDetailsDto.class)
+                  .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+          try (var generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            observationRepository.streamByAuthor(
+                user,
+                issuerId,
+                after,
+                until,
+                observation -> {
+                  try {
+                    writer.writeValue(generator, observationMapper.toDetailedDto(observation));
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+            generator.writeEndArray();
+          }
+        };
+    return StreamedResultsDto.builder()
+        .body(body)
+        .nextCursor(until == null ? null : FeedCursor.of(until).encode())
+        .build();
   }
 
   public SelfUserDto findSelf(String issuerUsername) {
-    return userRepository
-        .findByUsernameIgnoreCase(issuerUsername)
-        .map(u -> buildProfile(u, SelfUserDto.class))
+    return findProfile(issuerUsername)
+        .map(userMapper::toSelfDto)
         .orElseThrow(UnavailableUserException::new);
   }
 
@@ -117,7 +180,7 @@ public class UserService {
       user.setPassword(password);
     }
     if (dto.getAvatar().isPresent()) {
-      user.setAvatar(dto.getAvatar().get());
+      user.setAvatar(blobService.store(dto.getAvatar().get()));
     }
     if (dto.getBiography().isPresent()) {
       user.setBiography(dto.getBiography().get());
@@ -132,7 +195,10 @@ public class UserService {
     if (dto.getNotificationRadius().isPresent()) {
       user.setNotificationRadius(dto.getNotificationRadius().get());
     }
-    return buildProfile(userRepository.save(user), SelfUserDto.class);
+    var savedUser = userRepository.save(user);
+    userRepository.evictProfile(savedUser.getId());
+    notifiableUserIndexService.update(savedUser);
+    return userMapper.toSelfDto(savedUser);
   }
 
   public void updatePassword(String username, UpdatePasswordDto dto, String issuerUsername) {
@@ -152,28 +218,34 @@ public class UserService {
   public void updatePosition(String username, UpdatePositionDto dto, String issuerUsername) {
     var violations = validator.validate(dto);
     if (!violations.isEmpty()) throw new ValidationException(violations);
-    var issuer = findIssuer(issuerUsername, false);
     var user =
         userRepository.findByUsernameIgnoreCase(username).orElseThrow(UnknownUserException::new);
+    var issuer =
+        user.getUsername().equalsIgnoreCase(issuerUsername)
+            ? user
+            : findIssuer(issuerUsername, false);
     if (!isEditableBy(user, issuer)) throw new UserNotEditableException();
-    user.setPositionAt(Instant.now());
-    user.setLatitude(dto.getLatitude());
-    user.setLongitude(dto.getLongitude());
-    userRepository.save(user);
+    positionBufferService.buffer(user, dto.getLatitude(), dto.getLongitude(), Instant.now());
   }
 
   // ---
 
-  private <T extends UserWithProfileDto> T buildProfile(UserEntity user, Class<T> clazz) {
-    var observations = observationRepository.findAllByAuthor(user);
-    var dto = modelMapper.map(user, clazz);
-    dto.setKarma(
-        observations.stream()
-            .map(
-                o ->
-                    o.getVotes().stream().map(v -> v.getVote().getWeight()).reduce(0, Integer::sum))
-            .reduce(0, Integer::sum));
-    return dto;
+  private static String encodeCursor(String username) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(UTF_8));
+  }
+
+  private static String decodeCursor(String cursor) {
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException();
+    }
+  }
+
+  private Optional<UserProfile> findProfile(String username) {
+    return userRepository
+        .findIdByUsernameIgnoreCase(username)
+        .flatMap(userRepository::findProfileById);
   }
 
   private UserEntity findIssuer(String issuerUsername, boolean allowGuest) {
@@ -187,9 +259,9 @@ public class UserService {
     return issuer.getType().equals(UserEntity.Type.ADMIN) || targetedUser.equals(issuer);
   }
 
-  private boolean isViewableBy(UserEntity targetedUser, UserEntity issuer) {
-    return (issuer != null && issuer.getType().equals(UserEntity.Type.ADMIN))
+  private boolean isViewableBy(UserProfile targetedUser, UserProfile issuer) {
+    return (issuer != null && issuer.type().equals(UserEntity.Type.ADMIN))
         || targetedUser.isPublic()
-        || targetedUser.equals(issuer);
+        || (issuer != null && targetedUser.id().equals(issuer.id()));
   }
 }
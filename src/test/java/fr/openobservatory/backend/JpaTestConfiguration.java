@@ -0,0 +1,16 @@
+package fr.openobservatory.backend;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.configuration.ReferenceCacheProperties;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the tests of the repositories and of the services built on them. Entities and
+ * repositories are scanned from the application package, without the rest of its configuration.
+ */
+@AutoConfigurationPackage(basePackageClasses = OpenObservatoryApplication.class)
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({BlobProperties.class, ReferenceCacheProperties.class})
+public class JpaTestConfiguration {}
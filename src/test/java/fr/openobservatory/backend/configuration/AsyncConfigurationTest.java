@@ -0,0 +1,42 @@
+package fr.openobservatory.backend.configuration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+class AsyncConfigurationTest {
+
+  WebApplicationContextRunner contextRunner =
+      new WebApplicationContextRunner()
+          .withConfiguration(
+              AutoConfigurations.of(
+                  TaskExecutionAutoConfiguration.class, WebMvcAutoConfiguration.class))
+          .withUserConfiguration(AsyncConfiguration.class);
+
+  // --- AsyncConfiguration#applicationTaskExecutor
+
+  @DisplayName(
+      "AsyncConfiguration#applicationTaskExecutor should run the asynchronous requests of Spring MVC")
+  @Test
+  void applicationTaskExecutor_should_run_the_asynchronous_requests_of_spring_mvc() {
+    contextRunner.run(
+        context -> {
+          // Given
+          var executor =
+              context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+
+          // When
+          var adapter = context.getBean(RequestMappingHandlerAdapter.class);
+
+          // Then
+          assertThat(ReflectionTestUtils.getField(adapter, "taskExecutor")).isSameAs(executor);
+        });
+  }
+}
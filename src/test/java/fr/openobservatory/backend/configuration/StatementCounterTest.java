@@ -0,0 +1,76 @@
+package fr.openobservatory.backend.configuration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+class StatementCounterTest {
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  StatementCounter statementCounter = new StatementCounter(meterRegistry);
+
+  // --- StatementCounter#afterCompletion
+
+  @DisplayName("StatementCounter#afterCompletion should record the statements of the request")
+  @Test
+  void afterCompletion_should_record_the_statements_of_the_request() {
+    // Given
+    var request = new MockHttpServletRequest("GET", "/users/star");
+    var response = new MockHttpServletResponse();
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{username}");
+
+    // When
+    statementCounter.inspect("SELECT 1");
+    statementCounter.preHandle(request, response, null);
+    statementCounter.inspect("SELECT 2");
+    statementCounter.inspect("SELECT 3");
+    statementCounter.afterCompletion(request, response, null, null);
+    statementCounter.inspect("SELECT 4");
+
+    // Then
+    var summary =
+        meterRegistry
+            .get("hibernate.request.statements")
+            .tag("method", "GET")
+            .tag("uri", "/users/{username}")
+            .summary();
+    assertThat(summary.count()).isEqualTo(1);
+    assertThat(summary.totalAmount()).isEqualTo(2);
+  }
+
+  // --- StatementCounter#afterConcurrentHandlingStarted
+
+  @DisplayName(
+      "StatementCounter#afterConcurrentHandlingStarted should release the thread of async requests")
+  @Test
+  void afterConcurrentHandlingStarted_should_release_the_thread_of_async_requests() {
+    // Given
+    var request = new MockHttpServletRequest("GET", "/users/star/observations");
+    var response = new MockHttpServletResponse();
+    request.setAttribute(
+        HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{username}/observations");
+
+    // When
+    statementCounter.preHandle(request, response, null);
+    statementCounter.inspect("SELECT 1");
+    statementCounter.afterConcurrentHandlingStarted(request, response, null);
+    statementCounter.inspect("SELECT 2");
+    statementCounter.preHandle(request, response, null);
+    statementCounter.inspect("SELECT 3");
+    statementCounter.afterCompletion(request, response, null, null);
+
+    // Then
+    var summary =
+        meterRegistry
+            .get("hibernate.request.statements")
+            .tag("uri", "/users/{username}/observations")
+            .summary();
+    assertThat(summary.count()).isEqualTo(1);
+    assertThat(summary.totalAmount()).isEqualTo(2);
+  }
+}
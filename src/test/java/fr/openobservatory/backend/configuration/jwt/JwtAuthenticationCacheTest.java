@@ -0,0 +1,117 @@
+package fr.openobservatory.backend.configuration.jwt;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.configuration.JwtCacheProperties;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+class JwtAuthenticationCacheTest {
+
+  JwtAuthenticationCache jwtAuthenticationCache =
+      new JwtAuthenticationCache(new JwtCacheProperties(100));
+
+  // --- JwtAuthenticationCache#get
+
+  @DisplayName("JwtAuthenticationCache#get should verify a token only once")
+  @Test
+  void get_should_verify_a_token_only_once() {
+    // Given
+    var token = "token";
+    var authenticator = new CountingAuthenticator(Instant.now().plus(1, ChronoUnit.HOURS));
+
+    // When
+    var first = jwtAuthenticationCache.get(token, authenticator);
+    var second = jwtAuthenticationCache.get(token, authenticator);
+
+    // Then
+    assertThat(second).isSameAs(first);
+    assertThat(authenticator.calls).hasValue(1);
+    assertThat(jwtAuthenticationCache.stats().hitCount()).isEqualTo(1);
+    assertThat(jwtAuthenticationCache.stats().missCount()).isEqualTo(1);
+  }
+
+  @DisplayName("JwtAuthenticationCache#get should verify distinct tokens separately")
+  @Test
+  void get_should_verify_distinct_tokens_separately() {
+    // Given
+    var authenticator = new CountingAuthenticator(Instant.now().plus(1, ChronoUnit.HOURS));
+
+    // When
+    var first = jwtAuthenticationCache.get("first", authenticator);
+    var second = jwtAuthenticationCache.get("second", authenticator);
+
+    // Then
+    assertThat(second).isNotSameAs(first);
+    assertThat(authenticator.calls).hasValue(2);
+  }
+
+  @DisplayName("JwtAuthenticationCache#get should not keep expired tokens")
+  @Test
+  void get_should_not_keep_expired_tokens() {
+    // Given
+    var token = "token";
+    var authenticator = new CountingAuthenticator(Instant.now().minus(1, ChronoUnit.MINUTES));
+
+    // When
+    jwtAuthenticationCache.get(token, authenticator);
+    jwtAuthenticationCache.get(token, authenticator);
+
+    // Then
+    assertThat(authenticator.calls).hasValue(2);
+  }
+
+  @DisplayName("JwtAuthenticationCache#get should not keep failed verifications")
+  @Test
+  void get_should_not_keep_failed_verifications() {
+    // Given
+    var token = "token";
+    var calls = new AtomicInteger();
+    Function<String, Authentication> authenticator =
+        t -> {
+          calls.incrementAndGet();
+          throw new IllegalArgumentException();
+        };
+
+    // When
+    ThrowingCallable action = () -> jwtAuthenticationCache.get(token, authenticator);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(action).isInstanceOf(IllegalArgumentException.class);
+    assertThat(calls).hasValue(2);
+  }
+
+  // ---
+
+  private static class CountingAuthenticator implements Function<String, Authentication> {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Instant expiresAt;
+
+    CountingAuthenticator(Instant expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public Authentication apply(String token) {
+      calls.incrementAndGet();
+      var jwt =
+          Jwt.withTokenValue(token)
+              .header("alg", "RS256")
+              .subject("user")
+              .issuedAt(expiresAt.minus(1, ChronoUnit.HOURS))
+              .expiresAt(expiresAt)
+              .build();
+      return new JwtAuthenticationToken(jwt);
+    }
+  }
+}
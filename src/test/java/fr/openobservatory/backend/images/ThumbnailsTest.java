@@ -0,0 +1,114 @@
+package fr.openobservatory.backend.images;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ThumbnailsTest {
+
+  // --- Thumbnails#decode
+
+  @DisplayName("Thumbnails#decode should decode a supported image")
+  @Test
+  void decode_should_decode_a_supported_image() throws IOException {
+    // Given
+    var content = png(new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB));
+
+    // When
+    var image = Thumbnails.decode(content);
+
+    // Then
+    assertThat(image)
+        .hasValueSatisfying(
+            i -> {
+              assertThat(i.getWidth()).isEqualTo(30);
+              assertThat(i.getHeight()).isEqualTo(20);
+            });
+  }
+
+  @DisplayName("Thumbnails#decode should decode nothing from an unsupported image")
+  @Test
+  void decode_should_decode_nothing_from_an_unsupported_image() {
+    // When
+    var image = Thumbnails.decode("<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes());
+
+    // Then
+    assertThat(image).isEmpty();
+  }
+
+  // --- Thumbnails#scaleDown
+
+  @DisplayName("Thumbnails#scaleDown should fit the larger side and keep the aspect ratio")
+  @Test
+  void scaleDown_should_fit_the_larger_side_and_keep_the_aspect_ratio() {
+    // Given
+    var image = new BufferedImage(2000, 1000, BufferedImage.TYPE_3BYTE_BGR);
+
+    // When
+    var thumbnail = Thumbnails.scaleDown(image, 256);
+
+    // Then
+    assertThat(thumbnail.getWidth()).isEqualTo(256);
+    assertThat(thumbnail.getHeight()).isEqualTo(128);
+    assertThat(thumbnail.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+  }
+
+  @DisplayName("Thumbnails#scaleDown should not scale smaller images up")
+  @Test
+  void scaleDown_should_not_scale_smaller_images_up() {
+    // Given
+    var image = new BufferedImage(40, 60, BufferedImage.TYPE_4BYTE_ABGR);
+
+    // When
+    var thumbnail = Thumbnails.scaleDown(image, 256);
+
+    // Then
+    assertThat(thumbnail.getWidth()).isEqualTo(40);
+    assertThat(thumbnail.getHeight()).isEqualTo(60);
+    assertThat(thumbnail.getType()).isEqualTo(BufferedImage.TYPE_INT_ARGB);
+  }
+
+  // --- Thumbnails#encode
+
+  @DisplayName("Thumbnails#encode should encode opaque images as JPEG")
+  @Test
+  void encode_should_encode_opaque_images_as_jpeg() throws IOException {
+    // Given
+    var image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+
+    // When
+    var encoded = Thumbnails.encode(image);
+
+    // Then
+    assertThat(encoded.mediaType()).isEqualTo("image/jpeg");
+    assertThat(Thumbnails.decode(encoded.content())).isPresent();
+  }
+
+  @DisplayName("Thumbnails#encode should encode transparent images as PNG")
+  @Test
+  void encode_should_encode_transparent_images_as_png() {
+    // Given
+    var image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+
+    // When
+    var encoded = Thumbnails.encode(image);
+
+    // Then
+    assertThat(encoded.mediaType()).isEqualTo("image/png");
+    assertThat(Thumbnails.decode(encoded.content()))
+        .hasValueSatisfying(i -> assertThat(i.getColorModel().hasAlpha()).isTrue());
+  }
+
+  // ---
+
+  static byte[] png(BufferedImage image) throws IOException {
+    var output = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", output);
+    return output.toByteArray();
+  }
+}
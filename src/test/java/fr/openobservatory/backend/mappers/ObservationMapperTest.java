@@ -0,0 +1,137 @@
+package fr.openobservatory.backend.mappers;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.dto.output.ObservationDto;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.util.unit.DataSize;
+
+class ObservationMapperTest {
+
+  static final BlobProperties BLOB_PROPERTIES =
+      new BlobProperties("/blobs/", DataSize.ofMegabytes(2));
+
+  ObservationMapper observationMapper =
+      new ObservationMapper(
+          BLOB_PROPERTIES,
+          new CelestialBodyMapper(BLOB_PROPERTIES),
+          new UserMapper(BLOB_PROPERTIES));
+
+  // --- ObservationMapper#toDto
+
+  @DisplayName("ObservationMapper#toDto should map like ModelMapper")
+  @Test
+  void toDto_should_map_like_model_mapper() {
+    // Given
+    var observation = observation(Instant.now());
+
+    // When
+    var dto = observationMapper.toDto(observation);
+
+    // Then
+    assertThat(dto).isEqualTo(expected(observation));
+  }
+
+  // --- ObservationMapper#toDetailedDto
+
+  @DisplayName("ObservationMapper#toDetailedDto should map the details of an entity")
+  @Test
+  void toDetailedDto_should_map_the_details_of_an_entity() {
+    // Given
+    var observation = observation(Instant.now().minus(4, ChronoUnit.HOURS));
+
+    // When
+    var dto = observationMapper.toDetailedDto(observation);
+
+    // Then
+    assertThat(dto)
+        .usingRecursiveComparison()
+        .ignoringFields("isExpired", "karma", "currentVote")
+        .isEqualTo(expected(observation));
+    assertThat(dto.isExpired()).isTrue();
+    assertThat(dto.getKarma()).isEqualTo(observation.getKarma());
+    assertThat(dto.getCurrentVote()).isNull();
+  }
+
+  @DisplayName("ObservationMapper#toDetailedDto should map a projection like an entity")
+  @Test
+  void toDetailedDto_should_map_a_projection_like_an_entity() {
+    // Given
+    var observation = observation(Instant.now());
+    var author = observation.getAuthor();
+    var celestialBody = observation.getCelestialBody();
+    var projection =
+        new DetailedObservation(
+            observation.getId(),
+            observation.getDescription(),
+            observation.getLatitude(),
+            observation.getLongitude(),
+            observation.getOrientation(),
+            observation.getVisibility(),
+            observation.getTimestamp(),
+            observation.getExpiresAt(),
+            observation.getKarma(),
+            author.getUsername(),
+            author.getAvatar(),
+            author.isPublic(),
+            author.getType(),
+            celestialBody.getId(),
+            celestialBody.getName(),
+            celestialBody.getImage(),
+            celestialBody.getValidityTime(),
+            VoteType.UPVOTE);
+
+    // When
+    var dto = observationMapper.toDetailedDto(projection);
+
+    // Then
+    var expected = observationMapper.toDetailedDto(observation);
+    expected.setCurrentVote(VoteType.UPVOTE);
+    assertThat(dto).isEqualTo(expected);
+  }
+
+  // ---
+
+  private static ObservationDto expected(ObservationEntity observation) {
+    var expected = new ModelMapper().map(observation, ObservationDto.class);
+    expected.getAuthor().setAvatar("/blobs/avatar?size=FEED");
+    expected.getCelestialBody().setImage("/blobs/moon?size=FEED");
+    return expected;
+  }
+
+  private static ObservationEntity observation(Instant timestamp) {
+    var author =
+        UserEntity.builder()
+            .id(1L)
+            .username("author")
+            .avatar("avatar")
+            .isPublic(false)
+            .type(UserEntity.Type.ADMIN)
+            .build();
+    var celestialBody =
+        CelestialBodyEntity.builder().id(2L).name("Moon").image("moon").validityTime(3).build();
+    return ObservationEntity.builder()
+        .id(3L)
+        .author(author)
+        .celestialBody(celestialBody)
+        .description("Full moon")
+        .latitude(12.5)
+        .longitude(-4.25)
+        .orientation(90)
+        .visibility(ObservationEntity.Visibility.VISIBLE)
+        .timestamp(timestamp)
+        .expiresAt(timestamp.plus(3, ChronoUnit.HOURS))
+        .karma(7)
+        .build();
+  }
+}
@@ -0,0 +1,115 @@
+package fr.openobservatory.backend.mappers;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.configuration.BlobProperties;
+import fr.openobservatory.backend.dto.output.SelfUserDto;
+import fr.openobservatory.backend.dto.output.UserDto;
+import fr.openobservatory.backend.dto.output.UserWithProfileDto;
+import fr.openobservatory.backend.entities.UserAchievementEntity;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.util.unit.DataSize;
+
+class UserMapperTest {
+
+  UserMapper userMapper = new UserMapper(new BlobProperties("/blobs/", DataSize.ofMegabytes(2)));
+
+  // --- UserMapper#toDto
+
+  @DisplayName("UserMapper#toDto should map like ModelMapper")
+  @Test
+  void toDto_should_map_like_model_mapper() {
+    // Given
+    var user = user();
+
+    // When
+    var dto = userMapper.toDto(user);
+
+    // Then
+    var expected = new ModelMapper().map(user, UserDto.class);
+    expected.setAvatar("/blobs/avatar?size=FEED");
+    assertThat(dto).isEqualTo(expected);
+  }
+
+  // --- UserMapper#toProfileDto
+
+  @DisplayName("UserMapper#toProfileDto should map like ModelMapper")
+  @Test
+  void toProfileDto_should_map_like_model_mapper() {
+    // Given
+    var user = user();
+
+    // When
+    var dto = userMapper.toProfileDto(user);
+
+    // Then
+    var expected = new ModelMapper().map(user, UserWithProfileDto.class);
+    expected.setAvatar("/blobs/avatar?size=PROFILE");
+    assertThat(dto).isEqualTo(expected);
+    assertThat(dto.getAchievements())
+        .singleElement()
+        .satisfies(a -> assertThat(a.getLevel().getName()).isEqualTo("BEGINNER"));
+  }
+
+  // --- UserMapper#toSelfDto
+
+  @DisplayName("UserMapper#toSelfDto should map like ModelMapper")
+  @Test
+  void toSelfDto_should_map_like_model_mapper() {
+    // Given
+    var user = user();
+
+    // When
+    var dto = userMapper.toSelfDto(user);
+
+    // Then
+    var expected = new ModelMapper().map(user, SelfUserDto.class);
+    expected.setAvatar("/blobs/avatar?size=PROFILE");
+    assertThat(dto).isEqualTo(expected);
+  }
+
+  @DisplayName("UserMapper#toDto should map a missing avatar to null")
+  @Test
+  void toDto_should_map_a_missing_avatar_to_null() {
+    // Given
+    var user = user();
+    user.setAvatar(null);
+
+    // When
+    var dto = userMapper.toDto(user);
+
+    // Then
+    assertThat(dto.getAvatar()).isNull();
+  }
+
+  // ---
+
+  private static UserEntity user() {
+    var user =
+        UserEntity.builder()
+            .id(1L)
+            .username("user")
+            .avatar("avatar")
+            .biography("Stargazer")
+            .isPublic(false)
+            .type(UserEntity.Type.USER)
+            .karma(12)
+            .notificationEnabled(true)
+            .notificationRadius(30)
+            .build();
+    user.setAchievements(
+        Set.of(
+            UserAchievementEntity.builder()
+                .achievement(Achievement.OBSERVER)
+                .level(Level.BEGINNER)
+                .user(user)
+                .build()));
+    return user;
+  }
+}
@@ -0,0 +1,40 @@
+package fr.openobservatory.backend.orbit;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class GeodesyTest {
+
+  // --- Geodesy#toGeodetic
+
+  @DisplayName("Geodesy#toGeodetic should convert back geodetic coordinates")
+  @Test
+  void toGeodetic_should_convert_back_geodetic_coordinates() {
+    // Given
+    var position = new GeodeticPosition(48.8566, 2.3522, 420);
+
+    // When
+    var converted = Geodesy.toGeodetic(Geodesy.toEarthFixed(position));
+
+    // Then
+    assertThat(converted.latitude()).isCloseTo(position.latitude(), within(1e-9));
+    assertThat(converted.longitude()).isCloseTo(position.longitude(), within(1e-9));
+    assertThat(converted.altitude()).isCloseTo(position.altitude(), within(1e-6));
+  }
+
+  // --- Geodesy#siderealTime
+
+  @DisplayName("Geodesy#siderealTime should match the reference sidereal time")
+  @Test
+  void siderealTime_should_match_the_reference_sidereal_time() {
+    // When
+    // Vallado, "Fundamentals of Astrodynamics", example 3-5: 1992-08-20 12:14 UT1
+    var gmst = Geodesy.siderealTime(Instant.parse("1992-08-20T12:14:00Z"));
+
+    // Then
+    assertThat(Math.toDegrees(gmst)).isCloseTo(152.578787810, within(1e-6));
+  }
+}
@@ -0,0 +1,141 @@
+package fr.openobservatory.backend.orbit;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.exceptions.InvalidTwoLineElementsException;
+import java.time.Instant;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class Sgp4PropagatorTest {
+
+  /** Test case of Vallado et al., "Revisiting Spacetrack Report #3", with its reference output. */
+  static final TwoLineElements VANGUARD =
+      TwoLineElements.parse(
+          null,
+          "1 00005U 58002B   00179.78495062  .00000023  00000-0  28098-4 0  4753",
+          "2 00005  34.2682 348.7242 1859667 331.7664  19.3264 10.82419157413667");
+
+  static final TwoLineElements ISS =
+      TwoLineElements.parse(
+          "ISS (ZARYA)",
+          "1 25544U 98067A   19343.69339541  .00001764  00000-0  38792-4 0  9991",
+          "2 25544  51.6439 211.2001 0007417  17.6667  85.6398 15.50103472202482");
+
+  static final Offset<Double> POSITION_TOLERANCE = within(1e-3);
+  static final Offset<Double> VELOCITY_TOLERANCE = within(1e-6);
+
+  // --- TwoLineElements#parse
+
+  @DisplayName("TwoLineElements#parse should read the fields of the element set")
+  @Test
+  void parse_should_read_the_fields_of_the_element_set() {
+    // Then
+    assertThat(ISS.name()).isEqualTo("ISS (ZARYA)");
+    assertThat(ISS.noradId()).isEqualTo(25544);
+    assertThat(ISS.epoch()).isCloseTo(Instant.parse("2019-12-09T16:38:29.363Z"), within(1, MILLIS));
+    assertThat(ISS.bstar()).isCloseTo(0.38792e-4, within(1e-12));
+    assertThat(ISS.inclination()).isEqualTo(51.6439);
+    assertThat(ISS.eccentricity()).isEqualTo(0.0007417);
+    assertThat(ISS.meanMotion()).isEqualTo(15.50103472);
+  }
+
+  @DisplayName("TwoLineElements#parse should reject a line with an invalid checksum")
+  @Test
+  void parse_should_reject_a_line_with_an_invalid_checksum() {
+    // When
+    ThrowingCallable action =
+        () ->
+            TwoLineElements.parse(
+                null,
+                "1 25544U 98067A   19343.69339541  .00001764  00000-0  38792-4 0  9992",
+                "2 25544  51.6439 211.2001 0007417  17.6667  85.6398 15.50103472202482");
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(InvalidTwoLineElementsException.class);
+  }
+
+  @DisplayName("TwoLineElements#parseAll should read two-line and three-line element sets")
+  @Test
+  void parseAll_should_read_two_line_and_three_line_element_sets() {
+    // Given
+    var text =
+        """
+        ISS (ZARYA)
+        1 25544U 98067A   19343.69339541  .00001764  00000-0  38792-4 0  9991
+        2 25544  51.6439 211.2001 0007417  17.6667  85.6398 15.50103472202482
+
+        1 00005U 58002B   00179.78495062  .00000023  00000-0  28098-4 0  4753
+        2 00005  34.2682 348.7242 1859667 331.7664  19.3264 10.82419157413667
+        """;
+
+    // When
+    var elements = TwoLineElements.parseAll(text);
+
+    // Then
+    assertThat(elements).containsExactly(ISS, VANGUARD);
+  }
+
+  // --- Sgp4Propagator#propagate
+
+  @DisplayName("Sgp4Propagator#propagate should match the reference vectors")
+  @ParameterizedTest
+  @CsvSource({
+    "0,7022.46529266,-1400.08296755,0.03995155,1.893841015,6.405893759,4.534807250",
+    "360,-7154.03120202,-3783.17682504,-3536.19412294,4.741887409,-4.151817765,-2.093935425",
+    "720,-7134.59340119,6531.68641334,3260.27186483,-4.113793027,-2.911922039,-2.557327851",
+    "1080,5568.53901181,4492.06992591,3863.87641983,-4.209106476,5.159719888,2.744852980",
+    "1440,-938.55923943,-6268.18748831,-4294.02924751,7.536105209,-0.427127707,0.989878080"
+  })
+  void propagate_should_match_the_reference_vectors(
+      double tsince, double x, double y, double z, double vx, double vy, double vz) {
+    // When
+    var state = new Sgp4Propagator(VANGUARD).propagate(tsince);
+
+    // Then
+    assertThat(state.x()).isCloseTo(x, POSITION_TOLERANCE);
+    assertThat(state.y()).isCloseTo(y, POSITION_TOLERANCE);
+    assertThat(state.z()).isCloseTo(z, POSITION_TOLERANCE);
+    assertThat(state.vx()).isCloseTo(vx, VELOCITY_TOLERANCE);
+    assertThat(state.vy()).isCloseTo(vy, VELOCITY_TOLERANCE);
+    assertThat(state.vz()).isCloseTo(vz, VELOCITY_TOLERANCE);
+  }
+
+  @DisplayName("Sgp4Propagator#propagate should match the reference vector of the ISS")
+  @Test
+  void propagate_should_match_the_reference_vector_of_the_iss() {
+    // When
+    var state = new Sgp4Propagator(ISS).propagate(Instant.parse("2019-12-09T20:42:09.072Z"));
+
+    // Then
+    // Reference output of the python-sgp4 library, rounded to its published precision
+    assertThat(state.x()).isCloseTo(-6102.44, within(1e-2));
+    assertThat(state.y()).isCloseTo(-986.33, within(1e-2));
+    assertThat(state.z()).isCloseTo(-2820.31, within(1e-2));
+    assertThat(state.vx()).isCloseTo(-1.45, within(1e-2));
+    assertThat(state.vy()).isCloseTo(-5.52, within(1e-2));
+    assertThat(state.vz()).isCloseTo(5.10, within(1e-2));
+  }
+
+  @DisplayName("Sgp4Propagator#new should reject deep-space orbits")
+  @Test
+  void new_should_reject_deep_space_orbits() {
+    // Given
+    var geostationary =
+        TwoLineElements.parse(
+            null,
+            "1 28626U 05008A   06176.46683397 -.00000205  00000-0  10000-3 0  2190",
+            "2 28626   0.0019 286.9433 0000335  13.7918  55.6504  1.00270176  4891");
+
+    // When
+    ThrowingCallable action = () -> new Sgp4Propagator(geostationary);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(IllegalArgumentException.class);
+  }
+}
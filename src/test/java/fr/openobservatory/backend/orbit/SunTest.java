@@ -0,0 +1,38 @@
+package fr.openobservatory.backend.orbit;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SunTest {
+
+  // --- Sun#position
+
+  @DisplayName("Sun#position should match the reference position of the Sun")
+  @Test
+  void position_should_match_the_reference_position_of_the_sun() {
+    // When
+    // Vallado, "Fundamentals of Astrodynamics", example 5-1: 2006-04-02 00:00 UT1
+    var sun = Sun.position(Instant.parse("2006-04-02T00:00:00Z"));
+
+    // Then
+    var au = 149597870.7;
+    assertThat(sun[0] / au).isCloseTo(0.9771945, within(1e-4));
+    assertThat(sun[1] / au).isCloseTo(0.1924424, within(1e-4));
+    assertThat(sun[2] / au).isCloseTo(0.0834308, within(1e-4));
+  }
+
+  @DisplayName("Sun#illuminates should tell when a satellite is in the shadow of the Earth")
+  @Test
+  void illuminates_should_tell_when_a_satellite_is_in_the_shadow_of_the_earth() {
+    // Given
+    var sun = new double[] {149597870.7, 0, 0};
+
+    // Then
+    assertThat(Sun.illuminates(new StateVector(6800, 0, 0, 0, 0, 0), sun)).isTrue();
+    assertThat(Sun.illuminates(new StateVector(-6800, 0, 0, 0, 0, 0), sun)).isFalse();
+    assertThat(Sun.illuminates(new StateVector(-6800, 6800, 0, 0, 0, 0), sun)).isTrue();
+  }
+}
@@ -0,0 +1,204 @@
+package fr.openobservatory.backend.providers;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import fr.openobservatory.backend.configuration.PushServiceConfiguration;
+import fr.openobservatory.backend.configuration.PushServiceProperties;
+import fr.openobservatory.backend.providers.PushProvider.PushMessage;
+import fr.openobservatory.backend.providers.PushProvider.PushMessageException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import nl.martijndwars.webpush.Utils;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.interfaces.ECPrivateKey;
+import org.bouncycastle.jce.interfaces.ECPublicKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PushProviderTest {
+
+  HttpServer server;
+  ConcurrentLinkedQueue<Map<String, String>> requests = new ConcurrentLinkedQueue<>();
+  AtomicInteger status = new AtomicInteger(201);
+  CountDownLatch answer = new CountDownLatch(0);
+  PushProvider pushProvider;
+  PushMessage message;
+
+  @BeforeAll
+  static void registerProvider() {
+    if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null)
+      Security.addProvider(new BouncyCastleProvider());
+  }
+
+  @BeforeEach
+  void setUp() throws IOException, GeneralSecurityException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newFixedThreadPool(4));
+    server.createContext(
+        "/push",
+        exchange -> {
+          var body = exchange.getRequestBody().readAllBytes();
+          requests.add(
+              Map.of(
+                  "method", exchange.getRequestMethod(),
+                  "authorization", exchange.getRequestHeaders().getFirst("Authorization"),
+                  "encoding", exchange.getRequestHeaders().getFirst("Content-Encoding"),
+                  "length", String.valueOf(body.length)));
+          try {
+            answer.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.getResponseHeaders().add("Retry-After", "30");
+          exchange.sendResponseHeaders(status.get(), -1);
+          exchange.close();
+        });
+    server.start();
+
+    var vapidKeys = generateKeyPair();
+    var userKeys = generateKeyPair();
+    var properties =
+        new PushServiceProperties(
+            encode(Utils.encode((ECPrivateKey) vapidKeys.getPrivate())),
+            encode(Utils.encode((ECPublicKey) vapidKeys.getPublic())),
+            "mailto:admin@example.com",
+            new PushServiceProperties.Dispatch(1, 1, 16),
+            null);
+    var configuration = new PushServiceConfiguration(properties);
+    pushProvider =
+        new PushProvider(
+            new ObjectMapper(),
+            properties,
+            configuration.webPushRequestFactory(),
+            configuration.pushHttpClient());
+    var auth = new byte[16];
+    new SecureRandom().nextBytes(auth);
+    message =
+        new PushMessage(
+            "http://localhost:" + server.getAddress().getPort() + "/push",
+            encode(auth),
+            encode(Utils.encode((ECPublicKey) userKeys.getPublic())),
+            Map.of("code", "OBSERVATION_NEARBY"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    answer.countDown();
+    server.stop(0);
+  }
+
+  // --- PushProvider#sendAsync
+
+  @DisplayName("PushProvider#sendAsync should post encrypted and signed message")
+  @Test
+  void sendAsync_should_post_encrypted_and_signed_message() {
+    // When
+    var response = pushProvider.sendAsync(message).join();
+
+    // Then
+    assertThat(response.isSuccessful()).isTrue();
+    assertThat(requests)
+        .singleElement()
+        .satisfies(
+            r -> {
+              assertThat(r.get("method")).isEqualTo("POST");
+              assertThat(r.get("authorization")).startsWith("vapid t=");
+              assertThat(r.get("encoding")).isEqualTo("aes128gcm");
+              assertThat(Integer.parseInt(r.get("length"))).isPositive();
+            });
+  }
+
+  @DisplayName("PushProvider#sendAsync should send concurrent messages beyond the pending limit")
+  @Test
+  void sendAsync_should_send_concurrent_messages_beyond_the_pending_limit() {
+    // When
+    var responses = IntStream.range(0, 200).mapToObj(i -> pushProvider.sendAsync(message)).toList();
+    CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+
+    // Then
+    assertThat(responses).allSatisfy(r -> assertThat(r.join().status()).isEqualTo(201));
+    assertThat(requests).hasSize(200);
+  }
+
+  @DisplayName("PushProvider#sendAsync should return rejected response with its retry delay")
+  @Test
+  void sendAsync_should_return_rejected_response_with_its_retry_delay() {
+    // Given
+    status.set(429);
+
+    // When
+    var response = pushProvider.sendAsync(message).join();
+
+    // Then
+    assertThat(response.isSuccessful()).isFalse();
+    assertThat(response.status()).isEqualTo(429);
+    assertThat(response.retryAfter()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @DisplayName("PushProvider#sendAsync should fail when push service is unreachable")
+  @Test
+  void sendAsync_should_fail_when_push_service_is_unreachable() {
+    // Given
+    server.stop(0);
+
+    // When
+    var response = pushProvider.sendAsync(message);
+
+    // Then
+    assertThat(response).failsWithin(Duration.ofSeconds(15));
+    assertThatThrownBy(response::join)
+        .hasCauseInstanceOf(PushMessageException.class)
+        .hasRootCauseInstanceOf(IOException.class);
+  }
+
+  @DisplayName(
+      "PushProvider#sendAsync should fail as unreachable when too many messages are pending")
+  @Test
+  void sendAsync_should_fail_as_unreachable_when_too_many_messages_are_pending() {
+    // Given
+    answer = new CountDownLatch(1);
+    var pending = IntStream.range(0, 16).mapToObj(i -> pushProvider.sendAsync(message)).toList();
+
+    // When
+    var response = pushProvider.sendAsync(message);
+    answer.countDown();
+
+    // Then
+    assertThatThrownBy(response::join)
+        .hasCauseInstanceOf(PushMessageException.class)
+        .hasRootCauseInstanceOf(IOException.class);
+    assertThat(pending).allSatisfy(r -> assertThat(r.join().status()).isEqualTo(201));
+  }
+
+  // ---
+
+  private static KeyPair generateKeyPair() throws GeneralSecurityException {
+    var generator = KeyPairGenerator.getInstance("ECDH", "BC");
+    generator.initialize(ECNamedCurveTable.getParameterSpec("prime256v1"));
+    return generator.generateKeyPair();
+  }
+
+  private static String encode(byte[] bytes) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+}
@@ -0,0 +1,106 @@
+package fr.openobservatory.backend.providers;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.configuration.PushServiceProperties;
+import fr.openobservatory.backend.providers.PushProvider.PushMessageException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PushRetryPolicyTest {
+
+  PushRetryPolicy pushRetryPolicy =
+      new PushRetryPolicy(
+          new PushServiceProperties(
+              null,
+              null,
+              null,
+              null,
+              new PushServiceProperties.Retry(5, Duration.ofSeconds(2), Duration.ofSeconds(10))));
+
+  // --- PushRetryPolicy#isExpired
+
+  @DisplayName("PushRetryPolicy#isExpired should only consider gone subscriptions as expired")
+  @Test
+  void isExpired_should_only_consider_gone_subscriptions_as_expired() {
+    // Then
+    assertThat(pushRetryPolicy.isExpired(404)).isTrue();
+    assertThat(pushRetryPolicy.isExpired(410)).isTrue();
+    assertThat(pushRetryPolicy.isExpired(429)).isFalse();
+    assertThat(pushRetryPolicy.isExpired(503)).isFalse();
+  }
+
+  // --- PushRetryPolicy#isRetryable
+
+  @DisplayName("PushRetryPolicy#isRetryable should retry throttled and failed deliveries")
+  @Test
+  void isRetryable_should_retry_throttled_and_failed_deliveries() {
+    // Then
+    assertThat(pushRetryPolicy.isRetryable(429)).isTrue();
+    assertThat(pushRetryPolicy.isRetryable(500)).isTrue();
+    assertThat(pushRetryPolicy.isRetryable(503)).isTrue();
+    assertThat(pushRetryPolicy.isRetryable(400)).isFalse();
+    assertThat(pushRetryPolicy.isRetryable(413)).isFalse();
+  }
+
+  @DisplayName("PushRetryPolicy#isRetryable should only retry unreachable push services")
+  @Test
+  void isRetryable_should_only_retry_unreachable_push_services() {
+    // Then
+    assertThat(pushRetryPolicy.isRetryable(new PushMessageException(new ConnectException())))
+        .isTrue();
+    assertThat(
+            pushRetryPolicy.isRetryable(
+                new CompletionException(
+                    new PushMessageException(new HttpTimeoutException("timed out")))))
+        .isTrue();
+    assertThat(pushRetryPolicy.isRetryable(new PushMessageException())).isFalse();
+    assertThat(
+            pushRetryPolicy.isRetryable(
+                new PushMessageException(new GeneralSecurityException("invalid key"))))
+        .isFalse();
+  }
+
+  // --- PushRetryPolicy#nextDelay
+
+  @DisplayName("PushRetryPolicy#nextDelay should double delay up to the maximum")
+  @Test
+  void nextDelay_should_double_delay_up_to_the_maximum() {
+    // Then
+    assertThat(pushRetryPolicy.nextDelay(1, null))
+        .hasValueSatisfying(
+            d -> assertThat(d).isBetween(Duration.ofSeconds(1), Duration.ofSeconds(2)));
+    assertThat(pushRetryPolicy.nextDelay(2, null))
+        .hasValueSatisfying(
+            d -> assertThat(d).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(4)));
+    assertThat(pushRetryPolicy.nextDelay(4, null))
+        .hasValueSatisfying(
+            d -> assertThat(d).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10)));
+  }
+
+  @DisplayName("PushRetryPolicy#nextDelay should honour delay requested by push service")
+  @Test
+  void nextDelay_should_honour_delay_requested_by_push_service() {
+    // Then
+    assertThat(pushRetryPolicy.nextDelay(1, Duration.ofSeconds(8))).contains(Duration.ofSeconds(8));
+  }
+
+  @DisplayName("PushRetryPolicy#nextDelay should give up after the last attempt")
+  @Test
+  void nextDelay_should_give_up_after_the_last_attempt() {
+    // Then
+    assertThat(pushRetryPolicy.nextDelay(5, null)).isEmpty();
+  }
+
+  @DisplayName("PushRetryPolicy#nextDelay should give up when requested delay is too long")
+  @Test
+  void nextDelay_should_give_up_when_requested_delay_is_too_long() {
+    // Then
+    assertThat(pushRetryPolicy.nextDelay(1, Duration.ofMinutes(1))).isEmpty();
+  }
+}
@@ -0,0 +1,95 @@
+package fr.openobservatory.backend.repositories;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.configuration.CacheConfiguration;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest(
+    properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "reference-cache.maximum-size=100",
+      "reference-cache.expire-after-write=1h"
+    })
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import(CacheConfiguration.class)
+class CelestialBodyRepositoryTest {
+
+  @Autowired CacheManager cacheManager;
+  @Autowired CelestialBodyRepository celestialBodyRepository;
+  @Autowired EntityManagerFactory entityManagerFactory;
+  @Autowired TestEntityManager entityManager;
+
+  Statistics statistics;
+  CelestialBodyEntity celestialBody;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    celestialBody =
+        entityManager.persistFlushFind(
+            CelestialBodyEntity.builder().name("Moon").image("-").validityTime(3).build());
+    entityManager.clear();
+    cacheManager.getCache(CacheConfiguration.CELESTIAL_BODIES).clear();
+    statistics.clear();
+  }
+
+  // --- CelestialBodyRepository#findCachedById
+
+  @DisplayName("CelestialBodyRepository#findCachedById should load the celestial body only once")
+  @Test
+  void findCachedById_should_load_the_celestial_body_only_once() {
+    // When
+    var first = celestialBodyRepository.findCachedById(celestialBody.getId());
+    entityManager.clear();
+    var second = celestialBodyRepository.findCachedById(celestialBody.getId());
+
+    // Then
+    assertThat(first).get().isEqualTo(celestialBody);
+    assertThat(second).get().isEqualTo(celestialBody).isNotSameAs(first.get());
+    assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+  }
+
+  @DisplayName("CelestialBodyRepository#findCachedById should find nothing when id is unknown")
+  @Test
+  void findCachedById_should_find_nothing_when_id_is_unknown() {
+    // When
+    var found = celestialBodyRepository.findCachedById(-1L);
+
+    // Then
+    assertThat(found).isEmpty();
+  }
+
+  // --- CelestialBodyRepository#evictCached
+
+  @DisplayName("CelestialBodyRepository#evictCached should reload the updated celestial body")
+  @Test
+  void evictCached_should_reload_the_updated_celestial_body() {
+    // Given
+    celestialBodyRepository.findCachedById(celestialBody.getId());
+    var managed = entityManager.find(CelestialBodyEntity.class, celestialBody.getId());
+    managed.setValidityTime(6);
+    entityManager.flush();
+    entityManager.clear();
+
+    // When
+    celestialBodyRepository.evictCached(celestialBody.getId());
+    var found = celestialBodyRepository.findCachedById(celestialBody.getId());
+
+    // Then
+    assertThat(found).get().extracting(CelestialBodyEntity::getValidityTime).isEqualTo(6);
+  }
+}
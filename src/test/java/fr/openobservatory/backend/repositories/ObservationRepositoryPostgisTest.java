@@ -0,0 +1,125 @@
+package fr.openobservatory.backend.repositories;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationEntity.Visibility;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.services.GeospatialService;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Testcontainers(disabledWithoutDocker = true)
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import(GeospatialService.class)
+class ObservationRepositoryPostgisTest {
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(
+          DockerImageName.parse("postgis/postgis:15-3.3").asCompatibleSubstituteFor("postgres"));
+
+  @DynamicPropertySource
+  static void datasource(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired GeospatialService geospatialService;
+  @Autowired TestEntityManager entityManager;
+  @Autowired ObservationRepository observationRepository;
+
+  CelestialBodyEntity celestialBody;
+  UserEntity author;
+
+  @BeforeEach
+  void setUp() {
+    geospatialService.initialize();
+    author = entityManager.persist(UserEntity.builder().username("author").password("-").build());
+    celestialBody =
+        entityManager.persist(
+            CelestialBodyEntity.builder().name("Moon").image("-").validityTime(3).build());
+  }
+
+  // --- ObservationRepository#findAllWithin
+
+  @DisplayName(
+      "ObservationRepository#findAllWithin should find observations across the antimeridian")
+  @Test
+  void findAllWithin_should_find_observations_across_the_antimeridian() {
+    // Given
+    var nearby = observation(0.1, -179.9, Instant.now());
+    var far = observation(0.1, -170.0, Instant.now());
+
+    // When
+    var observations = observationRepository.findAllWithin(0.0, 179.9, 50_000);
+
+    // Then
+    assertThat(geospatialService.isEnabled()).isTrue();
+    assertThat(observations)
+        .extracting(ObservationEntity::getId)
+        .contains(nearby.getId())
+        .doesNotContain(far.getId());
+  }
+
+  @DisplayName("ObservationRepository#findAllWithin should find observations near the poles")
+  @Test
+  void findAllWithin_should_find_observations_near_the_poles() {
+    // Given
+    var nearby = observation(89.9, 90.0, Instant.now());
+
+    // When
+    var observations = observationRepository.findAllWithin(89.9, -90.0, 50_000);
+
+    // Then
+    assertThat(observations).extracting(ObservationEntity::getId).contains(nearby.getId());
+  }
+
+  @DisplayName("ObservationRepository#findAllWithin should ignore expired observations")
+  @Test
+  void findAllWithin_should_ignore_expired_observations() {
+    // Given
+    var expired = observation(10.0, 10.0, Instant.now().minus(4, ChronoUnit.HOURS));
+
+    // When
+    var observations = observationRepository.findAllWithin(10.0, 10.0, 1_000);
+
+    // Then
+    assertThat(observations).extracting(ObservationEntity::getId).doesNotContain(expired.getId());
+  }
+
+  // ---
+
+  private ObservationEntity observation(double latitude, double longitude, Instant timestamp) {
+    return observationRepository.saveAndFlush(
+        ObservationEntity.builder()
+            .author(author)
+            .celestialBody(celestialBody)
+            .latitude(latitude)
+            .longitude(longitude)
+            .orientation(90)
+            .visibility(Visibility.VISIBLE)
+            .timestamp(timestamp)
+            .build());
+  }
+}
@@ -0,0 +1,253 @@
+package fr.openobservatory.backend.repositories;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationEntity.Visibility;
+import fr.openobservatory.backend.entities.ObservationVoteEntity;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.entities.UserEntity.Type;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import fr.openobservatory.backend.repositories.StreamingObservationRepository.Position;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+class ObservationRepositoryTest {
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+  @Autowired TestEntityManager entityManager;
+  @Autowired ObservationRepository observationRepository;
+
+  Statistics statistics;
+  UserEntity issuer;
+  List<ObservationEntity> observations = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    issuer = entityManager.persist(UserEntity.builder().username("issuer").password("-").build());
+    for (int i = 0; i < 5; i++) {
+      var author =
+          entityManager.persist(UserEntity.builder().username("author" + i).password("-").build());
+      var celestialBody =
+          entityManager.persist(
+              CelestialBodyEntity.builder().name("Body " + i).image("-").validityTime(3).build());
+      var observation =
+          entityManager.persist(
+              ObservationEntity.builder()
+                  .author(author)
+                  .celestialBody(celestialBody)
+                  .latitude(1.0)
+                  .longitude(2.0)
+                  .orientation(90)
+                  .visibility(Visibility.VISIBLE)
+                  .timestamp(Instant.ofEpochSecond(1680000000L + i))
+                  .karma(i)
+                  .build());
+      entityManager.persist(
+          ObservationVoteEntity.builder()
+              .observation(observation)
+              .user(author)
+              .vote(VoteType.UPVOTE)
+              .build());
+      observations.add(observation);
+    }
+    entityManager.persist(
+        ObservationVoteEntity.builder()
+            .observation(observations.get(4))
+            .user(issuer)
+            .vote(VoteType.DOWNVOTE)
+            .build());
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+  }
+
+  // --- ObservationRepository#findAllDetailed
+
+  @DisplayName("ObservationRepository#findAllDetailed should fetch a page in a single query")
+  @Test
+  void findAllDetailed_should_fetch_a_page_in_a_single_query() {
+    // When
+    var page = observationRepository.findAllDetailed(issuer.getId(), Pageable.ofSize(2));
+
+    // Then
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // Page and total count
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(page.getContent())
+        .extracting(ObservationRepository.DetailedObservation::id)
+        .containsExactly(observations.get(4).getId(), observations.get(3).getId());
+    assertThat(page.getContent().get(0))
+        .satisfies(
+            o -> {
+              assertThat(o.authorUsername()).isEqualTo("author4");
+              assertThat(o.celestialBodyName()).isEqualTo("Body 4");
+              assertThat(o.karma()).isEqualTo(4);
+              assertThat(o.currentVote()).isEqualTo(VoteType.DOWNVOTE);
+            });
+    assertThat(page.getContent().get(1).currentVote()).isNull();
+  }
+
+  @DisplayName("ObservationRepository#findAllDetailed should not fetch votes without issuer")
+  @Test
+  void findAllDetailed_should_not_fetch_votes_without_issuer() {
+    // When
+    var page = observationRepository.findAllDetailed(null, Pageable.ofSize(10));
+
+    // Then
+    assertThat(statistics.getPrepareStatementCount()).isOne();
+    assertThat(page.getContent()).hasSize(5).allSatisfy(o -> assertThat(o.currentVote()).isNull());
+  }
+
+  // --- ObservationRepository#scrollDetailedAfter
+
+  @DisplayName("ObservationRepository#scrollDetailedAfter should continue after the cursor")
+  @Test
+  void scrollDetailedAfter_should_continue_after_the_cursor() {
+    // Given
+    var cursor = observations.get(3);
+
+    // When
+    var page =
+        observationRepository.scrollDetailedAfter(
+            issuer.getId(), cursor.getTimestamp(), cursor.getId(), Pageable.ofSize(2));
+
+    // Then
+    assertThat(statistics.getPrepareStatementCount()).isOne();
+    assertThat(page)
+        .extracting(ObservationRepository.DetailedObservation::id)
+        .containsExactly(observations.get(2).getId(), observations.get(1).getId());
+  }
+
+  // --- ObservationRepository#streamByAuthor
+
+  @DisplayName("ObservationRepository#streamByAuthor should stream the pages of an author")
+  @Test
+  void streamByAuthor_should_stream_the_pages_of_an_author() {
+    // Given
+    var last = observations.get(4);
+    var author = last.getAuthor();
+    var newer = new ArrayList<ObservationEntity>();
+    for (int i = 0; i < 3; i++)
+      newer.add(
+          entityManager.persist(
+              ObservationEntity.builder()
+                  .author(author)
+                  .celestialBody(last.getCelestialBody())
+                  .latitude(1.0)
+                  .longitude(2.0)
+                  .orientation(90)
+                  .visibility(Visibility.CLEARLY_VISIBLE)
+                  .timestamp(Instant.ofEpochSecond(1680000010L + i))
+                  .build()));
+    entityManager.flush();
+    var profile =
+        new UserProfile(
+            author.getId(), "author4", Type.USER, null, null, true, 4, 4, false, 5, List.of());
+    var firstPage = new ArrayList<DetailedObservation>();
+    var secondPage = new ArrayList<DetailedObservation>();
+
+    // When
+    var firstEnd = observationRepository.findPageEnd(author.getId(), null, 2);
+    observationRepository.streamByAuthor(
+        profile, issuer.getId(), null, firstEnd.orElseThrow(), firstPage::add);
+    var secondEnd = observationRepository.findPageEnd(author.getId(), firstEnd.get(), 2);
+    observationRepository.streamByAuthor(
+        profile, issuer.getId(), firstEnd.get(), null, secondPage::add);
+
+    // Then
+    assertThat(firstEnd).contains(new Position(newer.get(1).getTimestamp(), newer.get(1).getId()));
+    assertThat(firstPage)
+        .extracting(DetailedObservation::id)
+        .containsExactly(newer.get(2).getId(), newer.get(1).getId());
+    assertThat(firstPage.get(0))
+        .satisfies(
+            o -> {
+              assertThat(o.authorUsername()).isEqualTo("author4");
+              assertThat(o.celestialBodyName()).isEqualTo("Body 4");
+              assertThat(o.visibility()).isEqualTo(Visibility.CLEARLY_VISIBLE);
+              assertThat(o.timestamp()).isEqualTo(newer.get(2).getTimestamp());
+              assertThat(o.currentVote()).isNull();
+            });
+    assertThat(secondEnd).isEmpty();
+    assertThat(secondPage)
+        .extracting(DetailedObservation::id, DetailedObservation::karma)
+        .containsExactly(tuple(newer.get(0).getId(), 0), tuple(last.getId(), 4));
+    assertThat(secondPage.get(1).currentVote()).isEqualTo(VoteType.DOWNVOTE);
+  }
+
+  // --- ObservationRepository#findAllNearby
+
+  @DisplayName("ObservationRepository#findAllNearby should only find active observations")
+  @Test
+  void findAllNearby_should_only_find_active_observations() {
+    // Given
+    var active = entityManager.find(ObservationEntity.class, observations.get(0).getId());
+    active.setExpiresAt(Instant.now().plus(1, ChronoUnit.HOURS));
+    var expired = entityManager.find(ObservationEntity.class, observations.get(1).getId());
+    expired.setExpiresAt(Instant.now().minus(1, ChronoUnit.HOURS));
+    entityManager.flush();
+
+    // When
+    var nearby = observationRepository.findAllNearby(0.5, 1.5, 1.5, 2.5);
+
+    // Then
+    assertThat(nearby).extracting(ObservationEntity::getId).containsExactly(active.getId());
+  }
+
+  // --- ObservationRepository#updateExpiresAt
+
+  @DisplayName("ObservationRepository#updateExpiresAt should only update the given celestial body")
+  @Test
+  void updateExpiresAt_should_only_update_the_given_celestial_body() {
+    // Given
+    var observation = observations.get(0);
+
+    // When
+    var updated = observationRepository.updateExpiresAt(observation.getCelestialBody().getId(), 10);
+
+    // Then
+    assertThat(updated).isOne();
+    assertThat(entityManager.find(ObservationEntity.class, observation.getId()).getExpiresAt())
+        .isEqualTo(observation.getTimestamp().plus(10, ChronoUnit.HOURS));
+    assertThat(
+            entityManager.find(ObservationEntity.class, observations.get(1).getId()).getExpiresAt())
+        .isNull();
+  }
+
+  // --- ObservationRepository#fillMissingExpiresAt
+
+  @DisplayName("ObservationRepository#fillMissingExpiresAt should derive expiration from validity")
+  @Test
+  void fillMissingExpiresAt_should_derive_expiration_from_validity() {
+    // When
+    var updated = observationRepository.fillMissingExpiresAt();
+
+    // Then
+    assertThat(updated).isEqualTo(5);
+    assertThat(observations)
+        .allSatisfy(
+            o ->
+                assertThat(entityManager.find(ObservationEntity.class, o.getId()).getExpiresAt())
+                    .isEqualTo(o.getTimestamp().plus(3, ChronoUnit.HOURS)));
+  }
+}
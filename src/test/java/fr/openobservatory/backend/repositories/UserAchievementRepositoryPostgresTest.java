@@ -0,0 +1,132 @@
+package fr.openobservatory.backend.repositories;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.UserAchievementLevelRepository.Award;
+import java.util.List;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Testcontainers(disabledWithoutDocker = true)
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+class UserAchievementRepositoryPostgresTest {
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"));
+
+  @DynamicPropertySource
+  static void datasource(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired TestEntityManager entityManager;
+  @Autowired JdbcTemplate jdbcTemplate;
+  @Autowired UserAchievementRepository userAchievementRepository;
+
+  UserEntity user;
+
+  @BeforeEach
+  void setUp() {
+    user =
+        entityManager.persistFlushFind(UserEntity.builder().username("user").password("-").build());
+  }
+
+  // --- UserAchievementRepository#raiseLevel
+
+  @DisplayName("UserAchievementRepository#raiseLevel should upsert a single row per achievement")
+  @Test
+  void raiseLevel_should_upsert_a_single_row_per_achievement() {
+    // When
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.BEGINNER);
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.INTERMEDIATE);
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.NEW);
+
+    // Then
+    assertThat(levels()).containsExactly(tuple(Achievement.OBSERVER, Level.INTERMEDIATE));
+  }
+
+  // --- UserAchievementRepository#raiseLevels
+
+  @DisplayName("UserAchievementRepository#raiseLevels should upsert the levels in batches")
+  @Test
+  void raiseLevels_should_upsert_the_levels_in_batches() {
+    // Given
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.JUDGE, Level.EXPERT);
+
+    // When
+    userAchievementRepository.raiseLevels(
+        List.of(
+            new Award(user.getId(), Achievement.JUDGE, Level.BEGINNER),
+            new Award(user.getId(), Achievement.FAMOUS, Level.NEW),
+            new Award(user.getId(), Achievement.FAMOUS, Level.BEGINNER)));
+
+    // Then
+    assertThat(levels())
+        .containsExactlyInAnyOrder(
+            tuple(Achievement.JUDGE, Level.EXPERT), tuple(Achievement.FAMOUS, Level.BEGINNER));
+  }
+
+  // --- UserAchievementRepository#removeDuplicateLevels
+
+  @DisplayName(
+      "UserAchievementRepository#removeDuplicateLevels should keep the highest level and add the constraint")
+  @Test
+  void removeDuplicateLevels_should_keep_the_highest_level_and_add_the_constraint() {
+    // Given
+    jdbcTemplate.execute(
+        "ALTER TABLE user_achievement DROP CONSTRAINT user_achievement_user_id_achievement_key");
+    insert(Achievement.OBSERVER, Level.BEGINNER);
+    insert(Achievement.OBSERVER, Level.EXPERT);
+    insert(Achievement.OBSERVER, Level.EXPERT);
+    insert(Achievement.HUBBLE, Level.NONE);
+
+    // When
+    userAchievementRepository.removeDuplicateLevels();
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.HUBBLE, Level.NONE);
+
+    // Then
+    assertThat(levels())
+        .containsExactlyInAnyOrder(
+            tuple(Achievement.OBSERVER, Level.EXPERT), tuple(Achievement.HUBBLE, Level.NONE));
+  }
+
+  // ---
+
+  private void insert(Achievement achievement, Level level) {
+    jdbcTemplate.update(
+        "INSERT INTO user_achievement (user_id, achievement, level) VALUES (?, ?, ?)",
+        user.getId(),
+        achievement.ordinal(),
+        level.ordinal());
+  }
+
+  private List<Tuple> levels() {
+    entityManager.clear();
+    return userAchievementRepository.findAllByUser(user).stream()
+        .map(a -> tuple(a.getAchievement(), a.getLevel()))
+        .toList();
+  }
+}
@@ -0,0 +1,105 @@
+package fr.openobservatory.backend.repositories;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.UserAchievementLevelRepository.Award;
+import java.util.List;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+class UserAchievementRepositoryTest {
+
+  @Autowired TestEntityManager entityManager;
+  @Autowired UserAchievementRepository userAchievementRepository;
+
+  UserEntity user;
+
+  @BeforeEach
+  void setUp() {
+    user =
+        entityManager.persistFlushFind(UserEntity.builder().username("user").password("-").build());
+  }
+
+  // --- UserAchievementRepository#raiseLevel
+
+  @DisplayName("UserAchievementRepository#raiseLevel should award a new achievement")
+  @Test
+  void raiseLevel_should_award_a_new_achievement() {
+    // When
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.BEGINNER);
+
+    // Then
+    assertThat(levels()).containsExactly(tuple(Achievement.OBSERVER, Level.BEGINNER));
+  }
+
+  @DisplayName("UserAchievementRepository#raiseLevel should only ever raise the level")
+  @Test
+  void raiseLevel_should_only_ever_raise_the_level() {
+    // When
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.BEGINNER);
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.INTERMEDIATE);
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.NEW);
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.INTERMEDIATE);
+
+    // Then
+    assertThat(levels()).containsExactly(tuple(Achievement.OBSERVER, Level.INTERMEDIATE));
+  }
+
+  // --- UserAchievementRepository#raiseLevels
+
+  @DisplayName("UserAchievementRepository#raiseLevels should award each achievement once")
+  @Test
+  void raiseLevels_should_award_each_achievement_once() {
+    // Given
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.JUDGE, Level.EXPERT);
+
+    // When
+    userAchievementRepository.raiseLevels(
+        List.of(
+            new Award(user.getId(), Achievement.JUDGE, Level.BEGINNER),
+            new Award(user.getId(), Achievement.FAMOUS, Level.NEW),
+            new Award(user.getId(), Achievement.HUBBLE, Level.NONE)));
+
+    // Then
+    assertThat(levels())
+        .containsExactlyInAnyOrder(
+            tuple(Achievement.JUDGE, Level.EXPERT),
+            tuple(Achievement.FAMOUS, Level.NEW),
+            tuple(Achievement.HUBBLE, Level.NONE));
+  }
+
+  // --- Achievements.Level#getLevel
+
+  @DisplayName("Achievements.Level#getLevel should return the highest level reached")
+  @Test
+  void getLevel_should_return_the_highest_level_reached() {
+    // Then
+    assertThat(Level.getLevel(0)).isNull();
+    assertThat(Level.getLevel(1)).isEqualTo(Level.NEW);
+    assertThat(Level.getLevel(9)).isEqualTo(Level.NEW);
+    assertThat(Level.getLevel(10)).isEqualTo(Level.BEGINNER);
+    assertThat(Level.getLevel(30)).isEqualTo(Level.INTERMEDIATE);
+    assertThat(Level.getLevel(250)).isEqualTo(Level.EXPERT);
+  }
+
+  // ---
+
+  private List<Tuple> levels() {
+    entityManager.clear();
+    return userAchievementRepository.findAllByUser(user).stream()
+        .map(a -> tuple(a.getAchievement(), a.getLevel()))
+        .toList();
+  }
+}
@@ -0,0 +1,169 @@
+package fr.openobservatory.backend.repositories;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.configuration.CacheConfiguration;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.AchievementLevel;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest(
+    properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "reference-cache.maximum-size=100",
+      "reference-cache.expire-after-write=1h"
+    })
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import(CacheConfiguration.class)
+class UserRepositoryTest {
+
+  @Autowired CacheManager cacheManager;
+  @Autowired EntityManagerFactory entityManagerFactory;
+  @Autowired TestEntityManager entityManager;
+  @Autowired UserAchievementRepository userAchievementRepository;
+  @Autowired UserRepository userRepository;
+
+  Statistics statistics;
+  UserEntity user;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    user =
+        entityManager.persistFlushFind(UserEntity.builder().username("Star").password("-").build());
+    entityManager.clear();
+    cacheManager.getCache(CacheConfiguration.PROFILES).clear();
+    cacheManager.getCache(CacheConfiguration.USER_IDS).clear();
+    statistics.clear();
+  }
+
+  // --- UserRepository#findByUsernameIgnoreCase
+
+  @DisplayName("UserRepository#findByUsernameIgnoreCase should query the username only once")
+  @Test
+  void findByUsernameIgnoreCase_should_query_the_username_only_once() {
+    // When
+    var first = userRepository.findByUsernameIgnoreCase("star");
+    entityManager.clear();
+    var second = userRepository.findByUsernameIgnoreCase("STAR");
+
+    // Then
+    assertThat(first).get().extracting(UserEntity::getId).isEqualTo(user.getId());
+    assertThat(second).get().extracting(UserEntity::getId).isEqualTo(user.getId());
+    assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isEqualTo(2);
+  }
+
+  @DisplayName("UserRepository#findByUsernameIgnoreCase should find nothing when user is unknown")
+  @Test
+  void findByUsernameIgnoreCase_should_find_nothing_when_user_is_unknown() {
+    // When
+    var found = userRepository.findByUsernameIgnoreCase("moon");
+
+    // Then
+    assertThat(found).isEmpty();
+    assertThat(cacheManager.getCache(CacheConfiguration.USER_IDS).get("moon")).isNull();
+  }
+
+  @DisplayName("UserRepository#findByUsernameIgnoreCase should query again when user was deleted")
+  @Test
+  void findByUsernameIgnoreCase_should_query_again_when_user_was_deleted() {
+    // Given
+    userRepository.findByUsernameIgnoreCase("star");
+    userRepository.delete(entityManager.find(UserEntity.class, user.getId()));
+    entityManager.flush();
+    entityManager.clear();
+
+    // When
+    var found = userRepository.findByUsernameIgnoreCase("star");
+
+    // Then
+    assertThat(found).isEmpty();
+    assertThat(cacheManager.getCache(CacheConfiguration.USER_IDS).get("star")).isNull();
+  }
+
+  // --- UserRepository#evictUsername
+
+  @DisplayName("UserRepository#evictUsername should evict the username whatever its case")
+  @Test
+  void evictUsername_should_evict_the_username_whatever_its_case() {
+    // Given
+    userRepository.findByUsernameIgnoreCase("star");
+
+    // When
+    userRepository.evictUsername("Star");
+
+    // Then
+    assertThat(cacheManager.getCache(CacheConfiguration.USER_IDS).get("star")).isNull();
+  }
+
+  // --- UserRepository#findProfileById
+
+  @DisplayName("UserRepository#findProfileById should load the profile only once")
+  @Test
+  void findProfileById_should_load_the_profile_only_once() {
+    // Given
+    userAchievementRepository.raiseLevel(user.getId(), Achievement.OBSERVER, Level.NEW);
+    statistics.clear();
+
+    // When
+    var first = userRepository.findProfileById(user.getId());
+    entityManager.clear();
+    var second = userRepository.findProfileById(user.getId());
+
+    // Then
+    assertThat(first).get().isSameAs(second.orElseThrow());
+    assertThat(first.get().username()).isEqualTo("Star");
+    assertThat(first.get().achievements())
+        .containsExactly(new AchievementLevel(Achievement.OBSERVER, Level.NEW));
+    assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+  }
+
+  @DisplayName("UserRepository#findProfileById should load the profile again once evicted")
+  @Test
+  void findProfileById_should_load_the_profile_again_once_evicted() {
+    // Given
+    userRepository.findProfileById(user.getId());
+    userRepository.incrementObservationCount(user.getId(), 2);
+    entityManager.clear();
+
+    // When
+    userRepository.evictProfile(user.getId());
+    var found = userRepository.findProfileById(user.getId());
+
+    // Then
+    assertThat(found).get().extracting(UserProfile::observationCount).isEqualTo(2);
+  }
+
+  // --- UserRepository#findIdByUsernameIgnoreCase
+
+  @DisplayName("UserRepository#findIdByUsernameIgnoreCase should query the username only once")
+  @Test
+  void findIdByUsernameIgnoreCase_should_query_the_username_only_once() {
+    // When
+    var first = userRepository.findIdByUsernameIgnoreCase("star");
+    var second = userRepository.findIdByUsernameIgnoreCase("STAR");
+
+    // Then
+    assertThat(first).contains(user.getId());
+    assertThat(second).contains(user.getId());
+    assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+}
@@ -0,0 +1,168 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.configuration.AsyncConfiguration;
+import fr.openobservatory.backend.entities.*;
+import fr.openobservatory.backend.entities.ObservationEntity.Visibility;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.repositories.AchievementBackfillCheckpointRepository;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.UserAchievementRepository;
+import java.time.Instant;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import({
+  AchievementBackfillService.class,
+  AchievementService.class,
+  AchievementBackfillServiceTest.BackfillExecutorConfiguration.class
+})
+class AchievementBackfillServiceTest {
+
+  @Autowired AchievementBackfillCheckpointRepository achievementBackfillCheckpointRepository;
+  @Autowired AchievementBackfillService achievementBackfillService;
+  @Autowired TestEntityManager entityManager;
+  @Autowired UserAchievementRepository userAchievementRepository;
+
+  UserEntity author;
+  UserEntity voter;
+
+  @BeforeEach
+  void setUp() {
+    author = entityManager.persist(UserEntity.builder().username("author").password("-").build());
+    voter = entityManager.persist(UserEntity.builder().username("voter").password("-").build());
+    var celestialBody =
+        entityManager.persist(
+            CelestialBodyEntity.builder().name("Moon").image("-").validityTime(3).build());
+    for (int i = 0; i < 12; i++) {
+      var observation =
+          entityManager.persist(
+              ObservationEntity.builder()
+                  .author(author)
+                  .celestialBody(celestialBody)
+                  .latitude(1.0)
+                  .longitude(2.0)
+                  .orientation(90)
+                  .visibility(Visibility.VISIBLE)
+                  .timestamp(Instant.ofEpochSecond(1680000000L + i))
+                  // Counters drifted from the single vote of each observation
+                  .karma(i == 0 ? 15 : 1)
+                  .build());
+      entityManager.persist(
+          ObservationVoteEntity.builder()
+              .observation(observation)
+              .user(voter)
+              .vote(VoteType.UPVOTE)
+              .build());
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  // --- AchievementBackfillService#backfill
+
+  @DisplayName(
+      "AchievementBackfillService#backfill should award the levels reached from the votes of the range")
+  @Test
+  void backfill_should_award_the_levels_reached_from_the_votes_of_the_range() {
+    // When
+    achievementBackfillService.backfill(rangeStartOf(author));
+    entityManager.flush();
+    entityManager.clear();
+
+    // Then
+    assertThat(userAchievementRepository.findAll())
+        .extracting(a -> a.getUser().getId(), a -> a.getAchievement(), a -> a.getLevel())
+        .containsExactlyInAnyOrder(
+            tuple(author.getId(), Achievement.OBSERVER, Level.BEGINNER),
+            tuple(author.getId(), Achievement.FAMOUS, Level.BEGINNER),
+            tuple(voter.getId(), Achievement.JUDGE, Level.BEGINNER));
+    assertThat(achievementBackfillCheckpointRepository.findAllRangeStarts())
+        .containsExactly(rangeStartOf(author));
+  }
+
+  @DisplayName("AchievementBackfillService#backfill should never lower a level")
+  @Test
+  void backfill_should_never_lower_a_level() {
+    // Given
+    userAchievementRepository.raiseLevel(author.getId(), Achievement.OBSERVER, Level.EXPERT);
+
+    // When
+    achievementBackfillService.backfill(rangeStartOf(author));
+    entityManager.flush();
+    entityManager.clear();
+
+    // Then
+    assertThat(userAchievementRepository.findAll())
+        .filteredOn(a -> a.getAchievement() == Achievement.OBSERVER)
+        .extracting(UserAchievementEntity::getLevel)
+        .containsExactly(Level.EXPERT);
+  }
+
+  // --- AchievementBackfillService#start
+
+  @DisplayName("AchievementBackfillService#start should skip checkpointed ranges and clear them")
+  @Test
+  void start_should_skip_checkpointed_ranges_and_clear_them() {
+    // Given
+    var rangeStart = rangeStartOf(author);
+    achievementBackfillCheckpointRepository.save(
+        AchievementBackfillCheckpointEntity.builder()
+            .rangeStart(rangeStart)
+            .rangeEnd(rangeStart + AchievementBackfillService.RANGE_SIZE)
+            .build());
+
+    // When
+    var progress = achievementBackfillService.start();
+
+    // Then
+    assertThat(progress.isRunning()).isFalse();
+    assertThat(progress.getTotalRanges()).isZero();
+    assertThat(userAchievementRepository.findAll()).isEmpty();
+    assertThat(achievementBackfillCheckpointRepository.findAll()).isEmpty();
+  }
+
+  @DisplayName("AchievementBackfillService#start should backfill every range")
+  @Test
+  void start_should_backfill_every_range() {
+    // When
+    var progress = achievementBackfillService.start();
+
+    // Then
+    assertThat(progress.isRunning()).isFalse();
+    assertThat(progress.getCompletedRanges()).isEqualTo(progress.getTotalRanges()).isPositive();
+    assertThat(userAchievementRepository.findAll()).hasSize(3);
+    assertThat(achievementBackfillCheckpointRepository.findAll()).isEmpty();
+  }
+
+  // ---
+
+  private static long rangeStartOf(UserEntity user) {
+    return user.getId()
+        / AchievementBackfillService.RANGE_SIZE
+        * AchievementBackfillService.RANGE_SIZE;
+  }
+
+  @TestConfiguration
+  static class BackfillExecutorConfiguration {
+
+    @Bean(AsyncConfiguration.BACKFILL_EXECUTOR)
+    Executor backfillExecutor() {
+      return Runnable::run;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package fr.openobservatory.backend.services;
+
+import static org.mockito.Mockito.*;
+
+import fr.openobservatory.backend.entities.ObservationEntity;
+import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.events.ObservationCreatedEvent;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
+import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.ObservationRepository;
+import fr.openobservatory.backend.repositories.UserAchievementRepository;
+import fr.openobservatory.backend.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AchievementServiceTest {
+
+  @Mock ObservationRepository observationRepository;
+  @Mock UserAchievementRepository userAchievementRepository;
+  @Mock UserRepository userRepository;
+  @InjectMocks AchievementService achievementService;
+
+  // --- AchievementService#onObservationCreated
+
+  @DisplayName("AchievementService#onObservationCreated should award the observer level reached")
+  @Test
+  void onObservationCreated_should_award_the_observer_level_reached() {
+    // Given
+    var author = UserEntity.builder().id(1L).username("author").observationCount(10).build();
+
+    // When
+    when(userRepository.existsById(author.getId())).thenReturn(true);
+    when(userRepository.getReferenceById(author.getId())).thenReturn(author);
+    achievementService.onObservationCreated(new ObservationCreatedEvent(2L, author.getId()));
+
+    // Then
+    verify(userAchievementRepository).raiseLevel(1L, Achievement.OBSERVER, Level.BEGINNER);
+    verifyNoMoreInteractions(userAchievementRepository);
+  }
+
+  @DisplayName("AchievementService#onObservationCreated should award the level of a skipped count")
+  @Test
+  void onObservationCreated_should_award_the_level_of_a_skipped_count() {
+    // Given
+    var author = UserEntity.builder().id(1L).username("author").observationCount(30).build();
+
+    // When
+    when(userRepository.existsById(author.getId())).thenReturn(true);
+    when(userRepository.getReferenceById(author.getId())).thenReturn(author);
+    achievementService.onObservationCreated(new ObservationCreatedEvent(2L, author.getId()));
+
+    // Then
+    verify(userAchievementRepository).raiseLevel(1L, Achievement.OBSERVER, Level.INTERMEDIATE);
+  }
+
+  @DisplayName("AchievementService#onObservationCreated should award nothing to a deleted author")
+  @Test
+  void onObservationCreated_should_award_nothing_to_a_deleted_author() {
+    // Given
+    var event = new ObservationCreatedEvent(2L, 1L);
+
+    // When
+    when(userRepository.existsById(event.authorId())).thenReturn(false);
+    achievementService.onObservationCreated(event);
+
+    // Then
+    verify(userRepository, never()).getReferenceById(any());
+    verifyNoInteractions(userAchievementRepository);
+  }
+
+  @DisplayName("AchievementService#onObservationCreated should award nothing below the first level")
+  @Test
+  void onObservationCreated_should_award_nothing_below_the_first_level() {
+    // Given
+    var author = UserEntity.builder().id(1L).username("author").observationCount(0).build();
+
+    // When
+    when(userRepository.existsById(author.getId())).thenReturn(true);
+    when(userRepository.getReferenceById(author.getId())).thenReturn(author);
+    achievementService.onObservationCreated(new ObservationCreatedEvent(2L, author.getId()));
+
+    // Then
+    verifyNoInteractions(userAchievementRepository);
+  }
+
+  // --- AchievementService#onObservationVoteChanged
+
+  @DisplayName("AchievementService#onObservationVoteChanged should award voter and author")
+  @Test
+  void onObservationVoteChanged_should_award_voter_and_author() {
+    // Given
+    var author = UserEntity.builder().id(1L).username("author").karma(10).build();
+    var voter = UserEntity.builder().id(2L).username("voter").voteCount(1).build();
+    var observation = ObservationEntity.builder().id(3L).author(author).karma(10).build();
+    var event =
+        new ObservationVoteChangedEvent(observation.getId(), voter.getId(), null, VoteType.UPVOTE);
+
+    // When
+    when(observationRepository.existsById(observation.getId())).thenReturn(true);
+    when(userRepository.existsById(voter.getId())).thenReturn(true);
+    when(observationRepository.getReferenceById(observation.getId())).thenReturn(observation);
+    when(userRepository.getReferenceById(voter.getId())).thenReturn(voter);
+    achievementService.onObservationVoteChanged(event);
+
+    // Then
+    verify(userAchievementRepository).raiseLevel(2L, Achievement.JUDGE, Level.NEW);
+    verify(userAchievementRepository).raiseLevel(1L, Achievement.FAMOUS, Level.BEGINNER);
+    verify(userAchievementRepository).raiseLevel(1L, Achievement.HUBBLE, Level.NONE);
+    verifyNoMoreInteractions(userAchievementRepository);
+  }
+
+  @DisplayName(
+      "AchievementService#onObservationVoteChanged should award nothing for a deleted observation")
+  @Test
+  void onObservationVoteChanged_should_award_nothing_for_a_deleted_observation() {
+    // Given
+    var event = new ObservationVoteChangedEvent(3L, 2L, null, VoteType.UPVOTE);
+
+    // When
+    when(observationRepository.existsById(event.observationId())).thenReturn(false);
+    achievementService.onObservationVoteChanged(event);
+
+    // Then
+    verify(observationRepository, never()).getReferenceById(any());
+    verifyNoInteractions(userAchievementRepository);
+  }
+
+  @DisplayName("AchievementService#onObservationVoteChanged should ignore votes lowering karma")
+  @Test
+  void onObservationVoteChanged_should_ignore_votes_lowering_karma() {
+    // Given
+    var event = new ObservationVoteChangedEvent(3L, 2L, VoteType.UPVOTE, VoteType.DOWNVOTE);
+
+    // When
+    when(observationRepository.existsById(event.observationId())).thenReturn(true);
+    when(userRepository.existsById(event.voterId())).thenReturn(true);
+    achievementService.onObservationVoteChanged(event);
+
+    // Then
+    verifyNoInteractions(userAchievementRepository);
+  }
+}
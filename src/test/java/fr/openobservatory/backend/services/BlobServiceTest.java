@@ -0,0 +1,299 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.entities.BlobEntity;
+import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity.Size;
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.exceptions.InvalidImageException;
+import fr.openobservatory.backend.exceptions.UnknownBlobException;
+import fr.openobservatory.backend.images.Thumbnails;
+import fr.openobservatory.backend.repositories.ThumbnailRepository;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest(properties = {"blob.url-prefix=/blobs/", "blob.max-size=1KB"})
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import(BlobService.class)
+class BlobServiceTest {
+
+  static final String PIXEL =
+      "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk+M9QDwADhgGAWjR9awAAAABJRU5ErkJggg==";
+  static final String UNKNOWN_HASH =
+      "bc7fa6e8a7263ef65fd3dc3f1d8d9a1b7ff0a2ec2a2f1e3aa3f0c9a0c3d0b6b0";
+
+  @Autowired TestEntityManager entityManager;
+  @Autowired BlobService blobService;
+  @Autowired ThumbnailRepository thumbnailRepository;
+
+  // --- BlobService#store
+
+  @DisplayName("BlobService#store should store identical images once")
+  @Test
+  void store_should_store_identical_images_once() {
+    // When
+    var hash = blobService.store(PIXEL);
+    var sameHash = blobService.store(PIXEL);
+
+    // Then
+    assertThat(hash).hasSize(64).isEqualTo(sameHash);
+    var blob = blobService.findByHash(hash);
+    assertThat(blob.getMediaType()).isEqualTo("image/png");
+    assertThat(blob.getContent())
+        .isEqualTo(Base64.getDecoder().decode(PIXEL.substring(PIXEL.indexOf(',') + 1)));
+  }
+
+  @DisplayName("BlobService#store should keep the URL of a stored image")
+  @Test
+  void store_should_keep_the_url_of_a_stored_image() {
+    // Given
+    var hash = blobService.store(PIXEL);
+
+    // When
+    var sameHash = blobService.store("/blobs/" + hash + "?size=FEED");
+
+    // Then
+    assertThat(sameHash).isEqualTo(hash);
+  }
+
+  @DisplayName("BlobService#store should throw when image is invalid")
+  @Test
+  void store_should_throw_when_image_is_invalid() {
+    // Given
+    var tooLarge = "data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[2048]);
+
+    // When
+    ThrowingCallable notAnImage = () -> blobService.store("data:text/html;base64,PGgxPg==");
+    ThrowingCallable vectorImage = () -> blobService.store("data:image/svg+xml;base64,PHN2Zy8+");
+    ThrowingCallable notBase64 = () -> blobService.store("data:image/png;base64,@@@");
+    ThrowingCallable notDataUrl = () -> blobService.store("https://example.org/image.png");
+    ThrowingCallable unknownBlob = () -> blobService.store("/blobs/" + UNKNOWN_HASH);
+    ThrowingCallable tooLargeImage = () -> blobService.store(tooLarge);
+
+    // Then
+    assertThatThrownBy(notAnImage).isInstanceOf(InvalidImageException.class);
+    assertThatThrownBy(vectorImage).isInstanceOf(InvalidImageException.class);
+    assertThatThrownBy(notBase64).isInstanceOf(InvalidImageException.class);
+    assertThatThrownBy(notDataUrl).isInstanceOf(InvalidImageException.class);
+    assertThatThrownBy(unknownBlob).isInstanceOf(InvalidImageException.class);
+    assertThatThrownBy(tooLargeImage).isInstanceOf(InvalidImageException.class);
+  }
+
+  @DisplayName("BlobService#store should generate the thumbnails of the image")
+  @Test
+  void store_should_generate_the_thumbnails_of_the_image() throws IOException {
+    // Given
+    var output = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", output);
+    var image = "data:image/png;base64," + Base64.getEncoder().encodeToString(output.toByteArray());
+
+    // When
+    var hash = blobService.store(image);
+
+    // Then
+    assertThat(blobService.findThumbnail(hash, Size.PROFILE))
+        .hasValueSatisfying(t -> assertThat(t.getMediaType()).isEqualTo("image/jpeg"));
+    assertThat(blobService.findThumbnail(hash, Size.FEED)).isPresent();
+    assertThat(blobService.findThumbnail(hash, Size.MARKER))
+        .hasValueSatisfying(
+            t ->
+                assertThat(Thumbnails.decode(t.getContent()))
+                    .hasValueSatisfying(i -> assertThat(i.getWidth()).isEqualTo(64)));
+  }
+
+  @DisplayName("BlobService#store should store images which cannot be decoded without thumbnails")
+  @Test
+  void store_should_store_images_which_cannot_be_decoded_without_thumbnails() {
+    // When
+    var hash = blobService.store("data:image/webp;base64,UklGRg==");
+
+    // Then
+    assertThat(blobService.findByHash(hash).getMediaType()).isEqualTo("image/webp");
+    assertThat(blobService.findThumbnail(hash, Size.FEED)).isEmpty();
+  }
+
+  // --- BlobService#findByHash
+
+  @DisplayName("BlobService#findByHash should throw when blob is unknown")
+  @Test
+  void findByHash_should_throw_when_blob_is_unknown() {
+    // When
+    ThrowingCallable action = () -> blobService.findByHash(UNKNOWN_HASH);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UnknownBlobException.class);
+  }
+
+  // --- BlobService#moveInlineImages
+
+  @DisplayName("BlobService#moveInlineImages should replace data URLs with hashes")
+  @Test
+  void moveInlineImages_should_replace_data_urls_with_hashes() {
+    // Given
+    var user =
+        entityManager.persist(
+            UserEntity.builder().username("user").password("-").avatar(PIXEL).build());
+    var broken =
+        entityManager.persist(
+            UserEntity.builder().username("broken").password("-").avatar("data:,").build());
+    var celestialBody =
+        entityManager.persist(
+            CelestialBodyEntity.builder().name("Moon").image(PIXEL).validityTime(3).build());
+    entityManager.flush();
+
+    // When
+    blobService.moveInlineImages();
+    entityManager.flush();
+    entityManager.clear();
+
+    // Then
+    var hash = entityManager.find(UserEntity.class, user.getId()).getAvatar();
+    assertThat(hash).hasSize(64);
+    assertThat(entityManager.find(UserEntity.class, broken.getId()).getAvatar()).isNull();
+    assertThat(entityManager.find(CelestialBodyEntity.class, celestialBody.getId()).getImage())
+        .isEqualTo(hash);
+  }
+
+  @DisplayName("BlobService#moveInlineImages should move images past those which cannot be moved")
+  @Test
+  void moveInlineImages_should_move_images_past_those_which_cannot_be_moved() {
+    // Given
+    var broken =
+        IntStream.range(0, 12)
+            .mapToObj(
+                i ->
+                    entityManager.persist(
+                        CelestialBodyEntity.builder()
+                            .name("Broken " + i)
+                            .image("data:,")
+                            .validityTime(3)
+                            .build()))
+            .toList();
+    var celestialBody =
+        entityManager.persist(
+            CelestialBodyEntity.builder().name("Moon").image(PIXEL).validityTime(3).build());
+    entityManager.flush();
+
+    // When
+    blobService.moveInlineImages();
+    entityManager.flush();
+    entityManager.clear();
+
+    // Then
+    assertThat(broken)
+        .allSatisfy(
+            b ->
+                assertThat(entityManager.find(CelestialBodyEntity.class, b.getId()).getImage())
+                    .isEqualTo("data:,"));
+    assertThat(entityManager.find(CelestialBodyEntity.class, celestialBody.getId()).getImage())
+        .hasSize(64);
+  }
+
+  // --- BlobService#generateMissingThumbnails
+
+  @DisplayName("BlobService#generateMissingThumbnails should generate the thumbnails of old blobs")
+  @Test
+  void generateMissingThumbnails_should_generate_the_thumbnails_of_old_blobs() {
+    // Given
+    var hash = "d".repeat(64);
+    entityManager.persist(
+        BlobEntity.builder()
+            .hash(hash)
+            .mediaType("image/png")
+            .content(Base64.getDecoder().decode(PIXEL.substring(PIXEL.indexOf(',') + 1)))
+            .build());
+    entityManager.flush();
+
+    // When
+    blobService.generateMissingThumbnails();
+
+    // Then
+    assertThat(blobService.findThumbnail(hash, Size.MARKER)).isPresent();
+  }
+
+  @DisplayName(
+      "BlobService#generateMissingThumbnails should only decode blobs that are not images once")
+  @Test
+  void generateMissingThumbnails_should_only_decode_blobs_that_are_not_images_once() {
+    // Given
+    var hash = "e".repeat(64);
+    entityManager.persist(
+        BlobEntity.builder().hash(hash).mediaType("image/png").content(new byte[] {1}).build());
+    entityManager.flush();
+
+    // When
+    blobService.generateMissingThumbnails();
+    entityManager.clear();
+
+    // Then
+    assertThat(blobService.findByHash(hash).getUndecodable()).isTrue();
+    assertThat(thumbnailRepository.findBlobHashesWithoutThumbnails(Pageable.unpaged()))
+        .doesNotContain(hash);
+  }
+
+  // --- BlobService#deleteUnreferenced
+
+  @DisplayName("BlobService#deleteUnreferenced should only delete old unreferenced blobs")
+  @Test
+  void deleteUnreferenced_should_only_delete_old_unreferenced_blobs() {
+    // Given
+    var referenced = blob("a", 2);
+    var unreferenced = blob("b", 2);
+    var recent = blob("c", 0);
+    entityManager.persist(
+        UserEntity.builder().username("user").password("-").avatar(referenced).build());
+    entityManager.flush();
+
+    // When
+    blobService.deleteUnreferenced();
+    entityManager.clear();
+
+    // Then
+    assertThat(entityManager.find(BlobEntity.class, referenced)).isNotNull();
+    assertThat(entityManager.find(BlobEntity.class, unreferenced)).isNull();
+    assertThat(entityManager.find(BlobEntity.class, recent)).isNotNull();
+    assertThat(blobService.findThumbnail(unreferenced, Size.FEED)).isEmpty();
+    assertThat(blobService.findThumbnail(referenced, Size.FEED)).isPresent();
+  }
+
+  // ---
+
+  private String blob(String digit, int age) {
+    var hash = digit.repeat(64);
+    entityManager.persist(
+        BlobEntity.builder().hash(hash).mediaType("image/png").content(new byte[] {1}).build());
+    entityManager.persist(
+        ThumbnailEntity.builder()
+            .blobHash(hash)
+            .size(Size.FEED)
+            .mediaType("image/png")
+            .content(new byte[] {1})
+            .build());
+    entityManager.flush();
+    entityManager
+        .getEntityManager()
+        .createQuery("UPDATE BlobEntity b SET b.createdAt = :createdAt WHERE b.hash = :hash")
+        .setParameter("createdAt", Instant.now().minus(age, ChronoUnit.DAYS))
+        .setParameter("hash", hash)
+        .executeUpdate();
+    return hash;
+  }
+}
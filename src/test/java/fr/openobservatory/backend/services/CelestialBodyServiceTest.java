@@ -4,12 +4,16 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
 
+import fr.openobservatory.backend.configuration.BlobProperties;
 import fr.openobservatory.backend.dto.input.CreateCelestialBodyDto;
 import fr.openobservatory.backend.dto.input.PaginationDto;
 import fr.openobservatory.backend.dto.input.UpdateCelestialBodyDto;
 import fr.openobservatory.backend.entities.CelestialBodyEntity;
+import fr.openobservatory.backend.entities.ThumbnailEntity.Size;
 import fr.openobservatory.backend.exceptions.*;
+import fr.openobservatory.backend.mappers.CelestialBodyMapper;
 import fr.openobservatory.backend.repositories.CelestialBodyRepository;
+import fr.openobservatory.backend.repositories.ObservationRepository;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import java.util.List;
@@ -27,12 +31,19 @@ import org.modelmapper.ModelMapper;
 import org.openapitools.jackson.nullable.JsonNullable;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(MockitoExtension.class)
 class CelestialBodyServiceTest {
 
+  static final BlobProperties BLOB_PROPERTIES =
+      new BlobProperties("/blobs/", DataSize.ofMegabytes(2));
+
+  @Mock BlobService blobService;
   @Spy ModelMapper modelMapper;
+  @Spy CelestialBodyMapper celestialBodyMapper = new CelestialBodyMapper(BLOB_PROPERTIES);
   @Mock CelestialBodyRepository celestialBodyRepository;
+  @Mock ObservationRepository observationRepository;
   @Spy Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
   @InjectMocks CelestialBodyService celestialBodyService;
 
@@ -46,13 +57,14 @@ class CelestialBodyServiceTest {
         CreateCelestialBodyDto.builder().name("Neptune").validityTime(3).image("image").build();
 
     // When
+    when(blobService.store(dto.getImage())).thenReturn("hash");
     when(celestialBodyRepository.save(isA(CelestialBodyEntity.class))).then(a -> a.getArgument(0));
     var celestialBody = celestialBodyService.create(dto);
 
     // Then
     assertThat(celestialBody.getName()).isEqualTo(dto.getName());
     assertThat(celestialBody.getValidityTime()).isEqualTo(dto.getValidityTime());
-    assertThat(celestialBody.getImage()).isEqualTo(dto.getImage());
+    assertThat(celestialBody.getImage()).isEqualTo("/blobs/hash?size=FEED");
   }
 
   @DisplayName("CelestialBodyService#create should throw when dto is invalid")
@@ -100,6 +112,7 @@ class CelestialBodyServiceTest {
 
     // Then
     verify(celestialBodyRepository, times(1)).deleteById(id);
+    verify(celestialBodyRepository, times(1)).evictCached(id);
   }
 
   @DisplayName("CelestialBodyService#delete should throw when body is unknown")
@@ -141,7 +154,7 @@ class CelestialBodyServiceTest {
     assertThat(celestialBody.getId()).isEqualTo(id);
     assertThat(celestialBody.getName()).isEqualTo(name);
     assertThat(celestialBody.getValidityTime()).isEqualTo(validityTime);
-    assertThat(celestialBody.getImage()).isEqualTo(image);
+    assertThat(celestialBody.getImage()).isEqualTo(BLOB_PROPERTIES.urlOf(image, Size.FEED));
   }
 
   @DisplayName("CelestialBodyService#findById should return nothing with unknown id")
@@ -190,7 +203,7 @@ class CelestialBodyServiceTest {
     assertThat(body.getId()).isEqualTo(entity.getId());
     assertThat(body.getName()).isEqualTo(entity.getName());
     assertThat(body.getValidityTime()).isEqualTo(entity.getValidityTime());
-    assertThat(body.getImage()).isEqualTo(entity.getImage());
+    assertThat(body.getImage()).isEqualTo(BLOB_PROPERTIES.urlOf(entity.getImage(), Size.FEED));
   }
 
   @DisplayName("CelestialBodyService#search should throw when dto is invalid")
@@ -225,6 +238,7 @@ class CelestialBodyServiceTest {
             .build();
 
     // When
+    when(blobService.store(dto.getImage().get())).thenReturn("new_hash");
     when(celestialBodyRepository.findById(id)).thenReturn(Optional.of(entity));
     when(celestialBodyRepository.save(isA(CelestialBodyEntity.class)))
         .thenAnswer(a -> a.getArgument(0));
@@ -234,7 +248,8 @@ class CelestialBodyServiceTest {
     assertThat(celestialBody.getId()).isEqualTo(id);
     assertThat(celestialBody.getName()).isEqualTo(dto.getName().get());
     assertThat(celestialBody.getValidityTime()).isEqualTo(dto.getValidityTime().get());
-    assertThat(celestialBody.getImage()).isEqualTo(dto.getImage().get());
+    assertThat(celestialBody.getImage()).isEqualTo("/blobs/new_hash?size=FEED");
+    verify(observationRepository).updateExpiresAt(id, 8);
   }
 
   @DisplayName("CelestialBodyService#update should update the targeted body (name == newName)")
@@ -252,6 +267,7 @@ class CelestialBodyServiceTest {
             .build();
 
     // When
+    when(blobService.store(dto.getImage().get())).thenReturn("new_hash");
     when(celestialBodyRepository.findById(id)).thenReturn(Optional.of(entity));
     when(celestialBodyRepository.save(isA(CelestialBodyEntity.class)))
         .thenAnswer(a -> a.getArgument(0));
@@ -261,7 +277,7 @@ class CelestialBodyServiceTest {
     assertThat(celestialBody.getId()).isEqualTo(id);
     assertThat(celestialBody.getName()).isEqualTo(dto.getName().get());
     assertThat(celestialBody.getValidityTime()).isEqualTo(dto.getValidityTime().get());
-    assertThat(celestialBody.getImage()).isEqualTo(dto.getImage().get());
+    assertThat(celestialBody.getImage()).isEqualTo("/blobs/new_hash?size=FEED");
   }
 
   @DisplayName("CelestialBodyService#update should leave the body as is")
@@ -288,7 +304,9 @@ class CelestialBodyServiceTest {
     assertThat(celestialBody.getId()).isEqualTo(id);
     assertThat(celestialBody.getName()).isEqualTo(entity.getName());
     assertThat(celestialBody.getValidityTime()).isEqualTo(entity.getValidityTime());
-    assertThat(celestialBody.getImage()).isEqualTo(entity.getImage());
+    assertThat(celestialBody.getImage())
+        .isEqualTo(BLOB_PROPERTIES.urlOf(entity.getImage(), Size.FEED));
+    verifyNoInteractions(observationRepository);
   }
 
   @DisplayName("CelestialBodyService#update should throw when dto is invalid")
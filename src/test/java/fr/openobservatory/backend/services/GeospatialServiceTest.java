@@ -0,0 +1,51 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.SQLException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class GeospatialServiceTest {
+
+  @Mock JdbcTemplate jdbcTemplate;
+  @InjectMocks GeospatialService geospatialService;
+
+  // --- GeospatialService#initialize
+
+  @DisplayName("GeospatialService#initialize should enable PostGIS lookups")
+  @Test
+  void initialize_should_enable_postgis_lookups() {
+    // When
+    geospatialService.initialize();
+
+    // Then
+    assertThat(geospatialService.isEnabled()).isTrue();
+    verify(jdbcTemplate, times(3)).execute(anyString());
+  }
+
+  @DisplayName("GeospatialService#initialize should fall back when PostGIS is not installed")
+  @Test
+  void initialize_should_fall_back_when_postgis_is_not_installed() {
+    // Given
+    var exception =
+        new BadSqlGrammarException(
+            "postgis", "CREATE EXTENSION", new SQLException("extension is not available"));
+
+    // When
+    doThrow(exception).when(jdbcTemplate).execute(startsWith("CREATE EXTENSION"));
+    geospatialService.initialize();
+
+    // Then
+    assertThat(geospatialService.isEnabled()).isFalse();
+    verify(jdbcTemplate, times(1)).execute(anyString());
+  }
+}
@@ -0,0 +1,187 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import fr.openobservatory.backend.configuration.ISSProperties;
+import fr.openobservatory.backend.configuration.OrbitProperties;
+import fr.openobservatory.backend.dto.output.ISSPositionDto;
+import fr.openobservatory.backend.exceptions.UnavailableISSPositionsException;
+import jakarta.validation.Validation;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+class ISSServiceTest {
+
+  RestTemplate restTemplate = new RestTemplate();
+  MockRestServiceServer upstream;
+  OrbitService orbitService;
+  ISSService issService;
+
+  @BeforeEach
+  void setUp() {
+    upstream = MockRestServiceServer.bindTo(restTemplate).build();
+    // Elements are trusted whatever their age, so that the propagation does not depend on the date
+    orbitService =
+        new OrbitService(
+            new OrbitProperties(null, Duration.ofDays(365 * 100)),
+            Validation.buildDefaultValidatorFactory().getValidator());
+    issService = new ISSService(new ISSProperties("http://iss.local"), restTemplate, orbitService);
+  }
+
+  // --- ISSService#findISSPositions
+
+  @DisplayName("ISSService#findISSPositions should throw before the first refresh")
+  @Test
+  void findISSPositions_should_throw_before_the_first_refresh() {
+    // When
+    ThrowingCallable action = () -> issService.findISSPositions();
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UnavailableISSPositionsException.class);
+  }
+
+  @DisplayName("ISSService#findISSPositions should insert the interpolated current position")
+  @Test
+  void findISSPositions_should_insert_the_interpolated_current_position() {
+    // Given
+    expectWindow(10.0);
+
+    // When
+    issService.refresh();
+    var positions = issService.findISSPositions();
+
+    // Then
+    upstream.verify();
+    assertThat(positions).isSortedAccordingTo(Comparator.comparing(ISSPositionDto::getTimestamp));
+    assertThat(positions)
+        .filteredOn(ISSPositionDto::isCurrent)
+        .singleElement()
+        .satisfies(
+            p ->
+                assertThat(p.getTimestamp())
+                    .isCloseTo(Instant.now(), within(5, ChronoUnit.SECONDS)));
+    // The current position replaces the sample taken at the same instant, if any
+    assertThat(positions).filteredOn(p -> !p.isCurrent()).hasSizeBetween(9, 10);
+  }
+
+  // --- ISSService#refresh
+
+  @DisplayName("ISSService#refresh should keep the previous window when upstream fails")
+  @Test
+  void refresh_should_keep_the_previous_window_when_upstream_fails() {
+    // Given
+    expectWindow(10.0);
+    upstream
+        .expect(requestTo(startsWith("http://iss.local/v1/satellites/25544/positions")))
+        .andRespond(withServerError());
+
+    // When
+    issService.refresh();
+    issService.refresh();
+    var positions = issService.findISSPositions();
+
+    // Then
+    upstream.verify();
+    assertThat(positions).filteredOn(ISSPositionDto::isCurrent).hasSize(1);
+  }
+
+  @DisplayName("ISSService#refresh should propagate the positions when elements are known")
+  @Test
+  void refresh_should_propagate_the_positions_when_elements_are_known() {
+    // Given
+    orbitService.upload(
+        """
+        ISS (ZARYA)
+        1 25544U 98067A   19343.69339541  .00001764  00000-0  38792-4 0  9991
+        2 25544  51.6439 211.2001 0007417  17.6667  85.6398 15.50103472202482
+        """);
+
+    // When
+    issService.refresh();
+    var positions = issService.findISSPositions();
+
+    // Then
+    upstream.verify();
+    assertThat(positions).isSortedAccordingTo(Comparator.comparing(ISSPositionDto::getTimestamp));
+    assertThat(positions).filteredOn(ISSPositionDto::isCurrent).hasSize(1);
+    assertThat(positions)
+        .allSatisfy(p -> assertThat(Math.abs(p.getLatitude())).isLessThanOrEqualTo(52.0));
+  }
+
+  // --- ISSService#interpolate
+
+  @DisplayName("ISSService#interpolate should follow the great circle across the antimeridian")
+  @Test
+  void interpolate_should_follow_the_great_circle_across_the_antimeridian() {
+    // Given
+    var now = Instant.now();
+    var samples = List.of(position(0, 170, now), position(0, -170, now.plusSeconds(600)));
+
+    // When
+    var position = ISSService.interpolate(samples, now.plusSeconds(300));
+
+    // Then
+    assertThat(position.getLatitude()).isCloseTo(0, Offset.offset(1e-9));
+    assertThat(Math.abs(position.getLongitude())).isCloseTo(180, Offset.offset(1e-9));
+    assertThat(position.isCurrent()).isTrue();
+  }
+
+  @DisplayName("ISSService#interpolate should return nothing outside of the samples")
+  @Test
+  void interpolate_should_return_nothing_outside_of_the_samples() {
+    // Given
+    var now = Instant.now();
+    var samples = List.of(position(10, 10, now), position(20, 20, now.plusSeconds(600)));
+
+    // When
+    var position = ISSService.interpolate(samples, now.plusSeconds(601));
+
+    // Then
+    assertThat(position).isNull();
+  }
+
+  // ---
+
+  private void expectWindow(double step) {
+    var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    var body =
+        IntStream.rangeClosed(-4, 5)
+            .mapToObj(
+                i ->
+                    "{\"latitude\":%s,\"longitude\":%s,\"timestamp\":%d}"
+                        .formatted(
+                            i * step,
+                            i * step,
+                            now.plus(i * 10L, ChronoUnit.MINUTES).getEpochSecond()))
+            .collect(Collectors.joining(",", "[", "]"));
+    upstream
+        .expect(requestTo(startsWith("http://iss.local/v1/satellites/25544/positions")))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+  }
+
+  private static ISSPositionDto position(double latitude, double longitude, Instant timestamp) {
+    var position = new ISSPositionDto();
+    position.setLatitude(latitude);
+    position.setLongitude(longitude);
+    position.setTimestamp(timestamp);
+    return position;
+  }
+}
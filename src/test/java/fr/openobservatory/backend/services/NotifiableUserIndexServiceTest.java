@@ -0,0 +1,218 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import fr.openobservatory.backend.entities.UserEntity;
+import fr.openobservatory.backend.repositories.UserRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class NotifiableUserIndexServiceTest {
+
+  @Mock UserRepository userRepository;
+  @InjectMocks NotifiableUserIndexService notifiableUserIndexService;
+
+  // --- NotifiableUserIndexService#findUsersCovering
+
+  @DisplayName(
+      "NotifiableUserIndexService#findUsersCovering should find users whose area covers the point")
+  @Test
+  void findUsersCovering_should_find_users_whose_area_covers_the_point() {
+    // Given
+    var near = buildUser(1L, "near", 49.44, 1.09, 5, Instant.now());
+    var farther = buildUser(2L, "farther", 49.70, 1.09, 50, Instant.now());
+    var far = buildUser(3L, "far", 48.85, 2.35, 5, Instant.now());
+
+    // When
+    Set.of(near, farther, far).forEach(notifiableUserIndexService::update);
+    var users = notifiableUserIndexService.findUsersCovering(49.45, 1.10);
+
+    // Then
+    assertThat(users)
+        .extracting(NotifiableUserIndexService.Entry::username)
+        .containsExactlyInAnyOrder("near", "farther");
+  }
+
+  @DisplayName(
+      "NotifiableUserIndexService#findUsersCovering should find users across cell boundaries")
+  @Test
+  void findUsersCovering_should_find_users_across_cell_boundaries() {
+    // Given
+    var user = buildUser(1L, "user", 0.01, 0.01, 50, Instant.now());
+
+    // When
+    notifiableUserIndexService.update(user);
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(-0.3, -0.3)).hasSize(1);
+    assertThat(notifiableUserIndexService.findUsersCovering(0.4, 0.4)).hasSize(1);
+    assertThat(notifiableUserIndexService.findUsersCovering(1.0, 1.0)).isEmpty();
+  }
+
+  @DisplayName("NotifiableUserIndexService#findUsersCovering should ignore outdated positions")
+  @Test
+  void findUsersCovering_should_ignore_outdated_positions() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now().minus(8, ChronoUnit.DAYS));
+
+    // When
+    notifiableUserIndexService.update(user);
+    var users = notifiableUserIndexService.findUsersCovering(49.44, 1.09);
+
+    // Then
+    assertThat(users).isEmpty();
+  }
+
+  // --- NotifiableUserIndexService#update
+
+  @DisplayName("NotifiableUserIndexService#update should move the user to its new position")
+  @Test
+  void update_should_move_the_user_to_its_new_position() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now());
+
+    // When
+    notifiableUserIndexService.update(user);
+    user.setLatitude(-33.86);
+    user.setLongitude(151.20);
+    notifiableUserIndexService.update(user);
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).isEmpty();
+    assertThat(notifiableUserIndexService.findUsersCovering(-33.86, 151.20)).hasSize(1);
+  }
+
+  @DisplayName("NotifiableUserIndexService#update should remove users disabling notifications")
+  @Test
+  void update_should_remove_users_disabling_notifications() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now());
+
+    // When
+    notifiableUserIndexService.update(user);
+    user.setNotificationEnabled(false);
+    notifiableUserIndexService.update(user);
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).isEmpty();
+  }
+
+  @DisplayName("NotifiableUserIndexService#update should wait for the transaction to be committed")
+  @Test
+  void update_should_wait_for_the_transaction_to_be_committed() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now());
+
+    // When
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      notifiableUserIndexService.update(user);
+      assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).isEmpty();
+      TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCommit());
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).hasSize(1);
+  }
+
+  @DisplayName("NotifiableUserIndexService#update should ignore rolled back transactions")
+  @Test
+  void update_should_ignore_rolled_back_transactions() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now());
+
+    // When
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      notifiableUserIndexService.update(user);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).isEmpty();
+  }
+
+  @DisplayName("NotifiableUserIndexService#update should keep a more recent position")
+  @Test
+  void update_should_keep_a_more_recent_position() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now().minusSeconds(60));
+
+    // When
+    notifiableUserIndexService.updatePosition(user, -33.86, 151.20, Instant.now());
+    user.setNotificationRadius(10);
+    notifiableUserIndexService.update(user);
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).isEmpty();
+    assertThat(notifiableUserIndexService.findUsersCovering(-33.86, 151.20)).hasSize(1);
+  }
+
+  // --- NotifiableUserIndexService#updatePosition
+
+  @DisplayName("NotifiableUserIndexService#updatePosition should index a user without position")
+  @Test
+  void updatePosition_should_index_a_user_without_position() {
+    // Given
+    var user = buildUser(1L, "user", 0, 0, 5, null);
+    user.setLatitude(null);
+    user.setLongitude(null);
+
+    // When
+    notifiableUserIndexService.updatePosition(user, 49.44, 1.09, Instant.now());
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).hasSize(1);
+    assertThat(user.getLatitude()).isNull();
+  }
+
+  // --- NotifiableUserIndexService#rebuild
+
+  @DisplayName("NotifiableUserIndexService#rebuild should load notifiable users")
+  @Test
+  void rebuild_should_load_notifiable_users() {
+    // Given
+    var user = buildUser(1L, "user", 49.44, 1.09, 5, Instant.now());
+
+    // When
+    when(userRepository
+            .findAllByNotificationEnabledIsTrueAndLatitudeIsNotNullAndLongitudeIsNotNullAndPositionAtIsGreaterThanEqual(
+                isA(Instant.class)))
+        .thenReturn(Set.of(user));
+    notifiableUserIndexService.rebuild();
+
+    // Then
+    assertThat(notifiableUserIndexService.findUsersCovering(49.44, 1.09)).hasSize(1);
+  }
+
+  // ---
+
+  private UserEntity buildUser(
+      Long id, String username, double latitude, double longitude, int radius, Instant at) {
+    return UserEntity.builder()
+        .id(id)
+        .username(username)
+        .latitude(latitude)
+        .longitude(longitude)
+        .notificationRadius(radius)
+        .notificationEnabled(true)
+        .positionAt(at)
+        .build();
+  }
+}
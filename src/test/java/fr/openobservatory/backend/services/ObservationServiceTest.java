@@ -1,10 +1,13 @@
 package fr.openobservatory.backend.services;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
 
+import fr.openobservatory.backend.configuration.BlobProperties;
 import fr.openobservatory.backend.dto.input.*;
+import fr.openobservatory.backend.dto.output.ObservationDto;
 import fr.openobservatory.backend.entities.CelestialBodyEntity;
 import fr.openobservatory.backend.entities.ObservationEntity;
 import fr.openobservatory.backend.entities.ObservationEntity.Visibility;
@@ -12,10 +15,17 @@ import fr.openobservatory.backend.entities.ObservationVoteEntity;
 import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
 import fr.openobservatory.backend.entities.UserEntity;
 import fr.openobservatory.backend.entities.UserEntity.Type;
+import fr.openobservatory.backend.events.ObservationCreatedEvent;
+import fr.openobservatory.backend.events.ObservationVoteChangedEvent;
+import fr.openobservatory.backend.exceptions.InvalidCursorException;
 import fr.openobservatory.backend.exceptions.ObservationNotEditableException;
 import fr.openobservatory.backend.exceptions.ValidationException;
+import fr.openobservatory.backend.mappers.CelestialBodyMapper;
+import fr.openobservatory.backend.mappers.ObservationMapper;
+import fr.openobservatory.backend.mappers.UserMapper;
 import fr.openobservatory.backend.repositories.CelestialBodyRepository;
 import fr.openobservatory.backend.repositories.ObservationRepository;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
 import fr.openobservatory.backend.repositories.ObservationVoteRepository;
 import fr.openobservatory.backend.repositories.UserRepository;
 import jakarta.validation.Validation;
@@ -36,15 +46,31 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(MockitoExtension.class)
 class ObservationServiceTest {
 
-  @Mock AchievementService achievementService;
+  static final BlobProperties BLOB_PROPERTIES =
+      new BlobProperties("/blobs/", DataSize.ofMegabytes(2));
+
+  @Mock ApplicationEventPublisher applicationEventPublisher;
   @Mock CelestialBodyRepository celestialBodyRepository;
+  @Mock GeospatialService geospatialService;
   @Spy ModelMapper modelMapper = new ModelMapper();
+
+  @Spy NotifiableUserIndexService notifiableUserIndexService = new NotifiableUserIndexService(null);
+
+  @Spy
+  ObservationMapper observationMapper =
+      new ObservationMapper(
+          BLOB_PROPERTIES,
+          new CelestialBodyMapper(BLOB_PROPERTIES),
+          new UserMapper(BLOB_PROPERTIES));
+
   @Mock ObservationRepository observationRepository;
   @Mock ObservationVoteRepository observationVoteRepository;
   @Mock PushSubscriptionService pushSubscriptionService;
@@ -58,7 +84,15 @@ class ObservationServiceTest {
   @Test
   void create_should_create_an_observation() {
     // Given
-    var issuer = UserEntity.builder().username("issuer").build();
+    var issuer =
+        UserEntity.builder()
+            .id(1L)
+            .username("issuer")
+            .latitude(12.5)
+            .longitude(49.3)
+            .notificationEnabled(true)
+            .positionAt(Instant.now())
+            .build();
     var celestialBody =
         CelestialBodyEntity.builder().id(2L).name("Neptune").validityTime(13).build();
     var dto =
@@ -74,35 +108,45 @@ class ObservationServiceTest {
         Set.of(
             issuer,
             UserEntity.builder()
+                .id(2L)
                 .username("toNotify")
+                .notificationEnabled(true)
                 .latitude(dto.getLatitude())
                 .longitude(dto.getLongitude())
                 .notificationRadius(5)
                 .positionAt(Instant.now())
                 .build(),
             UserEntity.builder()
+                .id(3L)
                 .username("toNotNotify1")
+                .notificationEnabled(true)
                 .latitude(-90.0)
                 .longitude(dto.getLongitude())
                 .notificationRadius(5)
                 .positionAt(Instant.now())
                 .build(),
             UserEntity.builder()
+                .id(4L)
                 .username("toNotNotify2")
+                .notificationEnabled(true)
                 .latitude(90.0)
                 .longitude(dto.getLongitude())
                 .notificationRadius(5)
                 .positionAt(Instant.now())
                 .build(),
             UserEntity.builder()
+                .id(5L)
                 .username("toNotNotify3")
+                .notificationEnabled(true)
                 .latitude(dto.getLatitude())
                 .longitude(-180.0)
                 .notificationRadius(5)
                 .positionAt(Instant.now())
                 .build(),
             UserEntity.builder()
+                .id(6L)
                 .username("toNotNotify4")
+                .notificationEnabled(true)
                 .latitude(dto.getLatitude())
                 .longitude(180.0)
                 .notificationRadius(5)
@@ -112,11 +156,8 @@ class ObservationServiceTest {
     // When
     when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
         .thenReturn(Optional.of(issuer));
-    when(userRepository
-            .findAllByNotificationEnabledIsTrueAndLatitudeIsNotNullAndLongitudeIsNotNullAndPositionAtIsGreaterThanEqual(
-                isA(Instant.class)))
-        .thenReturn(notifiableUsers);
-    when(celestialBodyRepository.findById(celestialBody.getId()))
+    notifiableUsers.forEach(notifiableUserIndexService::update);
+    when(celestialBodyRepository.findCachedById(celestialBody.getId()))
         .thenReturn(Optional.of(celestialBody));
     when(observationRepository.save(Mockito.isA(ObservationEntity.class)))
         .thenAnswer(a -> a.getArgument(0));
@@ -134,6 +175,11 @@ class ObservationServiceTest {
     assertThat(observation.getCurrentVote()).isNull();
     assertThat(observation.isExpired()).isTrue();
     assertThat(observation.getKarma()).isZero();
+    verify(pushSubscriptionService, times(1))
+        .sendToAll(eq(List.of(2L)), isA(PushNotificationDto.class));
+    verify(userRepository, times(1)).incrementObservationCount(issuer.getId(), 1);
+    verify(userRepository, times(1)).evictProfile(issuer.getId());
+    verify(applicationEventPublisher, times(1)).publishEvent(isA(ObservationCreatedEvent.class));
   }
 
   @DisplayName("ObservationService#create should throw when dto is invalid")
@@ -198,6 +244,37 @@ class ObservationServiceTest {
     assertThat(observations.get(0).getId()).isEqualTo(observation.getId());
   }
 
+  @DisplayName(
+      "ObservationService#findAllNearby should find observations by distance when PostGIS is available")
+  @Test
+  void findAllNearby_should_find_observations_by_distance_when_postgis_is_available() {
+    // Given
+    var observation =
+        ObservationEntity.builder()
+            .id(3302L)
+            .celestialBody(
+                CelestialBodyEntity.builder().id(12L).name("Neptune").validityTime(12).build())
+            .latitude(0.1)
+            .longitude(-179.9)
+            .orientation(30)
+            .visibility(Visibility.VISIBLE)
+            .timestamp(Instant.now())
+            .build();
+    var dto =
+        FindNearbyObservationsDto.builder().latitude(0.0).longitude(179.9).radius(500.0).build();
+
+    // When
+    when(geospatialService.isEnabled()).thenReturn(true);
+    when(observationRepository.findAllWithin(0.0, 179.9, 250_000)).thenReturn(Set.of(observation));
+    var observations = observationService.findAllNearby(dto);
+
+    // Then
+    assertThat(observations).hasSize(1);
+    assertThat(observations.get(0).getId()).isEqualTo(observation.getId());
+    verify(observationRepository, never())
+        .findAllNearby(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+  }
+
   // --- ObservationService#findById
 
   @DisplayName("ObservationService#findById should find an observation")
@@ -209,12 +286,8 @@ class ObservationServiceTest {
             .id(33L)
             .celestialBody(CelestialBodyEntity.builder().validityTime(3).build())
             .timestamp(Instant.ofEpochSecond(1355314332L))
-            .votes(
-                Set.of(
-                    ObservationVoteEntity.builder()
-                        .vote(VoteType.UPVOTE)
-                        .user(UserEntity.builder().username("voter").build())
-                        .build()))
+            .expiresAt(Instant.ofEpochSecond(1355325132L))
+            .karma(1)
             .build();
 
     // When
@@ -238,14 +311,18 @@ class ObservationServiceTest {
             .id(33L)
             .celestialBody(CelestialBodyEntity.builder().validityTime(3).build())
             .timestamp(Instant.ofEpochSecond(1355314332L))
-            .votes(
-                Set.of(ObservationVoteEntity.builder().vote(VoteType.UPVOTE).user(issuer).build()))
+            .expiresAt(Instant.ofEpochSecond(1355325132L))
+            .karma(1)
             .build();
 
     // When
     when(observationRepository.findById(entity.getId())).thenReturn(Optional.of(entity));
     when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
         .thenReturn(Optional.of(issuer));
+    when(observationVoteRepository.findByObservationAndUser(entity, issuer))
+        .thenReturn(
+            Optional.of(
+                ObservationVoteEntity.builder().vote(VoteType.UPVOTE).user(issuer).build()));
     var observation = observationService.findById(entity.getId(), issuer.getUsername());
 
     // Then
@@ -261,17 +338,31 @@ class ObservationServiceTest {
   @Test
   void search_should_search_observations() {
     // Given
-    var issuer = UserEntity.builder().username("issuer").build();
+    var issuer = UserEntity.builder().id(1L).username("issuer").build();
     var dto = PaginationDto.builder().itemsPerPage(1).page(0).build();
     var observation =
-        ObservationEntity.builder()
-            .id(33L)
-            .celestialBody(CelestialBodyEntity.builder().validityTime(3).build())
-            .timestamp(Instant.ofEpochSecond(1355314332L))
-            .build();
+        new DetailedObservation(
+            33L,
+            "Nice view",
+            1.0,
+            2.0,
+            90,
+            Visibility.VISIBLE,
+            Instant.ofEpochSecond(1355314332L),
+            Instant.ofEpochSecond(1355325132L),
+            4,
+            "author",
+            null,
+            true,
+            Type.USER,
+            5L,
+            "Moon",
+            "moon.png",
+            3,
+            VoteType.UPVOTE);
 
     // When
-    when(observationRepository.findAllByOrderByTimestampDesc(isA(Pageable.class)))
+    when(observationRepository.findAllDetailed(eq(issuer.getId()), isA(Pageable.class)))
         .thenReturn(
             new PageImpl<>(
                 List.of(observation),
@@ -286,7 +377,17 @@ class ObservationServiceTest {
     assertThat(observations.getItemCount()).isOne();
     assertThat(observations.getPage()).isZero();
     assertThat(observations.getPageCount()).isOne();
-    assertThat(observations.getData().get(0).getId()).isEqualTo(observation.getId());
+    assertThat(observations.getData())
+        .singleElement()
+        .satisfies(
+            o -> {
+              assertThat(o.getId()).isEqualTo(observation.id());
+              assertThat(o.getAuthor().getUsername()).isEqualTo(observation.authorUsername());
+              assertThat(o.getCelestialBody().getName()).isEqualTo(observation.celestialBodyName());
+              assertThat(o.getCurrentVote()).isEqualTo(VoteType.UPVOTE);
+              assertThat(o.getKarma()).isEqualTo(4);
+              assertThat(o.isExpired()).isTrue();
+            });
   }
 
   @DisplayName("ObservationService#search should throw when dto is invalid")
@@ -304,6 +405,92 @@ class ObservationServiceTest {
         .hasFieldOrPropertyWithValue("violations", Set.of("itemsPerPage.range", "page.range"));
   }
 
+  // --- ObservationService#scroll
+
+  @DisplayName("ObservationService#scroll should return observations following cursor")
+  @Test
+  void scroll_should_return_observations_following_cursor() {
+    // Given
+    var issuer = UserEntity.builder().id(1L).username("issuer").build();
+    var observations =
+        List.of(
+            detailedObservation(3L, Instant.ofEpochSecond(1680000300L, 123456000)),
+            detailedObservation(2L, Instant.ofEpochSecond(1680000200L)),
+            detailedObservation(1L, Instant.ofEpochSecond(1680000100L)));
+
+    // When
+    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
+        .thenReturn(Optional.of(issuer));
+    when(observationRepository.scrollDetailed(issuer.getId(), Pageable.ofSize(2)))
+        .thenReturn(observations.subList(0, 2));
+    when(observationRepository.scrollDetailedAfter(
+            issuer.getId(), observations.get(0).timestamp(), 3L, Pageable.ofSize(2)))
+        .thenReturn(observations.subList(1, 3));
+    var first =
+        observationService.scroll(
+            ScrollDto.builder().itemsPerPage(1).build(), issuer.getUsername());
+    var second =
+        observationService.scroll(
+            ScrollDto.builder().itemsPerPage(1).cursor(first.getNextCursor()).build(),
+            issuer.getUsername());
+
+    // Then
+    assertThat(first.getData()).extracting(ObservationDto::getId).containsExactly(3L);
+    assertThat(second.getData()).extracting(ObservationDto::getId).containsExactly(2L);
+    assertThat(second.getNextCursor()).isNotNull().isNotEqualTo(first.getNextCursor());
+  }
+
+  @DisplayName("ObservationService#scroll should not return cursor on last page")
+  @Test
+  void scroll_should_not_return_cursor_on_last_page() {
+    // Given
+    var issuer = UserEntity.builder().id(1L).username("issuer").build();
+
+    // When
+    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
+        .thenReturn(Optional.of(issuer));
+    when(observationRepository.scrollDetailed(issuer.getId(), Pageable.ofSize(11)))
+        .thenReturn(List.of(detailedObservation(1L, Instant.ofEpochSecond(1680000100L))));
+    var results =
+        observationService.scroll(
+            ScrollDto.builder().itemsPerPage(10).cursor("").build(), issuer.getUsername());
+
+    // Then
+    assertThat(results.getData()).hasSize(1);
+    assertThat(results.getNextCursor()).isNull();
+  }
+
+  @DisplayName("ObservationService#scroll should throw when cursor is invalid")
+  @Test
+  void scroll_should_throw_when_cursor_is_invalid() {
+    // Given
+    var issuer = UserEntity.builder().id(1L).username("issuer").build();
+    var dto = ScrollDto.builder().itemsPerPage(10).cursor("bm90LWEtY3Vyc29y").build();
+
+    // When
+    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
+        .thenReturn(Optional.of(issuer));
+    ThrowingCallable action = () -> observationService.scroll(dto, issuer.getUsername());
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(InvalidCursorException.class);
+  }
+
+  @DisplayName("ObservationService#scroll should throw when dto is invalid")
+  @Test
+  void scroll_should_throw_when_dto_is_invalid() {
+    // Given
+    var dto = ScrollDto.builder().itemsPerPage(1039).build();
+
+    // When
+    ThrowingCallable action = () -> observationService.scroll(dto, "issuer");
+
+    // Then
+    assertThatThrownBy(action)
+        .isInstanceOf(ValidationException.class)
+        .hasFieldOrPropertyWithValue("violations", Set.of("itemsPerPage.range"));
+  }
+
   // --- ObservationService#submitVote
 
   @DisplayName("ObservationService#submitVote should submit vote")
@@ -311,7 +498,8 @@ class ObservationServiceTest {
   void submitVote_should_submit_vote() {
     // Given
     var issuer = UserEntity.builder().username("issuer").build();
-    var observation = ObservationEntity.builder().id(1L).build();
+    var author = UserEntity.builder().id(2L).username("author").karma(3).build();
+    var observation = ObservationEntity.builder().id(1L).author(author).karma(3).build();
     var dto = SubmitVoteDto.builder().vote("UPVOTE").build();
 
     // When
@@ -326,6 +514,72 @@ class ObservationServiceTest {
 
     // Then
     verify(observationVoteRepository, times(1)).save(isA(ObservationVoteEntity.class));
+    verify(observationRepository, times(1)).incrementKarma(observation.getId(), 1);
+    verify(userRepository, times(1)).incrementKarma(author.getId(), 1);
+    verify(userRepository, times(1)).evictProfile(author.getId());
+    verify(userRepository, times(1)).incrementVoteCount(issuer.getId(), 1);
+    verify(applicationEventPublisher, times(1))
+        .publishEvent(
+            new ObservationVoteChangedEvent(
+                observation.getId(), issuer.getId(), null, VoteType.UPVOTE));
+    assertThat(observation.getKarma()).isEqualTo(4);
+    assertThat(author.getKarma()).isEqualTo(4);
+  }
+
+  @DisplayName("ObservationService#submitVote should apply the difference when vote changes")
+  @Test
+  void submitVote_should_apply_the_difference_when_vote_changes() {
+    // Given
+    var issuer = UserEntity.builder().username("issuer").build();
+    var author = UserEntity.builder().id(2L).username("author").build();
+    var observation = ObservationEntity.builder().id(1L).author(author).karma(1).build();
+    var currentVote = ObservationVoteEntity.builder().vote(VoteType.UPVOTE).build();
+    var dto = SubmitVoteDto.builder().vote("DOWNVOTE").build();
+
+    // When
+    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
+        .thenReturn(Optional.of(issuer));
+    when(observationRepository.findById(observation.getId())).thenReturn(Optional.of(observation));
+    when(observationVoteRepository.findByObservationAndUser(observation, issuer))
+        .thenReturn(Optional.of(currentVote));
+    when(observationVoteRepository.save(Mockito.isA(ObservationVoteEntity.class)))
+        .thenAnswer(a -> a.getArgument(0));
+    observationService.submitVote(observation.getId(), dto, issuer.getUsername());
+
+    // Then
+    verify(observationRepository, times(1)).incrementKarma(observation.getId(), -2);
+    verify(userRepository, times(1)).incrementKarma(author.getId(), -2);
+    verify(userRepository, never()).incrementVoteCount(any(), anyInt());
+    verify(applicationEventPublisher, times(1))
+        .publishEvent(
+            new ObservationVoteChangedEvent(
+                observation.getId(), issuer.getId(), VoteType.UPVOTE, VoteType.DOWNVOTE));
+    assertThat(observation.getKarma()).isEqualTo(-1);
+  }
+
+  @DisplayName("ObservationService#submitVote should not change karma when vote is the same")
+  @Test
+  void submitVote_should_not_change_karma_when_vote_is_the_same() {
+    // Given
+    var issuer = UserEntity.builder().username("issuer").build();
+    var observation =
+        ObservationEntity.builder().id(1L).author(UserEntity.builder().build()).karma(1).build();
+    var currentVote = ObservationVoteEntity.builder().vote(VoteType.UPVOTE).build();
+    var dto = SubmitVoteDto.builder().vote("UPVOTE").build();
+
+    // When
+    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
+        .thenReturn(Optional.of(issuer));
+    when(observationRepository.findById(observation.getId())).thenReturn(Optional.of(observation));
+    when(observationVoteRepository.findByObservationAndUser(observation, issuer))
+        .thenReturn(Optional.of(currentVote));
+    when(observationVoteRepository.save(Mockito.isA(ObservationVoteEntity.class)))
+        .thenAnswer(a -> a.getArgument(0));
+    observationService.submitVote(observation.getId(), dto, issuer.getUsername());
+
+    // Then
+    verify(observationRepository, never()).incrementKarma(anyLong(), anyInt());
+    verify(userRepository, never()).incrementKarma(anyLong(), anyInt());
   }
 
   @DisplayName("ObservationService#submitVote should delete existing vote")
@@ -333,7 +587,8 @@ class ObservationServiceTest {
   void submitVote_should_delete_existing_vote() {
     // Given
     var issuer = UserEntity.builder().username("issuer").build();
-    var observation = ObservationEntity.builder().id(1L).build();
+    var author = UserEntity.builder().id(2L).username("author").build();
+    var observation = ObservationEntity.builder().id(1L).author(author).karma(1).build();
     var currentVote = ObservationVoteEntity.builder().vote(VoteType.UPVOTE).build();
     var dto = SubmitVoteDto.builder().build();
 
@@ -347,6 +602,10 @@ class ObservationServiceTest {
 
     // Then
     verify(observationVoteRepository, times(1)).delete(isA(ObservationVoteEntity.class));
+    verify(observationRepository, times(1)).incrementKarma(observation.getId(), -1);
+    verify(userRepository, times(1)).incrementKarma(author.getId(), -1);
+    verify(userRepository, times(1)).incrementVoteCount(issuer.getId(), -1);
+    assertThat(observation.getKarma()).isZero();
   }
 
   @DisplayName("ObservationService#submitVote should do nothing")
@@ -505,4 +764,88 @@ class ObservationServiceTest {
     // Then
     assertThatThrownBy(action).isInstanceOf(ObservationNotEditableException.class);
   }
+
+  // --- ObservationService#delete
+
+  @DisplayName("ObservationService#delete should remove observation karma from its author")
+  @Test
+  void delete_should_remove_observation_karma_from_its_author() {
+    // Given
+    var author = UserEntity.builder().id(2L).username("author").build();
+    var observation = ObservationEntity.builder().id(1L).author(author).karma(5).build();
+
+    // When
+    when(observationRepository.findById(observation.getId())).thenReturn(Optional.of(observation));
+    observationService.delete(observation.getId());
+
+    // Then
+    verify(observationRepository, times(1)).deleteById(observation.getId());
+    verify(userRepository, times(1)).incrementKarma(author.getId(), -5);
+    verify(userRepository, times(1)).evictProfile(author.getId());
+    verify(userRepository, times(1)).decrementVoteCountOfVoters(observation.getId());
+    verify(userRepository, times(1)).incrementObservationCount(author.getId(), -1);
+  }
+
+  // --- ObservationService#reconcileKarma
+
+  @DisplayName("ObservationService#reconcileKarma should rebuild observations then users karma")
+  @Test
+  void reconcileKarma_should_rebuild_observations_then_users_karma() {
+    // When
+    observationService.reconcileKarma();
+
+    // Then
+    var order = inOrder(observationRepository, userRepository);
+    order.verify(observationRepository).reconcileKarma();
+    order.verify(userRepository).reconcileKarma();
+    order.verify(userRepository).reconcileActivity();
+  }
+
+  // --- ObservationService#fillMissingExpiresAt
+
+  @DisplayName("ObservationService#fillMissingExpiresAt should fill missing expirations")
+  @Test
+  void fillMissingExpiresAt_should_fill_missing_expirations() {
+    // When
+    when(observationRepository.existsByExpiresAtIsNull()).thenReturn(true);
+    observationService.fillMissingExpiresAt();
+
+    // Then
+    verify(observationRepository).fillMissingExpiresAt();
+  }
+
+  @DisplayName("ObservationService#fillMissingExpiresAt should not update once filled")
+  @Test
+  void fillMissingExpiresAt_should_not_update_once_filled() {
+    // When
+    when(observationRepository.existsByExpiresAtIsNull()).thenReturn(false);
+    observationService.fillMissingExpiresAt();
+
+    // Then
+    verify(observationRepository, never()).fillMissingExpiresAt();
+  }
+
+  // ---
+
+  private static DetailedObservation detailedObservation(Long id, Instant timestamp) {
+    return new DetailedObservation(
+        id,
+        null,
+        1.0,
+        2.0,
+        90,
+        Visibility.VISIBLE,
+        timestamp,
+        timestamp.plus(3, ChronoUnit.HOURS),
+        0,
+        "author",
+        null,
+        true,
+        Type.USER,
+        5L,
+        "Moon",
+        "moon.png",
+        3,
+        null);
+  }
 }
@@ -0,0 +1,217 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import fr.openobservatory.backend.configuration.OrbitProperties;
+import fr.openobservatory.backend.dto.input.FindSatellitePassDto;
+import fr.openobservatory.backend.dto.input.FindSatellitePositionsDto;
+import fr.openobservatory.backend.exceptions.*;
+import fr.openobservatory.backend.orbit.Geodesy;
+import fr.openobservatory.backend.orbit.GeodeticPosition;
+import fr.openobservatory.backend.orbit.Sgp4Propagator;
+import fr.openobservatory.backend.orbit.TwoLineElements;
+import jakarta.validation.Validation;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OrbitServiceTest {
+
+  static final String ISS_LINE_1 =
+      "1 25544U 98067A   19343.69339541  .00001764  00000-0  38792-4 0  9991";
+  static final String ISS_LINE_2 =
+      "2 25544  51.6439 211.2001 0007417  17.6667  85.6398 15.50103472202482";
+  static final String GEOSTATIONARY =
+      """
+      1 28626U 05008A   06176.46683397 -.00000205  00000-0  10000-3 0  2190
+      2 28626   0.0019 286.9433 0000335  13.7918  55.6504  1.00270176  4891
+      """;
+  static final Instant ISS_EPOCH = Instant.parse("2019-12-09T16:38:29Z");
+
+  OrbitService orbitService;
+
+  @BeforeEach
+  void setUp() {
+    orbitService =
+        new OrbitService(
+            new OrbitProperties(null, Duration.ofDays(7)),
+            Validation.buildDefaultValidatorFactory().getValidator());
+  }
+
+  // --- OrbitService#upload
+
+  @DisplayName("OrbitService#upload should register near-earth satellites only")
+  @Test
+  void upload_should_register_near_earth_satellites_only() {
+    // When
+    var satellites = orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2 + "\n" + GEOSTATIONARY);
+
+    // Then
+    assertThat(satellites).containsExactly(25544);
+    assertThat(orbitService.isAvailable(25544, ISS_EPOCH)).isTrue();
+    assertThat(orbitService.isAvailable(28626, ISS_EPOCH)).isFalse();
+  }
+
+  @DisplayName("OrbitService#upload should throw when no satellite can be registered")
+  @Test
+  void upload_should_throw_when_no_satellite_can_be_registered() {
+    // When
+    ThrowingCallable action = () -> orbitService.upload(GEOSTATIONARY);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(InvalidTwoLineElementsException.class);
+  }
+
+  // --- OrbitService#findPosition
+
+  @DisplayName("OrbitService#findPosition should locate the satellite above the ground")
+  @Test
+  void findPosition_should_locate_the_satellite_above_the_ground() {
+    // Given
+    orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2);
+
+    // When
+    var position = orbitService.findPosition(25544, ISS_EPOCH);
+
+    // Then
+    assertThat(position.getLatitude()).isBetween(-52.0, 52.0);
+    assertThat(position.getLongitude()).isBetween(-180.0, 180.0);
+    assertThat(position.getAltitude()).isBetween(400.0, 440.0);
+    assertThat(position.getTimestamp()).isEqualTo(ISS_EPOCH);
+  }
+
+  @DisplayName("OrbitService#findPosition should throw when satellite is unknown")
+  @Test
+  void findPosition_should_throw_when_satellite_is_unknown() {
+    // When
+    ThrowingCallable action = () -> orbitService.findPosition(25544, ISS_EPOCH);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UnknownSatelliteException.class);
+  }
+
+  @DisplayName("OrbitService#findPosition should throw when elements are outdated")
+  @Test
+  void findPosition_should_throw_when_elements_are_outdated() {
+    // Given
+    orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2);
+
+    // When
+    ThrowingCallable action =
+        () -> orbitService.findPosition(25544, ISS_EPOCH.plus(Duration.ofDays(8)));
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UnavailableSatellitePositionException.class);
+  }
+
+  // --- OrbitService#findPositions
+
+  @DisplayName("OrbitService#findPositions should throw when dto is invalid")
+  @Test
+  void findPositions_should_throw_when_dto_is_invalid() {
+    // Given
+    orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2);
+    var dto = FindSatellitePositionsDto.builder().timestamps(List.of()).build();
+
+    // When
+    ThrowingCallable action = () -> orbitService.findPositions(25544, dto);
+
+    // Then
+    assertThatThrownBy(action)
+        .isInstanceOf(ValidationException.class)
+        .hasFieldOrPropertyWithValue("violations", Set.of("timestamps.required"));
+  }
+
+  // --- OrbitService#findNextPass
+
+  @DisplayName(
+      "OrbitService#findNextPass should find the instants the satellite crosses 10 degrees")
+  @Test
+  void findNextPass_should_find_the_instants_the_satellite_crosses_10_degrees() {
+    // Given
+    orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2);
+    var dto = FindSatellitePassDto.builder().latitude(48.8566).longitude(2.3522).build();
+    var propagator = new Sgp4Propagator(TwoLineElements.parse(null, ISS_LINE_1, ISS_LINE_2));
+    var observer = new GeodeticPosition(dto.getLatitude(), dto.getLongitude(), 0);
+    // The ISS flies over Paris at the epoch of its elements, so look for the following pass
+    var from = ISS_EPOCH.plus(Duration.ofMinutes(10));
+
+    // When
+    var pass = orbitService.findNextPass(25544, dto, from).orElseThrow();
+
+    // Then
+    assertThat(pass.getRiseAt()).isAfter(from);
+    assertThat(pass.getCulminationAt()).isBetween(pass.getRiseAt(), pass.getSetAt());
+    assertThat(Duration.between(pass.getRiseAt(), pass.getSetAt()))
+        .isBetween(Duration.ofMinutes(1), Duration.ofMinutes(12));
+    assertThat(elevation(propagator, observer, pass.getRiseAt())).isCloseTo(10, within(0.2));
+    assertThat(elevation(propagator, observer, pass.getSetAt())).isCloseTo(10, within(0.2));
+    assertThat(pass.getMaxElevation()).isBetween(10.0, 90.0);
+    for (var t = from; t.isBefore(pass.getRiseAt()); t = t.plusSeconds(10))
+      assertThat(elevation(propagator, observer, t)).isLessThan(10);
+  }
+
+  // --- OrbitService#findPasses
+
+  @DisplayName("OrbitService#findPasses should skip the pass in progress")
+  @Test
+  void findPasses_should_skip_the_pass_in_progress() {
+    // Given
+    orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2);
+    var to = ISS_EPOCH.plus(Duration.ofDays(1));
+
+    // When
+    var passes = orbitService.findPasses(25544, 48.8566, 2.3522, ISS_EPOCH, to);
+
+    // Then
+    assertThat(passes).isNotEmpty();
+    assertThat(passes.get(0).getRiseAt()).isAfter(ISS_EPOCH.plus(Duration.ofMinutes(5)));
+    for (int i = 1; i < passes.size(); i++)
+      assertThat(passes.get(i).getRiseAt()).isAfter(passes.get(i - 1).getSetAt());
+    assertThat(passes.get(passes.size() - 1).getRiseAt()).isBefore(to);
+  }
+
+  @DisplayName("OrbitService#findNextPass should find nothing when satellite never rises enough")
+  @Test
+  void findNextPass_should_find_nothing_when_satellite_never_rises_enough() {
+    // Given
+    orbitService.upload(ISS_LINE_1 + "\n" + ISS_LINE_2);
+    var dto = FindSatellitePassDto.builder().latitude(89.0).longitude(0.0).build();
+
+    // When
+    var pass = orbitService.findNextPass(25544, dto, ISS_EPOCH);
+
+    // Then
+    assertThat(pass).isEmpty();
+  }
+
+  @DisplayName("OrbitService#findNextPass should throw when dto is invalid")
+  @Test
+  void findNextPass_should_throw_when_dto_is_invalid() {
+    // Given
+    var dto = FindSatellitePassDto.builder().latitude(91.0).longitude(0.0).build();
+
+    // When
+    ThrowingCallable action = () -> orbitService.findNextPass(25544, dto);
+
+    // Then
+    assertThatThrownBy(action)
+        .isInstanceOf(ValidationException.class)
+        .hasFieldOrPropertyWithValue("violations", Set.of("latitude.range"));
+  }
+
+  // ---
+
+  private static double elevation(
+      Sgp4Propagator propagator, GeodeticPosition observer, Instant at) {
+    return Geodesy.elevation(
+        observer,
+        Geodesy.toEarthFixed(observer),
+        Geodesy.toEarthFixed(propagator.propagate(at), at));
+  }
+}
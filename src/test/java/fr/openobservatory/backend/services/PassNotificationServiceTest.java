@@ -0,0 +1,137 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import fr.openobservatory.backend.dto.input.PushNotificationDto;
+import fr.openobservatory.backend.dto.output.SatellitePassDto;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PassNotificationServiceTest {
+
+  @Mock NotifiableUserIndexService notifiableUserIndexService;
+  @Mock OrbitService orbitService;
+  @Mock PushSubscriptionService pushSubscriptionService;
+  @InjectMocks PassNotificationService passNotificationService;
+
+  // --- PassNotificationService#run
+
+  @DisplayName("PassNotificationService#run should remind the users of a cell of a visible pass")
+  @Test
+  void run_should_remind_the_users_of_a_cell_of_a_visible_pass() {
+    // Given
+    var users = List.of(entry(1L, 49.44, 1.09), entry(2L, 49.45, 1.10), entry(3L, 48.85, 2.35));
+    var pass = pass(Duration.ofMinutes(5), true);
+    var captor = ArgumentCaptor.forClass(PushNotificationDto.class);
+
+    // When
+    when(orbitService.isAvailable(eq(ISSService.NORAD_ISS_ID), any())).thenReturn(true);
+    when(notifiableUserIndexService.findAll()).thenReturn(users);
+    when(orbitService.findPasses(eq(ISSService.NORAD_ISS_ID), eq(49.25), eq(1.25), any(), any()))
+        .thenReturn(List.of(pass));
+    when(orbitService.findPasses(eq(ISSService.NORAD_ISS_ID), eq(48.75), eq(2.25), any(), any()))
+        .thenReturn(List.of());
+    passNotificationService.run();
+
+    // Then
+    verify(pushSubscriptionService).sendToAll(argThat(ids(1L, 2L)), captor.capture());
+    verifyNoMoreInteractions(pushSubscriptionService);
+    assertThat(captor.getValue().getCode()).isEqualTo("ISS_PASS");
+  }
+
+  @DisplayName("PassNotificationService#run should compute the pass table of a cell once")
+  @Test
+  void run_should_compute_the_pass_table_of_a_cell_once() {
+    // Given
+    var users = List.of(entry(1L, 49.44, 1.09), entry(2L, 49.45, 1.10));
+    var pass = pass(Duration.ofMinutes(5), true);
+
+    // When
+    when(orbitService.isAvailable(eq(ISSService.NORAD_ISS_ID), any())).thenReturn(true);
+    when(notifiableUserIndexService.findAll()).thenReturn(users);
+    when(orbitService.findPasses(
+            eq(ISSService.NORAD_ISS_ID), anyDouble(), anyDouble(), any(), any()))
+        .thenReturn(List.of(pass));
+    passNotificationService.run();
+    passNotificationService.run();
+
+    // Then
+    verify(orbitService, times(1))
+        .findPasses(eq(ISSService.NORAD_ISS_ID), anyDouble(), anyDouble(), any(), any());
+    verify(pushSubscriptionService, times(1)).sendToAll(any(), any());
+  }
+
+  @DisplayName("PassNotificationService#run should not remind passes which are not visible or far")
+  @Test
+  void run_should_not_remind_passes_which_are_not_visible_or_far() {
+    // Given
+    var users = List.of(entry(1L, 49.44, 1.09));
+    var passes = List.of(pass(Duration.ofMinutes(5), false), pass(Duration.ofHours(2), true));
+
+    // When
+    when(orbitService.isAvailable(eq(ISSService.NORAD_ISS_ID), any())).thenReturn(true);
+    when(notifiableUserIndexService.findAll()).thenReturn(users);
+    when(orbitService.findPasses(
+            eq(ISSService.NORAD_ISS_ID), anyDouble(), anyDouble(), any(), any()))
+        .thenReturn(passes);
+    passNotificationService.run();
+
+    // Then
+    verifyNoInteractions(pushSubscriptionService);
+  }
+
+  @DisplayName("PassNotificationService#run should do nothing when the ISS cannot be located")
+  @Test
+  void run_should_do_nothing_when_the_iss_cannot_be_located() {
+    // When
+    when(orbitService.isAvailable(eq(ISSService.NORAD_ISS_ID), any())).thenReturn(false);
+    passNotificationService.run();
+
+    // Then
+    verifyNoInteractions(notifiableUserIndexService, pushSubscriptionService);
+  }
+
+  // ---
+
+  private static NotifiableUserIndexService.Entry entry(
+      Long id, double latitude, double longitude) {
+    return new NotifiableUserIndexService.Entry(
+        id,
+        "user" + id,
+        latitude,
+        longitude,
+        latitude - 0.1,
+        latitude + 0.1,
+        longitude - 0.1,
+        longitude + 0.1,
+        Instant.now());
+  }
+
+  private static SatellitePassDto pass(Duration delay, boolean isVisible) {
+    var pass = new SatellitePassDto();
+    pass.setRiseAt(Instant.now().plus(delay));
+    pass.setCulminationAt(pass.getRiseAt().plusSeconds(180));
+    pass.setSetAt(pass.getRiseAt().plusSeconds(360));
+    pass.setMaxElevation(45);
+    pass.setVisible(isVisible);
+    return pass;
+  }
+
+  private static ArgumentMatcher<Collection<Long>> ids(Long... ids) {
+    return actual ->
+        actual != null && actual.size() == ids.length && actual.containsAll(List.of(ids));
+  }
+}
@@ -0,0 +1,71 @@
+package fr.openobservatory.backend.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import fr.openobservatory.backend.JpaTestConfiguration;
+import fr.openobservatory.backend.entities.UserEntity;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+
+@DataJpaTest
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import(PositionBufferService.class)
+class PositionBufferServiceTest {
+
+  @Autowired TestEntityManager entityManager;
+  @Autowired PositionBufferService positionBufferService;
+  @MockBean NotifiableUserIndexService notifiableUserIndexService;
+
+  // --- PositionBufferService#flush
+
+  @DisplayName("PositionBufferService#flush should write the last position of each user")
+  @Test
+  void flush_should_write_the_last_position_of_each_user() {
+    // Given
+    var user =
+        entityManager.persistFlushFind(
+            UserEntity.builder().username("user").password("-").biography("Hello").build());
+    var positionAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    // When
+    positionBufferService.buffer(user, 1.0, 2.0, positionAt.minusSeconds(10));
+    positionBufferService.buffer(user, 3.0, 4.0, positionAt);
+    positionBufferService.flush();
+    entityManager.clear();
+
+    // Then
+    var found = entityManager.find(UserEntity.class, user.getId());
+    assertThat(found.getLatitude()).isEqualTo(3.0);
+    assertThat(found.getLongitude()).isEqualTo(4.0);
+    assertThat(found.getPositionAt()).isEqualTo(positionAt);
+    assertThat(found.getBiography()).isEqualTo("Hello");
+    verify(notifiableUserIndexService, times(2))
+        .updatePosition(eq(user), anyDouble(), anyDouble(), any());
+  }
+
+  @DisplayName("PositionBufferService#flush should not write discarded positions")
+  @Test
+  void flush_should_not_write_discarded_positions() {
+    // Given
+    var user =
+        entityManager.persistFlushFind(UserEntity.builder().username("user").password("-").build());
+
+    // When
+    positionBufferService.buffer(user, 1.0, 2.0, Instant.now());
+    positionBufferService.discard(user.getId());
+    positionBufferService.flush();
+    entityManager.clear();
+
+    // Then
+    assertThat(entityManager.find(UserEntity.class, user.getId()).getLatitude()).isNull();
+  }
+}
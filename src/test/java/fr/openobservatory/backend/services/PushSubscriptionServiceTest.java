@@ -3,35 +3,70 @@ package fr.openobservatory.backend.services;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import fr.openobservatory.backend.configuration.PushServiceProperties;
 import fr.openobservatory.backend.dto.input.PushNotificationDto;
 import fr.openobservatory.backend.dto.input.SubscribeNotificationsDto;
+import fr.openobservatory.backend.entities.PushDeadLetterEntity;
 import fr.openobservatory.backend.entities.PushSubscriptionEntity;
 import fr.openobservatory.backend.entities.UserEntity;
 import fr.openobservatory.backend.exceptions.ValidationException;
 import fr.openobservatory.backend.providers.PushProvider;
 import fr.openobservatory.backend.providers.PushProvider.PushMessageException;
+import fr.openobservatory.backend.providers.PushProvider.PushResponse;
+import fr.openobservatory.backend.providers.PushRetryPolicy;
+import fr.openobservatory.backend.repositories.PushDeadLetterRepository;
 import fr.openobservatory.backend.repositories.PushSubscriptionRepository;
 import fr.openobservatory.backend.repositories.UserRepository;
+import fr.openobservatory.backend.services.PushSubscriptionService.PushOutcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
 import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @ExtendWith(MockitoExtension.class)
 class PushSubscriptionServiceTest {
 
+  @Spy MeterRegistry meterRegistry = new SimpleMeterRegistry();
   @Spy ModelMapper modelMapper = new ModelMapper();
   @Mock PushProvider pushProvider;
+
+  @Spy
+  PushRetryPolicy pushRetryPolicy =
+      new PushRetryPolicy(
+          new PushServiceProperties(
+              null,
+              null,
+              null,
+              null,
+              new PushServiceProperties.Retry(3, Duration.ofSeconds(1), Duration.ofMinutes(1))));
+
+  @Spy TaskExecutor pushExecutor = new SyncTaskExecutor();
+  @Mock TaskScheduler taskScheduler;
+  @Mock PushDeadLetterRepository pushDeadLetterRepository;
   @Mock PushSubscriptionRepository pushSubscriptionRepository;
   @Mock UserRepository userRepository;
   @Spy Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
@@ -53,55 +88,265 @@ class PushSubscriptionServiceTest {
     assertThat(key).isEqualTo(publicKey);
   }
 
-  // --- PushSubscriptionService#sendTo
+  // --- PushSubscriptionService#sendToAll
 
-  @DisplayName("PushSubscriptionService#sendTo should send notification")
+  @DisplayName("PushSubscriptionService#sendToAll should send notification")
   @Test
-  void sendTo_should_send_notification() throws PushMessageException {
+  void sendToAll_should_send_notification() {
     // Given
-    var target = UserEntity.builder().username("target").build();
+    var target = UserEntity.builder().id(1L).username("target").build();
     var subscriptions =
         List.of(
             PushSubscriptionEntity.builder().user(target).build(),
             PushSubscriptionEntity.builder().user(target).build());
 
     // When
-    when(userRepository.findByUsernameIgnoreCase(target.getUsername()))
-        .thenReturn(Optional.of(target));
-    when(pushSubscriptionRepository.findAllByUser(target)).thenReturn(subscriptions);
-    pushSubscriptionService.sendTo(
-        target.getUsername(), PushNotificationDto.builder().code("AAA").build());
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(subscriptions);
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.completedFuture(response(201, null)));
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAA").build());
 
     // Then
-    verify(pushProvider, times(subscriptions.size())).send(isA(PushProvider.PushMessage.class));
+    verify(pushProvider, times(subscriptions.size()))
+        .sendAsync(isA(PushProvider.PushMessage.class));
+    assertThat(pushSubscriptionService.getOutcomes())
+        .containsEntry(PushOutcome.DELIVERED, (long) subscriptions.size());
   }
 
-  @DisplayName(
-      "PushSubscriptionService#sendTo should delete subscription when provider failed to send")
+  @DisplayName("PushSubscriptionService#sendToAll should delete subscription when it expired")
   @Test
-  void sendTo_should_delete_subscription_when_provider_failed_to_send()
-      throws PushMessageException {
+  void sendToAll_should_delete_subscription_when_it_expired() {
     // Given
-    var target = UserEntity.builder().username("target").build();
+    var target = UserEntity.builder().id(1L).username("target").build();
     var subscriptions =
         List.of(
             PushSubscriptionEntity.builder().user(target).build(),
             PushSubscriptionEntity.builder().user(target).build());
 
     // When
-    when(userRepository.findByUsernameIgnoreCase(target.getUsername()))
-        .thenReturn(Optional.of(target));
-    when(pushSubscriptionRepository.findAllByUser(target)).thenReturn(subscriptions);
-    doThrow(new PushMessageException())
-        .when(pushProvider)
-        .send(isA(PushProvider.PushMessage.class));
-    pushSubscriptionService.sendTo(
-        target.getUsername(), PushNotificationDto.builder().code("AAAA").build());
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(subscriptions);
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.completedFuture(response(410, null)));
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAAA").build());
 
     // Then
-    verify(pushProvider, times(subscriptions.size())).send(isA(PushProvider.PushMessage.class));
+    verify(pushProvider, times(subscriptions.size()))
+        .sendAsync(isA(PushProvider.PushMessage.class));
+    verify(pushExecutor, times(1 + subscriptions.size())).execute(isA(Runnable.class));
     verify(pushSubscriptionRepository, times(subscriptions.size()))
         .delete(isA(PushSubscriptionEntity.class));
+    assertThat(pushSubscriptionService.getOutcomes())
+        .containsEntry(PushOutcome.EXPIRED, (long) subscriptions.size());
+  }
+
+  @DisplayName(
+      "PushSubscriptionService#sendToAll should retry when push service throttled notification")
+  @Test
+  void sendToAll_should_retry_when_push_service_throttled_notification() {
+    // Given
+    var target = UserEntity.builder().id(1L).username("target").build();
+    var subscription = PushSubscriptionEntity.builder().user(target).build();
+    var retry = ArgumentCaptor.forClass(Runnable.class);
+    var retryAt = ArgumentCaptor.forClass(Instant.class);
+
+    // When
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(List.of(subscription));
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.completedFuture(response(429, "30")))
+        .thenReturn(CompletableFuture.completedFuture(response(201, null)));
+    var before = Instant.now();
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAAA").build());
+    verify(taskScheduler).schedule(retry.capture(), retryAt.capture());
+    retry.getValue().run();
+
+    // Then
+    assertThat(retryAt.getValue()).isAfterOrEqualTo(before.plusSeconds(30));
+    verify(pushProvider, times(2)).sendAsync(isA(PushProvider.PushMessage.class));
+    verify(pushSubscriptionRepository, never()).delete(isA(PushSubscriptionEntity.class));
+    assertThat(pushSubscriptionService.getOutcomes())
+        .containsEntry(PushOutcome.RETRIED, 1L)
+        .containsEntry(PushOutcome.DELIVERED, 1L);
+    assertThat(
+            meterRegistry.counter("push.messages", "outcome", "RETRIED", "status", "429").count())
+        .isEqualTo(1);
+    assertThat(
+            meterRegistry.counter("push.messages", "outcome", "DELIVERED", "status", "201").count())
+        .isEqualTo(1);
+  }
+
+  @DisplayName(
+      "PushSubscriptionService#sendToAll should dead letter notification after too many attempts")
+  @Test
+  void sendToAll_should_dead_letter_notification_after_too_many_attempts() {
+    // Given
+    var target = UserEntity.builder().id(1L).username("target").build();
+    var subscription =
+        PushSubscriptionEntity.builder().endpoint("https://push.test/1").user(target).build();
+
+    // When
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(List.of(subscription));
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.completedFuture(response(503, null)));
+    doAnswer(
+            invocation -> {
+              invocation.<Runnable>getArgument(0).run();
+              return null;
+            })
+        .when(taskScheduler)
+        .schedule(isA(Runnable.class), isA(Instant.class));
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAAA").build());
+
+    // Then
+    verify(pushProvider, times(3)).sendAsync(isA(PushProvider.PushMessage.class));
+    verify(pushSubscriptionRepository, never()).delete(isA(PushSubscriptionEntity.class));
+    verify(pushDeadLetterRepository, times(1))
+        .save(
+            argThat(
+                l ->
+                    l.getEndpoint().equals(subscription.getEndpoint())
+                        && l.getStatus() == 503
+                        && l.getAttempts() == 3));
+    assertThat(pushSubscriptionService.getOutcomes())
+        .containsEntry(PushOutcome.RETRIED, 2L)
+        .containsEntry(PushOutcome.DEAD_LETTERED, 1L);
+  }
+
+  @DisplayName(
+      "PushSubscriptionService#sendToAll should dead letter notification rejected by push service")
+  @Test
+  void sendToAll_should_dead_letter_notification_rejected_by_push_service() {
+    // Given
+    var target = UserEntity.builder().id(1L).username("target").build();
+    var subscription =
+        PushSubscriptionEntity.builder().endpoint("https://push.test/1").user(target).build();
+
+    // When
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(List.of(subscription));
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.completedFuture(response(413, null)));
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAAA").build());
+
+    // Then
+    verifyNoInteractions(taskScheduler);
+    verify(pushSubscriptionRepository, never()).delete(isA(PushSubscriptionEntity.class));
+    verify(pushDeadLetterRepository, times(1)).save(isA(PushDeadLetterEntity.class));
+  }
+
+  @DisplayName("PushSubscriptionService#sendToAll should retry when push service is unreachable")
+  @Test
+  void sendToAll_should_retry_when_push_service_is_unreachable() {
+    // Given
+    var target = UserEntity.builder().id(1L).username("target").build();
+    var subscription = PushSubscriptionEntity.builder().user(target).build();
+    var retry = ArgumentCaptor.forClass(Runnable.class);
+
+    // When
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(List.of(subscription));
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(
+            CompletableFuture.failedFuture(
+                new PushMessageException(new HttpTimeoutException("timed out"))))
+        .thenReturn(CompletableFuture.completedFuture(response(201, null)));
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAAA").build());
+    verify(taskScheduler).schedule(retry.capture(), isA(Instant.class));
+    retry.getValue().run();
+
+    // Then
+    verify(pushProvider, times(2)).sendAsync(isA(PushProvider.PushMessage.class));
+    verifyNoInteractions(pushDeadLetterRepository);
+    assertThat(pushSubscriptionService.getOutcomes())
+        .containsEntry(PushOutcome.RETRIED, 1L)
+        .containsEntry(PushOutcome.DELIVERED, 1L);
+  }
+
+  @DisplayName(
+      "PushSubscriptionService#sendToAll should dead letter notification that cannot be sent")
+  @Test
+  void sendToAll_should_dead_letter_notification_that_cannot_be_sent() {
+    // Given
+    var target = UserEntity.builder().id(1L).username("target").build();
+    var subscription =
+        PushSubscriptionEntity.builder().endpoint("https://push.test/1").user(target).build();
+
+    // When
+    when(pushSubscriptionRepository.findAllByUserIdIn(List.of(target.getId())))
+        .thenReturn(List.of(subscription));
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.failedFuture(new PushMessageException()));
+    pushSubscriptionService.sendToAll(
+        List.of(target.getId()), PushNotificationDto.builder().code("AAAA").build());
+
+    // Then
+    verifyNoInteractions(taskScheduler);
+    verify(pushDeadLetterRepository, times(1))
+        .save(argThat(l -> l.getStatus() == null && l.getAttempts() == 1));
+    assertThat(pushSubscriptionService.getOutcomes()).containsEntry(PushOutcome.DEAD_LETTERED, 1L);
+  }
+
+  @DisplayName("PushSubscriptionService#sendToAll should send notifications by batches")
+  @Test
+  void sendToAll_should_send_notifications_by_batches() {
+    // Given
+    var targetIds = LongStream.rangeClosed(1, 250).boxed().toList();
+    var subscription =
+        PushSubscriptionEntity.builder().user(UserEntity.builder().id(1L).build()).build();
+
+    // When
+    when(pushSubscriptionRepository.findAllByUserIdIn(anyCollection()))
+        .thenReturn(List.of(subscription));
+    when(pushProvider.sendAsync(isA(PushProvider.PushMessage.class)))
+        .thenReturn(CompletableFuture.completedFuture(response(201, null)));
+    pushSubscriptionService.sendToAll(targetIds, PushNotificationDto.builder().code("A").build());
+
+    // Then
+    verify(pushExecutor, times(3)).execute(isA(Runnable.class));
+    verify(pushSubscriptionRepository, times(1)).findAllByUserIdIn(targetIds.subList(0, 100));
+    verify(pushSubscriptionRepository, times(1)).findAllByUserIdIn(targetIds.subList(200, 250));
+    verify(pushProvider, times(3)).sendAsync(isA(PushProvider.PushMessage.class));
+    verify(pushSubscriptionRepository, never()).delete(isA(PushSubscriptionEntity.class));
+  }
+
+  @DisplayName("PushSubscriptionService#sendToAll should wait for the transaction to be committed")
+  @Test
+  void sendToAll_should_wait_for_the_transaction_to_be_committed() {
+    // Given
+    var targetIds = List.of(1L, 2L);
+
+    // When
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      pushSubscriptionService.sendToAll(targetIds, PushNotificationDto.builder().code("A").build());
+      verifyNoInteractions(pushExecutor);
+      TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCommit());
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // Then
+    verify(pushExecutor, times(1)).execute(isA(Runnable.class));
+    verify(pushSubscriptionRepository, times(1)).findAllByUserIdIn(targetIds);
+  }
+
+  @DisplayName("PushSubscriptionService#sendToAll should do nothing without targets")
+  @Test
+  void sendToAll_should_do_nothing_without_targets() {
+    // When
+    pushSubscriptionService.sendToAll(List.of(), PushNotificationDto.builder().code("A").build());
+
+    // Then
+    verifyNoInteractions(pushExecutor, pushSubscriptionRepository);
   }
 
   // --- PushSubscriptionService#subscribe
@@ -144,4 +389,14 @@ class PushSubscriptionServiceTest {
         .hasFieldOrPropertyWithValue(
             "violations", Set.of("auth.required", "p256dh.required", "endpoint.url"));
   }
+
+  // ---
+
+  private static PushResponse response(int status, String retryAfter) {
+    var headers =
+        retryAfter == null
+            ? Map.<String, List<String>>of()
+            : Map.of("Retry-After", List.of(retryAfter));
+    return new PushResponse(status, HttpHeaders.of(headers, (name, value) -> true));
+  }
 }
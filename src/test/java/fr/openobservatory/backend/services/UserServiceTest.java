@@ -3,18 +3,32 @@ package fr.openobservatory.backend.services;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.openobservatory.backend.configuration.BlobProperties;
 import fr.openobservatory.backend.dto.input.*;
+import fr.openobservatory.backend.dto.output.UserWithProfileDto;
 import fr.openobservatory.backend.entities.*;
-import fr.openobservatory.backend.entities.ObservationVoteEntity.VoteType;
 import fr.openobservatory.backend.entities.UserEntity.Type;
 import fr.openobservatory.backend.exceptions.*;
+import fr.openobservatory.backend.mappers.CelestialBodyMapper;
+import fr.openobservatory.backend.mappers.ObservationMapper;
+import fr.openobservatory.backend.mappers.UserMapper;
 import fr.openobservatory.backend.repositories.*;
 import fr.openobservatory.backend.repositories.Achievements.Achievement;
+import fr.openobservatory.backend.repositories.Achievements.Level;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.AchievementLevel;
+import fr.openobservatory.backend.repositories.CachedUserProfileRepository.UserProfile;
+import fr.openobservatory.backend.repositories.ObservationRepository.DetailedObservation;
+import fr.openobservatory.backend.repositories.StreamingObservationRepository.Position;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,20 +37,35 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.openapitools.jackson.nullable.JsonNullable;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
 
-  @Spy ModelMapper modelMapper = new ModelMapper();
+  static final BlobProperties BLOB_PROPERTIES =
+      new BlobProperties("/blobs/", DataSize.ofMegabytes(2));
+
+  @Mock BlobService blobService;
+  @Mock NotifiableUserIndexService notifiableUserIndexService;
+  @Spy ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @Spy
+  ObservationMapper observationMapper =
+      new ObservationMapper(
+          BLOB_PROPERTIES,
+          new CelestialBodyMapper(BLOB_PROPERTIES),
+          new UserMapper(BLOB_PROPERTIES));
+
   @Mock ObservationRepository observationRepository;
   @Spy PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+  @Mock PositionBufferService positionBufferService;
   @Mock PushSubscriptionRepository pushSubscriptionRepository;
+  @Spy UserMapper userMapper = new UserMapper(BLOB_PROPERTIES);
   @Mock UserRepository userRepository;
   @Spy Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
   @InjectMocks UserService userService;
@@ -55,7 +84,6 @@ class UserServiceTest {
             .build();
 
     // When
-    when(observationRepository.findAllByAuthor(isA(UserEntity.class))).thenReturn(Set.of());
     when(userRepository.save(isA(UserEntity.class))).then(a -> a.getArgument(0));
     var user = userService.create(dto);
 
@@ -137,6 +165,67 @@ class UserServiceTest {
     assertThat(users.getData().get(0).getUsername()).isEqualTo(user.getUsername());
   }
 
+  // --- UserService#scroll
+
+  @DisplayName("UserService#scroll should return first users and next cursor")
+  @Test
+  void scroll_should_return_first_users_and_next_cursor() {
+    // Given
+    var dto = ScrollDto.builder().itemsPerPage(2).build();
+    var users =
+        List.of(
+            UserEntity.builder().username("alice").build(),
+            UserEntity.builder().username("bob").build(),
+            UserEntity.builder().username("carol").build());
+
+    // When
+    when(userRepository.findAllByOrderByUsernameAsc(Pageable.ofSize(3))).thenReturn(users);
+    var results = userService.scroll(dto);
+
+    // Then
+    assertThat(results.getData())
+        .extracting(UserWithProfileDto::getUsername)
+        .containsExactly("alice", "bob");
+    assertThat(results.getNextCursor()).isNotNull();
+  }
+
+  @DisplayName("UserService#scroll should return users following cursor")
+  @Test
+  void scroll_should_return_users_following_cursor() {
+    // Given
+    var first = ScrollDto.builder().itemsPerPage(1).build();
+    var users =
+        List.of(
+            UserEntity.builder().username("alice").build(),
+            UserEntity.builder().username("bob").build());
+
+    // When
+    when(userRepository.findAllByOrderByUsernameAsc(Pageable.ofSize(2))).thenReturn(users);
+    when(userRepository.findAllByUsernameGreaterThanOrderByUsernameAsc("alice", Pageable.ofSize(2)))
+        .thenReturn(List.of(users.get(1)));
+    var cursor = userService.scroll(first).getNextCursor();
+    var results = userService.scroll(ScrollDto.builder().itemsPerPage(1).cursor(cursor).build());
+
+    // Then
+    assertThat(results.getData())
+        .extracting(UserWithProfileDto::getUsername)
+        .containsExactly("bob");
+    assertThat(results.getNextCursor()).isNull();
+  }
+
+  @DisplayName("UserService#scroll should throw when cursor is invalid")
+  @Test
+  void scroll_should_throw_when_cursor_is_invalid() {
+    // Given
+    var dto = ScrollDto.builder().itemsPerPage(10).cursor("not base64!").build();
+
+    // When
+    ThrowingCallable action = () -> userService.scroll(dto);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(InvalidCursorException.class);
+  }
+
   // --- UserService#delete
 
   @DisplayName("UserService#delete should delete the user")
@@ -155,6 +244,8 @@ class UserServiceTest {
 
     // Then
     verify(userRepository).delete(isA(UserEntity.class));
+    verify(userRepository).evictProfile(target.getId());
+    verify(userRepository).evictUsername(target.getUsername());
   }
 
   @DisplayName("UserService#delete should throw when issuer can't delete the user")
@@ -181,34 +272,30 @@ class UserServiceTest {
   @Test
   void findByUsername_should_find_user() {
     // Given
-    var target = UserEntity.builder().username("target").build();
-    var issuer = UserEntity.builder().username("issuer").build();
+    var target = profile(1L, "target", Type.USER, true);
+    var issuer = profile(2L, "issuer", Type.USER, true);
 
     // When
-    when(userRepository.findByUsernameIgnoreCase(target.getUsername()))
-        .thenReturn(Optional.of(target));
-    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
-        .thenReturn(Optional.of(issuer));
-    var user = userService.findByUsername(target.getUsername(), issuer.getUsername());
+    mockProfiles(target, issuer);
+    var user = userService.findByUsername(target.username(), issuer.username());
 
     // Then
-    assertThat(user.getUsername()).isEqualTo(target.getUsername());
+    assertThat(user.getUsername()).isEqualTo(target.username());
+    assertThat(user.getObservationCount()).isEqualTo(target.observationCount());
+    verify(userRepository, never()).findByUsernameIgnoreCase(any());
   }
 
   @DisplayName("UserService#findByUsername should throw when profile is private")
   @Test
   void findByUsername_should_throw_when_profile_is_private() {
     // Given
-    var target = UserEntity.builder().username("target").isPublic(false).build();
-    var issuer = UserEntity.builder().username("issuer").build();
+    var target = profile(1L, "target", Type.USER, false);
+    var issuer = profile(2L, "issuer", Type.USER, true);
 
     // When
-    when(userRepository.findByUsernameIgnoreCase(target.getUsername()))
-        .thenReturn(Optional.of(target));
-    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
-        .thenReturn(Optional.of(issuer));
+    mockProfiles(target, issuer);
     ThrowingCallable action =
-        () -> userService.findByUsername(target.getUsername(), issuer.getUsername());
+        () -> userService.findByUsername(target.username(), issuer.username());
 
     // Then
     assertThatThrownBy(action).isInstanceOf(UserNotVisibleException.class);
@@ -218,15 +305,129 @@ class UserServiceTest {
   @Test
   void findByUsername_should_throw_when_profile_is_private_without_issuer() {
     // Given
-    var target = UserEntity.builder().username("target").isPublic(false).build();
+    var target = profile(1L, "target", Type.USER, false);
 
     // When
-    when(userRepository.findByUsernameIgnoreCase(target.getUsername()))
-        .thenReturn(Optional.of(target));
-    ThrowingCallable action = () -> userService.findByUsername(target.getUsername(), null);
+    mockProfiles(target);
+    ThrowingCallable action = () -> userService.findByUsername(target.username(), null);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UserNotVisibleException.class);
+  }
+
+  @DisplayName("UserService#findByUsername should find private profile for admins")
+  @Test
+  void findByUsername_should_find_private_profile_for_admins() {
+    // Given
+    var target = profile(1L, "target", Type.USER, false);
+    var issuer = profile(2L, "issuer", Type.ADMIN, true);
+
+    // When
+    mockProfiles(target, issuer);
+    var user = userService.findByUsername(target.username(), issuer.username());
+
+    // Then
+    assertThat(user.getUsername()).isEqualTo(target.username());
+  }
+
+  @DisplayName("UserService#findByUsername should throw when user is unknown")
+  @Test
+  void findByUsername_should_throw_when_user_is_unknown() {
+    // When
+    when(userRepository.findIdByUsernameIgnoreCase("target")).thenReturn(Optional.empty());
+    ThrowingCallable action = () -> userService.findByUsername("target", null);
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UnknownUserException.class);
+  }
+
+  // --- UserService#findObservationsByUsername
+
+  @DisplayName("UserService#findObservationsByUsername should stream a page and its cursor")
+  @Test
+  void findObservationsByUsername_should_stream_a_page_and_its_cursor() throws IOException {
+    // Given
+    var target = profile(1L, "target", Type.USER, true);
+    var dto = ScrollDto.builder().itemsPerPage(2).build();
+    var end = new Position(Instant.ofEpochSecond(1680000000L), 7L);
+    var output = new ByteArrayOutputStream();
+
+    // When
+    mockProfiles(target);
+    when(observationRepository.findPageEnd(target.id(), null, 2)).thenReturn(Optional.of(end));
+    doAnswer(
+            invocation -> {
+              Consumer<DetailedObservation> consumer = invocation.getArgument(4);
+              consumer.accept(detailed(8L, 3));
+              consumer.accept(detailed(7L, -1));
+              return null;
+            })
+        .when(observationRepository)
+        .streamByAuthor(eq(target), isNull(), isNull(), eq(end), any());
+    var results = userService.findObservationsByUsername(target.username(), dto, null);
+    results.getBody().writeTo(output);
+
+    // Then
+    var json = objectMapper.readTree(output.toByteArray());
+    assertThat(json.isArray()).isTrue();
+    assertThat(json).extracting(o -> o.get("id").asLong()).containsExactly(8L, 7L);
+    assertThat(json).extracting(o -> o.get("karma").asInt()).containsExactly(3, -1);
+    assertThat(FeedCursor.decode(results.getNextCursor()).toPosition()).isEqualTo(end);
+  }
+
+  @DisplayName("UserService#findObservationsByUsername should continue after the cursor")
+  @Test
+  void findObservationsByUsername_should_continue_after_the_cursor() throws IOException {
+    // Given
+    var target = profile(1L, "target", Type.USER, true);
+    var issuer = profile(2L, "issuer", Type.USER, true);
+    var after = new Position(Instant.ofEpochSecond(1680000000L), 7L);
+    var dto = ScrollDto.builder().itemsPerPage(2).cursor(FeedCursor.of(after).encode()).build();
+    var output = new ByteArrayOutputStream();
+
+    // When
+    mockProfiles(target, issuer);
+    when(observationRepository.findPageEnd(target.id(), after, 2)).thenReturn(Optional.empty());
+    var results = userService.findObservationsByUsername(target.username(), dto, issuer.username());
+    results.getBody().writeTo(output);
+
+    // Then
+    verify(observationRepository)
+        .streamByAuthor(eq(target), eq(issuer.id()), eq(after), isNull(), any());
+    assertThat(output.toString()).isEqualTo("[]");
+    assertThat(results.getNextCursor()).isNull();
+  }
+
+  @DisplayName("UserService#findObservationsByUsername should throw when profile is private")
+  @Test
+  void findObservationsByUsername_should_throw_when_profile_is_private() {
+    // Given
+    var target = profile(1L, "target", Type.USER, false);
+    var dto = ScrollDto.builder().itemsPerPage(2).build();
+
+    // When
+    mockProfiles(target);
+    ThrowingCallable action =
+        () -> userService.findObservationsByUsername(target.username(), dto, null);
 
     // Then
     assertThatThrownBy(action).isInstanceOf(UserNotVisibleException.class);
+    verifyNoInteractions(observationRepository);
+  }
+
+  @DisplayName("UserService#findObservationsByUsername should throw when dto is invalid")
+  @Test
+  void findObservationsByUsername_should_throw_when_dto_is_invalid() {
+    // Given
+    var dto = ScrollDto.builder().itemsPerPage(0).build();
+
+    // When
+    ThrowingCallable action = () -> userService.findObservationsByUsername("target", dto, null);
+
+    // Then
+    assertThatThrownBy(action)
+        .isInstanceOf(ValidationException.class)
+        .hasFieldOrPropertyWithValue("violations", Set.of("itemsPerPage.range"));
   }
 
   // --- UserService#findSelf
@@ -236,27 +437,41 @@ class UserServiceTest {
   void findSelf_should_find_the_issuer() {
     // Given
     var issuer =
-        UserEntity.builder()
-            .username("issuer")
-            .achievements(
-                Set.of(UserAchievementEntity.builder().achievement(Achievement.JAMES_WEBB).build()))
-            .build();
-    var observation =
-        ObservationEntity.builder()
-            .votes(Set.of(ObservationVoteEntity.builder().vote(VoteType.DOWNVOTE).build()))
-            .build();
+        new UserProfile(
+            1L,
+            "issuer",
+            Type.USER,
+            null,
+            null,
+            true,
+            -1,
+            3,
+            true,
+            10,
+            List.of(new AchievementLevel(Achievement.JAMES_WEBB, Level.NONE)));
 
     // When
-    when(observationRepository.findAllByAuthor(issuer)).thenReturn(Set.of(observation));
-    when(userRepository.findByUsernameIgnoreCase(issuer.getUsername()))
-        .thenReturn(Optional.of(issuer));
-    var user = userService.findSelf(issuer.getUsername());
+    mockProfiles(issuer);
+    var user = userService.findSelf(issuer.username());
 
     // Then
-    assertThat(user.getUsername()).isEqualTo(issuer.getUsername());
+    assertThat(user.getUsername()).isEqualTo(issuer.username());
     assertThat(user.getAchievements()).isNotEmpty();
     assertThat(user.getAchievements().get(0).getAchievement()).isEqualTo(Achievement.JAMES_WEBB);
     assertThat(user.getKarma()).isEqualTo(-1);
+    assertThat(user.isNotificationEnabled()).isTrue();
+    assertThat(user.getNotificationRadius()).isEqualTo(10);
+  }
+
+  @DisplayName("UserService#findSelf should throw when issuer is unknown")
+  @Test
+  void findSelf_should_throw_when_issuer_is_unknown() {
+    // When
+    when(userRepository.findIdByUsernameIgnoreCase("issuer")).thenReturn(Optional.empty());
+    ThrowingCallable action = () -> userService.findSelf("issuer");
+
+    // Then
+    assertThatThrownBy(action).isInstanceOf(UnavailableUserException.class);
   }
 
   // --- UserService#update
@@ -289,11 +504,12 @@ class UserServiceTest {
         .thenReturn(Optional.of(issuer));
     when(userRepository.findByUsernameIgnoreCase(target.getUsername()))
         .thenReturn(Optional.of(target));
+    when(blobService.store(dto.getAvatar().get())).thenReturn("new_hash");
     when(userRepository.save(isA(UserEntity.class))).then(a -> a.getArgument(0));
     var user = userService.update(target.getUsername(), dto, issuer.getUsername());
 
     // Then
-    assertThat(user.getAvatar()).isEqualTo(dto.getAvatar().get());
+    assertThat(user.getAvatar()).isEqualTo("/blobs/new_hash?size=PROFILE");
     assertThat(user.getBiography()).isEqualTo(dto.getBiography().get());
   }
 
@@ -343,7 +559,8 @@ class UserServiceTest {
     var user = userService.update(target.getUsername(), dto, issuer.getUsername());
 
     // Then
-    assertThat(user.getAvatar()).isEqualTo(target.getAvatar());
+    assertThat(user.getAvatar())
+        .isEqualTo(BLOB_PROPERTIES.urlOf(target.getAvatar(), ThumbnailEntity.Size.PROFILE));
     assertThat(user.getBiography()).isEqualTo(target.getBiography());
   }
 
@@ -495,7 +712,26 @@ class UserServiceTest {
     userService.updatePosition(target.getUsername(), dto, issuer.getUsername());
 
     // Then
-    verify(userRepository, times(1)).save(isA(UserEntity.class));
+    verify(positionBufferService, times(1))
+        .buffer(eq(target), eq(dto.getLatitude()), eq(dto.getLongitude()), isA(Instant.class));
+    verify(userRepository, never()).save(isA(UserEntity.class));
+  }
+
+  @DisplayName("UserService#updatePosition should look up the user once when updating itself")
+  @Test
+  void updatePosition_should_look_up_the_user_once_when_updating_itself() {
+    // Given
+    var user = UserEntity.builder().username("user").build();
+    var dto = UpdatePositionDto.builder().latitude(3.402892).longitude(22.39392).build();
+
+    // When
+    when(userRepository.findByUsernameIgnoreCase(user.getUsername())).thenReturn(Optional.of(user));
+    userService.updatePosition(user.getUsername(), dto, "USER");
+
+    // Then
+    verify(userRepository, times(1)).findByUsernameIgnoreCase(any());
+    verify(positionBufferService, times(1))
+        .buffer(eq(user), eq(dto.getLatitude()), eq(dto.getLongitude()), isA(Instant.class));
   }
 
   @DisplayName("UserService#updatePosition should throw when dto is invalid")
@@ -532,4 +768,40 @@ class UserServiceTest {
     // Then
     assertThatThrownBy(action).isInstanceOf(UserNotEditableException.class);
   }
+
+  // ---
+
+  private static UserProfile profile(Long id, String username, Type type, boolean isPublic) {
+    return new UserProfile(id, username, type, null, null, isPublic, 0, 5, false, 5, List.of());
+  }
+
+  private static DetailedObservation detailed(Long id, int karma) {
+    return new DetailedObservation(
+        id,
+        null,
+        1.0,
+        2.0,
+        90,
+        ObservationEntity.Visibility.VISIBLE,
+        Instant.ofEpochSecond(1680000000L),
+        null,
+        karma,
+        "target",
+        null,
+        true,
+        Type.USER,
+        3L,
+        "Moon",
+        "moon.png",
+        3,
+        null);
+  }
+
+  private void mockProfiles(UserProfile... profiles) {
+    for (var profile : profiles) {
+      when(userRepository.findIdByUsernameIgnoreCase(profile.username()))
+          .thenReturn(Optional.of(profile.id()));
+      when(userRepository.findProfileById(profile.id())).thenReturn(Optional.of(profile));
+    }
+  }
 }